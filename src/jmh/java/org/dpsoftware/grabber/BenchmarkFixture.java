@@ -0,0 +1,168 @@
+/*
+  BenchmarkFixture.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.LEDCoordinate;
+import org.dpsoftware.MainSingleton;
+import org.dpsoftware.NativeExecutor;
+import org.dpsoftware.config.Configuration;
+import org.dpsoftware.config.Constants;
+import org.dpsoftware.config.Enums;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.gui.controllers.ColorCorrectionDialogController;
+import org.dpsoftware.managers.dto.LedMatrixInfo;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.LinkedHashMap;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic inputs shared by the JMH benchmarks.
+ * The configuration and the LED matrix are built in memory using the default values,
+ * no capture pipeline, GUI or device is needed to run the benchmarks.
+ */
+public class BenchmarkFixture {
+
+    // Fixed seed, every run benchmarks the same frames
+    private static final long SEED = 42;
+
+    /**
+     * Build a configuration for the given screen and use it as the configuration in use
+     *
+     * @param screenWidth      screen width
+     * @param screenHeight     screen height
+     * @param ledNum           total number of LEDs
+     * @param resamplingFactor resampling factor applied by the capture pipeline
+     * @return configuration in use
+     */
+    public static Configuration initConfig(int screenWidth, int screenHeight, int ledNum, int resamplingFactor) {
+        Configuration config = buildConfig(screenWidth, screenHeight, ledNum);
+        config.setResamplingFactor(resamplingFactor);
+        MainSingleton.getInstance().config = config;
+        MainSingleton.getInstance().ledNumber = ledNum;
+        GStreamerGrabber.ledMatrix = config.getLedMatrixInUse(Enums.AspectRatio.FULLSCREEN.getBaseI18n());
+        ZonePlan.invalidate();
+        PipelineSettings.refresh();
+        return config;
+    }
+
+    /**
+     * Build a configuration with the LEDs distributed on the four sides of the screen, roughly 30% on top,
+     * 17% on each side and the rest on the bottom row
+     *
+     * @param screenWidth  screen width
+     * @param screenHeight screen height
+     * @param ledNum       total number of LEDs
+     * @return configuration
+     */
+    public static Configuration buildConfig(int screenWidth, int screenHeight, int ledNum) {
+        int topLed = ledNum * 30 / 100;
+        int sideLed = ledNum * 17 / 100;
+        int bottomRowLed = ledNum - topLed - (sideLed * 2);
+        int bottomRightLed = bottomRowLed / 2;
+        int bottomLeftLed = bottomRowLed - bottomRightLed;
+        LedMatrixInfo ledMatrixInfo = new LedMatrixInfo(screenWidth, screenHeight, bottomRightLed, sideLed, topLed, sideLed, bottomLeftLed,
+                bottomRowLed, Constants.SPLIT_BOTTOM_MARGIN_DEFAULT, Constants.GRABBER_AREA_TOP_BOTTOM_DEFAULT, Constants.GRABBER_AREA_SIDE_DEFAULT,
+                Constants.GAP_TYPE_DEFAULT_TOP_BOTTOM, Constants.GAP_TYPE_DEFAULT_SIDE, Constants.GROUP_BY_LEDS);
+        LEDCoordinate ledCoordinate = new LEDCoordinate();
+        try {
+            LinkedHashMap<Integer, LEDCoordinate> fullScreen = ledCoordinate.initializeLedMatrix(Enums.AspectRatio.FULLSCREEN, (LedMatrixInfo) ledMatrixInfo.clone(), true);
+            LinkedHashMap<Integer, LEDCoordinate> letterbox = ledCoordinate.initializeLedMatrix(Enums.AspectRatio.LETTERBOX, (LedMatrixInfo) ledMatrixInfo.clone(), true);
+            LinkedHashMap<Integer, LEDCoordinate> pillarbox = ledCoordinate.initializeLedMatrix(Enums.AspectRatio.PILLARBOX, (LedMatrixInfo) ledMatrixInfo.clone(), true);
+            Configuration config = new Configuration(fullScreen, letterbox, pillarbox, ColorCorrectionDialogController.initHSLMap());
+            config.setScreenResX(screenWidth);
+            config.setScreenResY(screenHeight);
+            config.setTopLed(topLed);
+            config.setLeftLed(sideLed);
+            config.setRightLed(sideLed);
+            config.setBottomLeftLed(bottomLeftLed);
+            config.setBottomRightLed(bottomRightLed);
+            config.setBottomRowLed(bottomRowLed);
+            return config;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Select the zone engine the same way it's done at startup
+     *
+     * @param simdAvxOption engine to use
+     */
+    public static void useEngine(Enums.SimdAvxOption simdAvxOption) {
+        MainSingleton.getInstance().config.setSimdAvx(simdAvxOption.getSimdOptionNumeric());
+        NativeExecutor.setSimdAvxInstructions();
+    }
+
+    /**
+     * Wait for the color correction table to be built for the current settings
+     */
+    public static void awaitColorCorrectionLut() {
+        ColorCorrectionLut.refresh();
+        while (ColorCorrectionLut.getTable() == null) {
+            Thread.onSpinWait();
+            ColorCorrectionLut.refresh();
+        }
+    }
+
+    /**
+     * Create a native memory segment that looks like the one mapped from the GStreamer sample,
+     * every row is followed by stridePadding pixels like on the GPUs that align the video memory
+     *
+     * @param width         captured image width
+     * @param height        captured image height
+     * @param stridePadding number of padding pixels at the end of every row
+     * @return captured image
+     */
+    public static MemorySegment syntheticFrame(int width, int height, int stridePadding) {
+        int widthPlusStride = width + stridePadding;
+        MemorySegment frameSegment = Arena.ofAuto().allocate((long) widthPlusStride * height * Integer.BYTES, Integer.BYTES);
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < widthPlusStride; x++) {
+                // Horizontal and vertical gradients with some noise, padding pixels are garbage like on the real buffer
+                int r = (x * 255 / widthPlusStride + random.nextInt(16)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(16)) & 0xFF;
+                int b = random.nextInt(256);
+                frameSegment.setAtIndex(FrameLayout.PIXEL, (long) y * widthPlusStride + x, (r << 16) | (g << 8) | b);
+            }
+        }
+        return frameSegment;
+    }
+
+    /**
+     * Create an array of random packed colors
+     *
+     * @param ledNum number of colors
+     * @return packed colors
+     */
+    public static int[] randomColors(int ledNum) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] leds = new int[ledNum];
+        for (int i = 0; i < ledNum; i++) {
+            leds[i] = random.nextInt(0x1000000);
+        }
+        return leds;
+    }
+
+}
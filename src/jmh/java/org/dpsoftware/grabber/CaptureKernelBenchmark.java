@@ -0,0 +1,97 @@
+/*
+  CaptureKernelBenchmark.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.config.Configuration;
+import org.dpsoftware.config.Enums;
+import org.dpsoftware.config.PipelineSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zone averaging on a captured frame, the same work done by the GStreamer grabber on every frame.
+ * Every engine is benchmarked: scalar, integral image, SIMD with each vector species and the parallel zone engine.
+ * Species not supported by the CPU are emulated by the JVM and are a lot slower than the scalar engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class CaptureKernelBenchmark {
+
+    // Defaults are the configurations the zone kernel tuner chooses between, the full sweep is in the benchmark profile
+    @Param({"1920x1080", "3840x2160"})
+    public String resolution;
+    // Padding pixels at the end of every row, some GPUs align the video memory
+    @Param({"0"})
+    public int stridePadding;
+    @Param({"4"})
+    public int resamplingFactor;
+    @Param({"200", "1000"})
+    public int leds;
+    @Param({"DISABLED", "INTEGRAL_IMAGE", "AVX", "AVX256", "AVX512"})
+    public Enums.SimdAvxOption engine;
+    @Param({"false", "true"})
+    public boolean parallelZones;
+
+    private PipelineSettings settings;
+    private FrameLayout layout;
+    private MemorySegment frameSegment;
+
+    /**
+     * Build the configuration, select the engine and create the captured frame
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] screen = resolution.split("x");
+        int screenWidth = Integer.parseInt(screen[0]);
+        int screenHeight = Integer.parseInt(screen[1]);
+        Configuration config = BenchmarkFixture.initConfig(screenWidth, screenHeight, leds, resamplingFactor);
+        config.setParallelZones(parallelZones);
+        BenchmarkFixture.useEngine(engine);
+        PipelineSettings.refresh();
+        settings = PipelineSettings.get();
+        BenchmarkFixture.awaitColorCorrectionLut();
+        int width = screenWidth / resamplingFactor;
+        int height = screenHeight / resamplingFactor;
+        frameSegment = BenchmarkFixture.syntheticFrame(width, height, stridePadding);
+        layout = FrameLayout.of(width, height, frameSegment.byteSize());
+    }
+
+    /**
+     * Compute all the zones of the frame, the pooled frame is released as the consumer does
+     *
+     * @return first LED color, returned to avoid dead code elimination
+     */
+    @Benchmark
+    public int processBufferUsingCpu() {
+        LedFrame frame = GStreamerGrabber.AppSinkListener.processBufferUsingCpu(settings, layout, frameSegment);
+        int color = frame.get(0);
+        FramePool.release(frame);
+        return color;
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+  ColorPipelineBenchmark.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.config.Configuration;
+import org.dpsoftware.config.Enums;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.gui.elements.Satellite;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per LED work done on every frame after the zones have been computed:
+ * color corrections, smoothing, white balance and the satellites resampling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ColorPipelineBenchmark {
+
+    @Param({"50", "200", "500", "1000"})
+    public int leds;
+
+    private int[] sumR;
+    private int[] sumG;
+    private int[] sumB;
+    private int[] colors;
+    private LedFrame frame;
+    private Satellite biggerSatellite;
+    private Satellite smallerSatellite;
+    private SatelliteMapping biggerMapping;
+    private SatelliteMapping smallerMapping;
+    private int[] biggerColors;
+    private int[] smallerColors;
+
+    /**
+     * Build the configuration with smoothing and white balance enabled, so that every step does its work
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        Configuration config = BenchmarkFixture.initConfig(3840, 2160, leds, 4);
+        config.setWhiteTemperature(45);
+        PipelineSettings.refresh();
+        BenchmarkFixture.awaitColorCorrectionLut();
+        // Zone sums as computed on a 20x20 pixels zone
+        int pickNumber = 400;
+        SplittableRandom random = new SplittableRandom(42);
+        sumR = new int[leds];
+        sumG = new int[leds];
+        sumB = new int[leds];
+        for (int i = 0; i < leds; i++) {
+            sumR[i] = random.nextInt(256) * pickNumber;
+            sumG[i] = random.nextInt(256) * pickNumber;
+            sumB[i] = random.nextInt(256) * pickNumber;
+        }
+        colors = BenchmarkFixture.randomColors(leds);
+        // Steps work in place, the cost per frame doesn't depend on the colors so the frame is not restored between calls
+        frame = new LedFrame(leds);
+        frame.copyFrom(colors, leds);
+        // Satellites on the whole screen, mappings are compiled once like on the sender threads
+        biggerSatellite = new Satellite(Enums.PossibleZones.ENTIRE_SCREEN.getBaseI18n(), Enums.Direction.INVERSE.getBaseI18n(),
+                String.valueOf(leds * 2), "", "", Enums.Algo.AVG_COLOR.getBaseI18n());
+        smallerSatellite = new Satellite(Enums.PossibleZones.ENTIRE_SCREEN.getBaseI18n(), Enums.Direction.INVERSE.getBaseI18n(),
+                String.valueOf(Math.max(1, leds / 3)), "", "", Enums.Algo.AVG_COLOR.getBaseI18n());
+        biggerMapping = SatelliteMapping.resolve(null, biggerSatellite, leds);
+        smallerMapping = SatelliteMapping.resolve(null, smallerSatellite, leds);
+        biggerColors = new int[biggerMapping.getLedNum()];
+        smallerColors = new int[smallerMapping.getLedNum()];
+    }
+
+    /**
+     * Average and color corrections of every zone
+     *
+     * @param blackhole consumes the corrected colors
+     */
+    @Benchmark
+    public void correctColors(Blackhole blackhole) {
+        for (int i = 0; i < leds; i++) {
+            blackhole.consume(ImageProcessor.correctColors(sumR[i], sumG[i], sumB[i], 400, true));
+        }
+    }
+
+    /**
+     * Exponential moving average on the whole frame
+     *
+     * @return frame, returned to avoid dead code elimination
+     */
+    @Benchmark
+    public LedFrame exponentialMovingAverage() {
+        ImageProcessor.exponentialMovingAverage(frame);
+        return frame;
+    }
+
+    /**
+     * White balance on the whole frame
+     *
+     * @return frame, returned to avoid dead code elimination
+     */
+    @Benchmark
+    public LedFrame adjustStripWhiteBalance() {
+        ImageProcessor.adjustStripWhiteBalance(frame);
+        return frame;
+    }
+
+    /**
+     * Resample the frame for a satellite with more LEDs than the zone
+     *
+     * @return padded colors
+     */
+    @Benchmark
+    public int[] padColors() {
+        biggerMapping = SatelliteMapping.resolve(biggerMapping, biggerSatellite, leds);
+        biggerMapping.apply(colors, biggerColors);
+        return biggerColors;
+    }
+
+    /**
+     * Resample the frame for a satellite with less LEDs than the zone
+     *
+     * @return reduced colors
+     */
+    @Benchmark
+    public int[] reduceColors() {
+        smallerMapping = SatelliteMapping.resolve(smallerMapping, smallerSatellite, leds);
+        smallerMapping.apply(colors, smallerColors);
+        return smallerColors;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+  OrderArrayBenchmark.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.network;
+
+import org.dpsoftware.grabber.BenchmarkFixture;
+import org.dpsoftware.grabber.FramePool;
+import org.dpsoftware.grabber.LedFrame;
+import org.dpsoftware.grabber.OutputRoutingPlan;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reorder the colors received from three monitors on a single device, done by the main instance on every frame.
+ * The order is compiled once in the routing plan, every frame is a single gather.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class OrderArrayBenchmark {
+
+    // Total number of LEDs, split between the three monitors
+    @Param({"50", "200", "500", "1000"})
+    public int leds;
+
+    private LedFrame frame;
+    private int[] colors;
+    private OutputRoutingPlan routingPlan;
+
+    /**
+     * Build the configuration of the three monitors, the central monitor is the one in use
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        int ledsPerMonitor = leds / 3;
+        MessageServer messageServer = new MessageServer();
+        messageServer.setMonitorConfig1(BenchmarkFixture.buildConfig(1920, 1080, ledsPerMonitor));
+        messageServer.setMonitorConfig2(BenchmarkFixture.buildConfig(1920, 1080, ledsPerMonitor));
+        messageServer.setMonitorConfig3(BenchmarkFixture.buildConfig(1920, 1080, ledsPerMonitor));
+        NetworkSingleton.getInstance().messageServer = messageServer;
+        BenchmarkFixture.initConfig(1920, 1080, ledsPerMonitor, 4).setMultiMonitor(3);
+        colors = BenchmarkFixture.randomColors(ledsPerMonitor * 3);
+        frame = FramePool.acquire(colors.length);
+        routingPlan = OutputRoutingPlan.resolve(null, colors.length, true);
+    }
+
+    /**
+     * Order the colors of the three monitors
+     *
+     * @return ordered frame
+     */
+    @Benchmark
+    public LedFrame orderArray() {
+        frame.copyFrom(colors, colors.length);
+        routingPlan = OutputRoutingPlan.resolve(routingPlan, colors.length, true);
+        routingPlan.apply(frame);
+        return frame;
+    }
+
+    /**
+     * Give back the pooled frame
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FramePool.release(frame);
+    }
+
+}
@@ -29,9 +29,18 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.dpsoftware.audio.AudioSingleton;
 import org.dpsoftware.config.*;
+import org.dpsoftware.grabber.FrameMailbox;
+import org.dpsoftware.grabber.FramePacer;
+import org.dpsoftware.grabber.FramePool;
+import org.dpsoftware.grabber.FrameSequence;
 import org.dpsoftware.grabber.GrabberManager;
 import org.dpsoftware.grabber.GrabberSingleton;
 import org.dpsoftware.grabber.ImageProcessor;
+import org.dpsoftware.grabber.LatencyMonitor;
+import org.dpsoftware.grabber.LedFrame;
+import org.dpsoftware.grabber.OutputRoutingPlan;
+import org.dpsoftware.grabber.PipelineEvents;
+import org.dpsoftware.grabber.StagedPipeline;
 import org.dpsoftware.gui.GuiManager;
 import org.dpsoftware.managers.*;
 import org.dpsoftware.managers.dto.StateDto;
@@ -39,6 +48,7 @@ import org.dpsoftware.network.MessageClient;
 import org.dpsoftware.network.MessageServer;
 import org.dpsoftware.network.NetworkSingleton;
 import org.dpsoftware.network.tcpUdp.UdpServer;
+import org.dpsoftware.utilities.ColorUtilities;
 import org.dpsoftware.utilities.CommonUtility;
 import org.dpsoftware.utilities.PropertiesLoader;
 import org.slf4j.LoggerFactory;
@@ -51,9 +61,9 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
-import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -69,6 +79,16 @@ public class FireflyLuciferin extends Application {
     private final ImageProcessor imageProcessor;
     private final GrabberManager grabberManager;
     private final PowerSavingManager powerSavingManager;
+    // Held while a frame is sent, the consumer and the direct pipeline never write to the sink at the same time
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private final boolean wayland = NativeExecutor.isWayland();
+    // Last capture sequence emitted by the consumer and by every sink, older frames are dropped
+    private final FrameSequence outputSequence = new FrameSequence(MetricsManager.OUT_OF_ORDER_OUTPUT);
+    private final FrameSequence serialSequence = new FrameSequence(MetricsManager.OUT_OF_ORDER_SERIAL);
+    private final FrameSequence udpSequence = new FrameSequence(MetricsManager.OUT_OF_ORDER_UDP);
+    private final FrameSequence mqttSequence = new FrameSequence(MetricsManager.OUT_OF_ORDER_MQTT);
+    // LED order, orientation and offset compiled for the output device, used under the send lock
+    private OutputRoutingPlan routingPlan;
     // Serial output stream
     SerialManager serialManager;
     // MQTT
@@ -98,13 +118,14 @@ public class FireflyLuciferin extends Application {
             StorageManager storageManager = new StorageManager();
             MainSingleton.getInstance().config = storageManager.loadConfigurationYaml();
             ledMatrixInUse = MainSingleton.getInstance().config.getDefaultLedMatrix();
+            PipelineSettings.refresh();
         } catch (NullPointerException e) {
             log.error("Please configure the app.");
             NativeExecutor.exit();
         }
         manageLocale();
-        // Queue is configured to hold a single frame, don't use `put` on it, but `offer` to prevent to block the writing thread.
-        MainSingleton.getInstance().sharedQueue = new LinkedBlockingQueue<>(1);
+        // Holds the freshest frame only, producers never block, stale frames are dropped.
+        MainSingleton.getInstance().frameMailbox = new FrameMailbox();
         imageProcessor = new ImageProcessor(true);
         serialManager = new SerialManager();
         grabberManager = new GrabberManager();
@@ -120,7 +141,9 @@ public class FireflyLuciferin extends Application {
         MainSingleton.getInstance().hostServices = this.getHostServices();
         powerSavingManager = new PowerSavingManager();
         powerSavingManager.setLastFrameTime(LocalDateTime.now());
+        PipelineManager.setDirectSender(this::sendDirect);
         NativeExecutor.setHighPriorityThreads(MainSingleton.getInstance().config.getThreadPriority());
+        MetricsManager.startServer();
     }
 
     /**
@@ -329,9 +352,13 @@ public class FireflyLuciferin extends Application {
                 || (MainSingleton.getInstance().config.getCaptureMethod().equals(Configuration.CaptureMethod.PIPEWIREXDG.name()))
                 || (MainSingleton.getInstance().config.getCaptureMethod().equals(Configuration.CaptureMethod.PIPEWIREXDG_NVIDIA.name()))
                 || (MainSingleton.getInstance().config.getCaptureMethod().equals(Configuration.CaptureMethod.AVFVIDEOSRC.name()))) {
+            // The GStreamer streaming thread is the single producer of the correction stage
+            if (MainSingleton.getInstance().config.isPipelinedExecution()) {
+                StagedPipeline.start();
+            }
             grabberManager.launchAdvancedGrabber(imageProcessor);
         } else { // Standard Producers
-            grabberManager.launchStandardGrabber(scheduledExecutorService, executorNumber);
+            grabberManager.launchStandardGrabber(executorNumber);
         }
         // Run a very fast consumer
         CompletableFuture.supplyAsync(() -> {
@@ -378,16 +405,21 @@ public class FireflyLuciferin extends Application {
     private void scheduleBackgroundTasks(Stage stage) {
         // Wayland only, create a task that pings Glow Worm device every 2 seconds, this is needed because wayland stops sending
         // updates to the device when the image on the screen is still.
-        if (NativeExecutor.isWayland()) {
-            ScheduledExecutorService waylandScheduledExecutorService = Executors.newScheduledThreadPool(1);
-            Runnable waylandTask = () -> {
-                if (MainSingleton.getInstance().RUNNING && MainSingleton.getInstance().FPS_PRODUCER == 0
-                        && MainSingleton.getInstance().lastLedColor != null && MainSingleton.getInstance().lastLedColor.length > 0) {
-                    Collections.reverse(Arrays.asList(MainSingleton.getInstance().lastLedColor));
-                    MainSingleton.getInstance().sharedQueue.offer(MainSingleton.getInstance().lastLedColor);
+        if (wayland) {
+            Thread.ofPlatform().name("wayland-keepalive").daemon(true).start(() -> {
+                FramePacer pacer = new FramePacer(TimeUnit.MILLISECONDS.toNanos(Constants.WAYLAND_KEEPALIVE_MS), MetricsManager.PACER_MISSED_KEEPALIVE);
+                while (!Thread.currentThread().isInterrupted()) {
+                    int[] lastLedColor = MainSingleton.getInstance().lastLedColor;
+                    if (MainSingleton.getInstance().RUNNING && MainSingleton.getInstance().FPS_PRODUCER == 0
+                            && lastLedColor != null && lastLedColor.length > 0) {
+                        // lastLedColor is saved before orientation and offset are applied, no need to reverse it again
+                        LedFrame frame = FramePool.acquire(lastLedColor.length);
+                        frame.copyFrom(lastLedColor, lastLedColor.length);
+                        PipelineManager.offerFrame(frame);
+                    }
+                    pacer.awaitNextFrame();
                 }
-            };
-            waylandScheduledExecutorService.scheduleAtFixedRate(waylandTask, 0, 200, TimeUnit.MILLISECONDS);
+            });
         }
         NativeExecutor.addShutdownHook();
         if (!MainSingleton.getInstance().config.isMultiScreenSingleDevice() || CommonUtility.isSingleDeviceMainInstance()) {
@@ -455,32 +487,38 @@ public class FireflyLuciferin extends Application {
      * Send color stream to the microcontroller
      * using DPsoftware Checksum
      *
-     * @param leds array of LEDs containing the average color to display on the LED
+     * @param leds     frame of LEDs containing the average color to display on the LED, order, orientation and offset are applied in place
+     * @param ledOrder true if the LEDs of a single device on multiple monitors must be reordered
      */
-    private void sendColors(Color[] leds) throws IOException {
-        if (!Enums.PowerSaving.DISABLED.equals(LocalizedEnum.fromBaseStr(Enums.PowerSaving.class, MainSingleton.getInstance().config.getPowerSaving()))) {
+    private void sendColors(LedFrame leds, boolean ledOrder) throws IOException {
+        PipelineSettings settings = PipelineSettings.get();
+        boolean udp = settings.wirelessStream() && settings.udpStream() && !Constants.JSON_STREAM;
+        FrameSequence sinkSequence = !settings.wirelessStream() ? serialSequence : udp ? udpSequence : mqttSequence;
+        if (!sinkSequence.accept(leds)) {
+            return;
+        }
+        if (settings.powerSavingEnabled()) {
             if (powerSavingManager.isUnlockCheckLedDuplication()) {
                 powerSavingManager.setUnlockCheckLedDuplication(false);
-                powerSavingManager.checkForLedDuplication(leds);
+                powerSavingManager.checkForLedDuplication(leds.getRgb(), leds.getLedNum());
             }
             if (powerSavingManager.isShutDownLedStrip() || powerSavingManager.isScreenSaverRunning()) {
-                Arrays.fill(leds, new Color(0, 0, 0));
+                leds.fill(0);
             }
         }
-        if (Enums.Orientation.CLOCKWISE.equals((LocalizedEnum.fromBaseStr(Enums.Orientation.class, MainSingleton.getInstance().config.getOrientation())))) {
-            Collections.reverse(Arrays.asList(leds));
-        }
-        if (MainSingleton.getInstance().config.getLedStartOffset() > 0) {
-            List<Color> tempList = new ArrayList<>();
-            List<Color> tempListHead = Arrays.asList(leds).subList(MainSingleton.getInstance().config.getLedStartOffset(), leds.length);
-            List<Color> tempListTail = Arrays.asList(leds).subList(0, MainSingleton.getInstance().config.getLedStartOffset());
-            tempList.addAll(tempListHead);
-            tempList.addAll(tempListTail);
-            leds = tempList.toArray(leds);
-        }
+        routingPlan = OutputRoutingPlan.resolve(routingPlan, leds.getLedNum(), ledOrder);
+        routingPlan.apply(leds);
         int i = 0;
-        if (leds != null && leds[0] != null) {
-            if (MainSingleton.getInstance().config.isFullFirmware() && MainSingleton.getInstance().config.isWirelessStream()) {
+        if (leds.getLedNum() > 0 && udp) {
+            // UDP frames are recorded by the device senders once written on the wire
+            sendChunck(i, leds, 1);
+        } else if (leds.getLedNum() > 0) {
+            MetricsManager.Counter framesSent = !settings.wirelessStream() ? MetricsManager.FRAMES_SENT_SERIAL : MetricsManager.FRAMES_SENT_MQTT;
+            MetricsManager.Counter bytesSent = !settings.wirelessStream() ? MetricsManager.BYTES_SENT_SERIAL : MetricsManager.BYTES_SENT_MQTT;
+            PipelineEvents.FrameSent sentEvent = new PipelineEvents.FrameSent();
+            long bytesBefore = sentEvent.isEnabled() ? bytesSent.sum() : 0;
+            sentEvent.begin();
+            if (settings.wirelessStream()) {
                 // Single part stream
                 if (MainSingleton.getInstance().ledNumber < Constants.FIRST_CHUNK || !Constants.JSON_STREAM) {
                     sendChunck(i, leds, 1);
@@ -499,24 +537,36 @@ public class FireflyLuciferin extends Application {
                     }
                 }
             } else {
-                serialManager.sendColorsViaUSB(leds);
+                serialManager.sendColorsViaUSB(leds.getRgb(), leds.getLedNum());
+            }
+            framesSent.increment();
+            LatencyMonitor.CAPTURE_TO_WIRE.recordSince(leds.getCaptureNanos());
+            if (sentEvent.shouldCommit()) {
+                sentEvent.sink = !settings.wirelessStream() ? MetricsManager.SINK_SERIAL : MetricsManager.SINK_MQTT;
+                sentEvent.leds = leds.getLedNum();
+                // Serial and MQTT frames are written under the send lock, the counter delta is the size of this frame
+                sentEvent.bytes = bytesSent.sum() - bytesBefore;
+                sentEvent.captureToWire = leds.getCaptureNanos() != 0 ? System.nanoTime() - leds.getCaptureNanos() : 0;
+                sentEvent.commit();
             }
         }
-        MainSingleton.getInstance().FPS_CONSUMER_COUNTER++;
+        MetricsManager.FRAMES_CONSUMED.increment();
     }
 
     /**
      * Send single chunk to MQTT topic
      *
      * @param i           index
-     * @param leds        LEDs array to send
+     * @param frame       LEDs frame to send
      * @param chunkNumber chunk number
      * @return index of the remaining leds to send
      */
-    int sendChunck(int i, Color[] leds, int chunkNumber) {
+    int sendChunck(int i, LedFrame frame, int chunkNumber) {
+        long encodeStart = System.nanoTime();
         int firstChunk = Constants.FIRST_CHUNK;
         StringBuilder ledStr = new StringBuilder();
-        int ledNum = leds.length;
+        int[] leds = frame.getRgb();
+        int ledNum = frame.getLedNum();
         if (Constants.JSON_STREAM) {
             ledStr.append("{" + Constants.LED_NUM).append(ledNum).append(",");
             ledStr.append("\"part\":").append(chunkNumber).append(",");
@@ -530,28 +580,28 @@ public class FireflyLuciferin extends Application {
             case 1 -> {
                 // First chunk equals MAX_CHUNK when in byte array
                 while (i < firstChunk && i < ledNum) {
-                    ledStr.append(leds[i].getRGB());
+                    ledStr.append(ColorUtilities.toArgb(leds[i]));
                     ledStr.append(",");
                     i++;
                 }
             }
             case 2 -> {
                 while (i >= Constants.FIRST_CHUNK && i < Constants.SECOND_CHUNK && i < ledNum) {
-                    ledStr.append(leds[i].getRGB());
+                    ledStr.append(ColorUtilities.toArgb(leds[i]));
                     ledStr.append(",");
                     i++;
                 }
             }
             case 3 -> {
                 while (i >= Constants.SECOND_CHUNK && i < Constants.THIRD_CHUNK && i < ledNum) {
-                    ledStr.append(leds[i].getRGB());
+                    ledStr.append(ColorUtilities.toArgb(leds[i]));
                     ledStr.append(",");
                     i++;
                 }
             }
             case 4 -> {
                 while (i >= Constants.THIRD_CHUNK && i < ledNum) {
-                    ledStr.append(leds[i].getRGB());
+                    ledStr.append(ColorUtilities.toArgb(leds[i]));
                     ledStr.append(",");
                     i++;
                 }
@@ -559,45 +609,102 @@ public class FireflyLuciferin extends Application {
         }
         if (Constants.JSON_STREAM) {
             ledStr.append(".");
-            NetworkManager.stream(ledStr.toString().replace(",.", "") + "]}");
+            String msg = ledStr.toString().replace(",.", "") + "]}";
+            LatencyMonitor.ENCODE.recordSince(encodeStart);
+            NetworkManager.stream(msg);
         } else {
-            NetworkManager.streamColors(leds, ledStr);
+            // UDP stream encodes its own packets
+            if (!PipelineSettings.get().udpStream()) {
+                LatencyMonitor.ENCODE.recordSince(encodeStart);
+            }
+            NetworkManager.streamColors(frame, ledStr);
         }
         return i;
     }
 
     /**
-     * Fast consumer
+     * Fast consumer, every frame taken from the mailbox is given back to the FramePool once sent
      */
     @SuppressWarnings("InfiniteLoopStatement")
     void consume() throws InterruptedException, IOException {
         boolean isWayland = NativeExecutor.isWayland();
         boolean multiMonitorLedStripOrdering = false;
         while (true) {
-            Color[] colorArray = MainSingleton.getInstance().sharedQueue.take();
-            if (isWayland) MainSingleton.getInstance().lastLedColor = colorArray;
-            if (MainSingleton.getInstance().RUNNING) {
-                if (CommonUtility.isSingleDeviceMultiScreen()) {
-                    if (colorArray.length == NetworkSingleton.getInstance().totalLedNum) {
-                        if (NetworkSingleton.getInstance().isLedOrderRequired()) {
-                            if (!multiMonitorLedStripOrdering) {
-                                multiMonitorLedStripOrdering = true;
-                                log.info("Using custom ordering");
+            LedFrame colorArray = MainSingleton.getInstance().frameMailbox.take();
+            LatencyMonitor.QUEUE_WAIT.recordSince(colorArray.getOfferNanos());
+            long outputStart = System.nanoTime();
+            sendLock.lock();
+            try {
+                if (isWayland) saveLastLedColor(colorArray);
+                if (MainSingleton.getInstance().RUNNING && outputSequence.accept(colorArray)) {
+                    if (PipelineSettings.get().singleDeviceMultiScreen()) {
+                        if (colorArray.getLedNum() == NetworkSingleton.getInstance().totalLedNum) {
+                            boolean ledOrder = NetworkSingleton.getInstance().isLedOrderRequired();
+                            if (ledOrder != multiMonitorLedStripOrdering) {
+                                multiMonitorLedStripOrdering = ledOrder;
+                                log.info(ledOrder ? "Using custom ordering" : "Using normal ordering");
                             }
-                            NetworkSingleton.getInstance().orderArray(colorArray);
+                            sendColors(colorArray, ledOrder);
                         } else {
-                            if (multiMonitorLedStripOrdering) {
-                                multiMonitorLedStripOrdering = false;
-                                log.info("Using normal ordering");
-                            }
+                            PipelineEvents.frameDropped(Constants.JFR_DROP_LED_MISMATCH);
                         }
-                        sendColors(colorArray);
+                    } else if (colorArray.getLedNum() == MainSingleton.getInstance().ledNumber) {
+                        sendColors(colorArray, false);
+                    } else {
+                        PipelineEvents.frameDropped(Constants.JFR_DROP_LED_MISMATCH);
                     }
-                } else if (colorArray.length == MainSingleton.getInstance().ledNumber) {
-                    sendColors(colorArray);
+                }
+            } finally {
+                sendLock.unlock();
+                FramePool.release(colorArray);
+                MetricsManager.STAGE_BUSY_OUTPUT.add(System.nanoTime() - outputStart);
+            }
+        }
+    }
+
+    /**
+     * Send a frame on the calling thread, used by the direct pipeline.
+     * Nothing is queued, if the consumer is sending a frame the caller doesn't wait and the frame is dropped.
+     *
+     * @param frame corrected frame, it's still owned by the caller after this call
+     * @return false if the sink is busy
+     */
+    private boolean sendDirect(LedFrame frame) {
+        if (!sendLock.tryLock()) {
+            return false;
+        }
+        long outputStart = System.nanoTime();
+        try {
+            if (wayland) saveLastLedColor(frame);
+            if (MainSingleton.getInstance().RUNNING) {
+                if (frame.getLedNum() == MainSingleton.getInstance().ledNumber) {
+                    sendColors(frame, false);
+                } else {
+                    PipelineEvents.frameDropped(Constants.JFR_DROP_LED_MISMATCH);
                 }
             }
+        } catch (IOException e) {
+            log.error(e.getMessage());
+        } finally {
+            sendLock.unlock();
+            MetricsManager.STAGE_BUSY_OUTPUT.add(System.nanoTime() - outputStart);
+        }
+        return true;
+    }
+
+    /**
+     * Save a copy of the last frame, Wayland stops sending frames when the image on the screen is still.
+     * The copy is taken before orientation and offset are applied to the frame.
+     *
+     * @param frame frame taken from the mailbox
+     */
+    private void saveLastLedColor(LedFrame frame) {
+        int[] lastLedColor = MainSingleton.getInstance().lastLedColor;
+        if (lastLedColor == null || lastLedColor.length != frame.getLedNum()) {
+            lastLedColor = new int[frame.getLedNum()];
         }
+        System.arraycopy(frame.getRgb(), 0, lastLedColor, 0, frame.getLedNum());
+        MainSingleton.getInstance().lastLedColor = lastLedColor;
     }
 
     /**
@@ -28,7 +28,6 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
-import org.dpsoftware.gui.elements.Satellite;
 import org.dpsoftware.managers.dto.LedMatrixInfo;
 import org.dpsoftware.utilities.CommonUtility;
 
@@ -75,24 +74,24 @@ public class LEDCoordinate {
     }
 
     /**
-     * Calculated start end of the satellite
+     * Calculated start end of a satellite zone
      *
-     * @param sat satellite where to do the calculation
+     * @param zone zone of the satellite
      * @return record with start and end
      */
-    public static getStartEndLeds getGetStartEndLeds(Satellite sat) {
+    public static getStartEndLeds getGetStartEndLeds(String zone) {
         int start, end;
         LinkedHashMap<Integer, LEDCoordinate> ledMatrix = MainSingleton.getInstance().config.getLedMatrixInUse(MainSingleton.getInstance().config.getDefaultLedMatrix());
-        if (sat.getZone().equals(Enums.PossibleZones.ENTIRE_SCREEN.getBaseI18n())) {
+        if (zone.equals(Enums.PossibleZones.ENTIRE_SCREEN.getBaseI18n())) {
             start = 1;
             end = MainSingleton.getInstance().ledNumber;
         } else {
-            String correctedColor = sat.getZone();
-            if (sat.getZone().equals(Enums.PossibleZones.TOP_RIGHT.getBaseI18n()) || sat.getZone().equals(Enums.PossibleZones.TOP_LEFT.getBaseI18n())) {
+            String correctedColor = zone;
+            if (zone.equals(Enums.PossibleZones.TOP_RIGHT.getBaseI18n()) || zone.equals(Enums.PossibleZones.TOP_LEFT.getBaseI18n())) {
                 correctedColor = Enums.PossibleZones.TOP.getBaseI18n();
             }
             if (!CommonUtility.isSplitBottomRow(MainSingleton.getInstance().config.getSplitBottomMargin())) {
-                if (sat.getZone().equals(Enums.PossibleZones.BOTTOM_RIGHT.getBaseI18n()) || sat.getZone().equals(Enums.PossibleZones.BOTTOM_LEFT.getBaseI18n())) {
+                if (zone.equals(Enums.PossibleZones.BOTTOM_RIGHT.getBaseI18n()) || zone.equals(Enums.PossibleZones.BOTTOM_LEFT.getBaseI18n())) {
                     correctedColor = Enums.PossibleZones.BOTTOM.getBaseI18n();
                 }
             }
@@ -110,18 +109,18 @@ public class LEDCoordinate {
                     .stream()
                     .mapToInt(v -> v)
                     .max().orElse(0);
-            if (sat.getZone().equals(Enums.PossibleZones.TOP_RIGHT.getBaseI18n())) {
+            if (zone.equals(Enums.PossibleZones.TOP_RIGHT.getBaseI18n())) {
                 end = start + ((end - start) / 3);
             }
-            if (sat.getZone().equals(Enums.PossibleZones.TOP_LEFT.getBaseI18n())) {
+            if (zone.equals(Enums.PossibleZones.TOP_LEFT.getBaseI18n())) {
                 int segment = (end - start) / 3;
                 start = start + (segment * 2);
             }
             if (!CommonUtility.isSplitBottomRow(MainSingleton.getInstance().config.getSplitBottomMargin())) {
-                if (sat.getZone().equals(Enums.PossibleZones.BOTTOM_LEFT.getBaseI18n())) {
+                if (zone.equals(Enums.PossibleZones.BOTTOM_LEFT.getBaseI18n())) {
                     end = start + ((end - start) / 3);
                 }
-                if (sat.getZone().equals(Enums.PossibleZones.BOTTOM_RIGHT.getBaseI18n())) {
+                if (zone.equals(Enums.PossibleZones.BOTTOM_RIGHT.getBaseI18n())) {
                     int segment = (end - start) / 3;
                     start = start + (segment * 2);
                 }
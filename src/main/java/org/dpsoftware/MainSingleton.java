@@ -28,13 +28,13 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.dpsoftware.config.Configuration;
+import org.dpsoftware.grabber.FrameMailbox;
 import org.dpsoftware.gui.GuiManager;
 
 import java.awt.*;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ResourceBundle;
-import java.util.concurrent.BlockingQueue;
 
 /**
  * Main singleton used to share common data
@@ -55,11 +55,11 @@ public class MainSingleton {
     public int whoAmI = 1;
     public boolean spawnInstances = true; // set this to false to avoid spawning new instances on multi monitor setup
     // Calculate Screen Capture Framerate and how fast your microcontroller can consume it
-    public float FPS_CONSUMER_COUNTER;
-    public float FPS_PRODUCER_COUNTER;
     public float FPS_CONSUMER = 0;
     public float FPS_PRODUCER = 0;
     public float FPS_GW_CONSUMER = 0;
+    // Frames per second replaced by a newer frame before the consumer could send them
+    public float FPS_DROPPED = 0;
     public SimpleDateFormat formatter;
     public SerialPort serial;
     public OutputStream output;
@@ -69,9 +69,9 @@ public class MainSingleton {
     public Configuration config;
     // Start and Stop threads
     public boolean RUNNING = false;
-    // This queue orders elements FIFO. Producer offers some data, consumer throws data to the Serial port.
-    public BlockingQueue<Color[]> sharedQueue;
-    public Color[] lastLedColor;
+    // Latest-wins handoff, producers publish the newest frame, consumer sends it to the Serial port.
+    public FrameMailbox frameMailbox;
+    public int[] lastLedColor;
     // Number of LEDs on the strip
     public int ledNumber;
     public int ledNumHighLowCount;
@@ -100,6 +100,7 @@ public class MainSingleton {
     public boolean exitTriggered = false;
     public int supportedSpeciesLengthSimd = 0;
     public VectorSpecies<Integer> SPECIES;
+    public boolean integralImage = false;
     public boolean initialized = false;
     public boolean waitingWaylandToken = false;
     public boolean cpuLatencyBenchRunning = false;
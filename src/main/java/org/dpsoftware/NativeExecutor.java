@@ -499,8 +499,10 @@ public final class NativeExecutor {
             case AVX512 -> MainSingleton.getInstance().setSPECIES(IntVector.SPECIES_512);
             case AVX256 -> MainSingleton.getInstance().setSPECIES(IntVector.SPECIES_256);
             case AVX -> MainSingleton.getInstance().setSPECIES(IntVector.SPECIES_128);
-            case DISABLED -> MainSingleton.getInstance().setSPECIES(null);
+            case DISABLED, INTEGRAL_IMAGE -> MainSingleton.getInstance().setSPECIES(null);
         }
+        MainSingleton.getInstance().setIntegralImage(Enums.SimdAvxOption.INTEGRAL_IMAGE
+                .equals(Enums.SimdAvxOption.findByValue(MainSingleton.getInstance().config.getSimdAvx())));
         log.info("SIMD CPU Instructions: {}", Enums.SimdAvxOption.findByValue(MainSingleton.getInstance().config.getSimdAvx()).getBaseI18n());
     }
 
@@ -24,9 +24,12 @@ package org.dpsoftware.audio;
 import lombok.extern.slf4j.Slf4j;
 import org.dpsoftware.MainSingleton;
 import org.dpsoftware.config.Enums;
-import org.dpsoftware.config.LocalizedEnum;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.grabber.FramePool;
+import org.dpsoftware.grabber.LedFrame;
+import org.dpsoftware.managers.MetricsManager;
+import org.dpsoftware.managers.PipelineManager;
 import org.dpsoftware.network.NetworkSingleton;
-import org.dpsoftware.utilities.CommonUtility;
 
 import java.awt.*;
 
@@ -36,58 +39,38 @@ import java.awt.*;
 @Slf4j
 public class AudioLoopback {
 
+    // Packed VU meter colors
+    private static final int RED = 0xFF0000;
+    private static final int YELLOW = 0xFFFF00;
+    private static final int GREEN = 0x00FF00;
+    private static final int BLUE = 0x0000FF;
+
     private float maxPeak, maxRms = 0;
     private float maxPeakLeft, maxRmsLeft = 0;
     private float maxPeakRight, maxRmsRight = 0;
     private float rainbowHue = 0;
 
     /**
-     * To right rotate arr[] by offset
+     * To right rotate the frame by offset
      *
-     * @param arr    array to rotate
+     * @param frame  frame to rotate
      * @param offset rotate by offset
      */
-    void rightRotate(Color[] arr, int offset) {
-        int length = arr.length;
-        // If arr is rotated length times then you get the same array
-        while (offset > length) {
-            offset = offset - length;
-        }
-        // Creating a temporary array of size offset
-        Color[] temp = new Color[length - offset];
-        // Now copying first length-offset element in array temp
-        if (length - offset >= 0) {
-            System.arraycopy(arr, 0, temp, 0, length - offset);
-        }
-        // Moving the rest element to index zero to offset
-        if (length - (length - offset) >= 0) {
-            System.arraycopy(arr, length - offset, arr, -offset + offset, length - (length - offset));
-        }
-        // Copying the temp array element in original array
-        if (length - offset >= 0) {
-            System.arraycopy(temp, 0, arr, offset, length - offset);
-        }
+    void rightRotate(LedFrame frame, int offset) {
+        int length = frame.getLedNum();
+        if (length == 0) return;
+        frame.rotateLeft(length - (offset % length));
     }
 
     /**
-     * To left rotate arr[] by offset
+     * To left rotate the frame by offset
      *
-     * @param arr    array to rotate
+     * @param frame  frame to rotate
      * @param offset rotate by offset
      */
     @SuppressWarnings("unused")
-    void leftRotate(Color[] arr, int offset) {
-        int length = arr.length;
-        // Creating temp array of size offset
-        Color[] temp = new Color[offset];
-        // Copying first offset element in array temp
-        System.arraycopy(arr, 0, temp, 0, offset);
-        // Moving the rest element to index zero to length-offset
-        if (length - offset >= 0) {
-            System.arraycopy(arr, offset, arr, 0, length - offset);
-        }
-        // Copying the temp array element in original array
-        System.arraycopy(temp, 0, arr, length - offset, offset);
+    void leftRotate(LedFrame frame, int offset) {
+        frame.rotateLeft(offset);
     }
 
     /**
@@ -98,9 +81,10 @@ public class AudioLoopback {
      * @param tolerance lower the gain, we don't want to set volume to 100% to use all the strip
      */
     public void driveLedStrip(float lastPeak, float rms, float tolerance) {
-        if (Enums.Effect.MUSIC_MODE_VU_METER.equals(LocalizedEnum.fromBaseStr(Enums.Effect.class, MainSingleton.getInstance().config.getEffect()))) {
+        Enums.Effect effect = PipelineSettings.get().effect();
+        if (Enums.Effect.MUSIC_MODE_VU_METER.equals(effect)) {
             sendAudioInfoToStrip(lastPeak, rms, tolerance);
-        } else if (Enums.Effect.MUSIC_MODE_RAINBOW.equals(LocalizedEnum.fromBaseStr(Enums.Effect.class, MainSingleton.getInstance().config.getEffect()))) {
+        } else if (Enums.Effect.MUSIC_MODE_RAINBOW.equals(effect)) {
             sendAudioInfoToStrip(lastPeak, rms, tolerance);
             setAudioBrightness(lastPeak);
         } else {
@@ -128,22 +112,25 @@ public class AudioLoopback {
      * @param rms       RMS value on the sine wave
      * @param tolerance lower the gain, we don't want to set volume to 100% to use all the strip
      */
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     public void sendAudioInfoToStrip(float lastPeak, float rms, float tolerance) {
         maxRms = Math.max(rms, maxRms);
         maxPeak = Math.max(lastPeak, maxPeak);
         // log.info("Peak: {} RMS: {} - MaxPeak: {} MaxRMS: {}", lastPeak, rms, maxPeak, maxRms);
-        Color[] leds = new Color[NetworkSingleton.getInstance().totalLedNum];
+        PipelineSettings settings = PipelineSettings.get();
+        LedFrame leds = FramePool.acquire(NetworkSingleton.getInstance().totalLedNum);
+        leds.setCaptureNanos(System.nanoTime());
 
-        if (Enums.Effect.MUSIC_MODE_VU_METER.equals(LocalizedEnum.fromBaseStr(Enums.Effect.class, MainSingleton.getInstance().config.getEffect()))) {
+        if (Enums.Effect.MUSIC_MODE_VU_METER.equals(settings.effect())) {
             calculateVuMeterEffect(leds, lastPeak, rms, tolerance);
-        } else if (Enums.Effect.MUSIC_MODE_RAINBOW.equals(LocalizedEnum.fromBaseStr(Enums.Effect.class, MainSingleton.getInstance().config.getEffect()))) {
+        } else if (Enums.Effect.MUSIC_MODE_RAINBOW.equals(settings.effect())) {
             calculateRainbowEffect(leds);
         }
 
-        MainSingleton.getInstance().FPS_PRODUCER_COUNTER++;
-        if (CommonUtility.isSingleDeviceMainInstance() || !CommonUtility.isSingleDeviceMultiScreen()) {
-            MainSingleton.getInstance().sharedQueue.offer(leds);
+        MetricsManager.FRAMES_PRODUCED.increment();
+        if (settings.singleDeviceMainInstance() || !settings.singleDeviceMultiScreen()) {
+            PipelineManager.offerFrame(leds);
+        } else {
+            FramePool.release(leds);
         }
     }
 
@@ -156,18 +143,21 @@ public class AudioLoopback {
      * @param rmsRight      RMS value on the sine wave
      * @param tolerance     lower the gain, we don't want to set volume to 100% to use all the strip
      */
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     public void sendAudioInfoToStrip(float lastPeakLeft, float rmsLeft, float lastPeakRight, float rmsRight, float tolerance) {
         maxRmsLeft = Math.max(rmsLeft, maxRmsLeft);
         maxPeakLeft = Math.max(lastPeakLeft, maxPeakLeft);
         maxRmsRight = Math.max(rmsLeft, maxRmsRight);
         maxPeakRight = Math.max(lastPeakLeft, maxPeakRight);
         // log.info("Peak: {} RMS: {} - MaxPeak: {} MaxRMS: {}", lastPeak, rms, maxPeak, maxRms);
-        Color[] leds = new Color[NetworkSingleton.getInstance().totalLedNum];
-        calculateVuMeterEffectDual(leds, lastPeakLeft, rmsLeft, lastPeakRight, rmsRight, tolerance);
-        MainSingleton.getInstance().FPS_PRODUCER_COUNTER++;
-        if (CommonUtility.isSingleDeviceMainInstance() || !CommonUtility.isSingleDeviceMultiScreen()) {
-            MainSingleton.getInstance().sharedQueue.offer(leds);
+        PipelineSettings settings = PipelineSettings.get();
+        LedFrame leds = FramePool.acquire(NetworkSingleton.getInstance().totalLedNum);
+        leds.setCaptureNanos(System.nanoTime());
+        calculateVuMeterEffectDual(settings, leds, lastPeakLeft, rmsLeft, lastPeakRight, rmsRight, tolerance);
+        MetricsManager.FRAMES_PRODUCED.increment();
+        if (settings.singleDeviceMainInstance() || !settings.singleDeviceMultiScreen()) {
+            PipelineManager.offerFrame(leds);
+        } else {
+            FramePool.release(leds);
         }
     }
 
@@ -184,15 +174,13 @@ public class AudioLoopback {
     /**
      * Create a VU Meter, (Red and Yellow for the Peaks, Green for RMS)
      *
-     * @param leds      LEDs array to send to the strip
+     * @param leds      LEDs frame to send to the strip
      * @param lastPeak  last peak on the audio line
      * @param rms       RMS value on the sine wave
      * @param tolerance lower the gain, we don't want to set volume to 100% to use all the strip
      */
-    private void calculateVuMeterEffect(Color[] leds, float lastPeak, float rms, float tolerance) {
-        for (int i = 0; i < NetworkSingleton.getInstance().totalLedNum; i++) {
-            leds[i] = new Color(0, 0, 255);
-        }
+    private void calculateVuMeterEffect(LedFrame leds, float lastPeak, float rms, float tolerance) {
+        leds.fill(BLUE);
         int peakLeds = (int) ((NetworkSingleton.getInstance().totalLedNum * lastPeak) * tolerance);
         int peakYellowLeds = ((peakLeds * 30) / 100);
         int rmsLeds = (int) ((NetworkSingleton.getInstance().totalLedNum * rms) * tolerance);
@@ -208,18 +196,17 @@ public class AudioLoopback {
     /**
      * Create a VU Meter, (Red and Yellow for the Peaks, Green for RMS)
      *
-     * @param leds          LEDs array to send to the strip
+     * @param settings      pipeline settings in use
+     * @param leds          LEDs frame to send to the strip
      * @param lastPeakLeft  last peak on the audio line
      * @param lastPeakRight last peak on the audio line
      * @param rmsLeft       RMS value on the sine wave
      * @param rmsRight      RMS value on the sine wave
      * @param tolerance     lower the gain, we don't want to set volume to 100% to use all the strip
      */
-    private void calculateVuMeterEffectDual(Color[] leds, float lastPeakLeft, float rmsLeft, float lastPeakRight, float rmsRight, float tolerance) {
+    private void calculateVuMeterEffectDual(PipelineSettings settings, LedFrame leds, float lastPeakLeft, float rmsLeft, float lastPeakRight, float rmsRight, float tolerance) {
         int ledNumDual = ((NetworkSingleton.getInstance().totalLedNum % 2) == 0) ? (NetworkSingleton.getInstance().totalLedNum / 2) : ((NetworkSingleton.getInstance().totalLedNum / 2) + 1);
-        for (int i = 0; i < NetworkSingleton.getInstance().totalLedNum; i++) {
-            leds[i] = new Color(0, 0, 255);
-        }
+        leds.fill(BLUE);
         int peakLeds = (int) ((ledNumDual * lastPeakRight) * tolerance);
         int peakYellowLeds = ((peakLeds * 30) / 100);
         int rmsLeds = (int) ((ledNumDual * rmsRight) * tolerance);
@@ -242,49 +229,47 @@ public class AudioLoopback {
         }
         for (int i = 1; i <= peakLeds; i++) {
             if (i <= (peakLeds - peakYellowLeds)) {
-                leds[NetworkSingleton.getInstance().totalLedNum - i] = new Color(255, 255, 0);
+                leds.set(NetworkSingleton.getInstance().totalLedNum - i, YELLOW);
             } else {
-                leds[NetworkSingleton.getInstance().totalLedNum - i] = new Color(255, 0, 0);
+                leds.set(NetworkSingleton.getInstance().totalLedNum - i, RED);
             }
         }
         for (int i = 1; i <= rmsLeds; i++) {
-            leds[NetworkSingleton.getInstance().totalLedNum - i] = new Color(0, 255, 0);
+            leds.set(NetworkSingleton.getInstance().totalLedNum - i, GREEN);
         }
-        if (!CommonUtility.isSplitBottomRow(MainSingleton.getInstance().config.getSplitBottomMargin())) {
-            rightRotate(leds, MainSingleton.getInstance().config.getBottomRowLed() / 2);
+        if (!settings.splitBottomRow()) {
+            rightRotate(leds, settings.bottomRowLed() / 2);
         }
     }
 
     /**
      * Set LEDs color based on peaks and rms
      *
-     * @param leds           leds arrat
+     * @param leds           leds frame
      * @param peakLeds       audio peaks
      * @param peakYellowLeds yellow audio peaks
      * @param rmsLeds        rms audio
      */
-    private void setLedsColor(Color[] leds, int peakLeds, int peakYellowLeds, int rmsLeds) {
+    private void setLedsColor(LedFrame leds, int peakLeds, int peakYellowLeds, int rmsLeds) {
         for (int i = 0; i < peakLeds; i++) {
             if (i < (peakLeds - peakYellowLeds)) {
-                leds[i] = new Color(255, 255, 0);
+                leds.set(i, YELLOW);
             } else {
-                leds[i] = new Color(255, 0, 0);
+                leds.set(i, RED);
             }
         }
         for (int i = 0; i < rmsLeds; i++) {
-            leds[i] = new Color(0, 255, 0);
+            leds.set(i, GREEN);
         }
     }
 
     /**
      * Create an audio rainbow effect
      *
-     * @param leds LEDs array to send to the strip
+     * @param leds LEDs frame to send to the strip
      */
-    private void calculateRainbowEffect(Color[] leds) {
-        for (int i = 0; i < NetworkSingleton.getInstance().totalLedNum; i++) {
-            leds[i] = Color.getHSBColor(rainbowHue, 1.0f, 1.0f);
-        }
+    private void calculateRainbowEffect(LedFrame leds) {
+        leds.fill(Color.HSBtoRGB(rainbowHue, 1.0f, 1.0f) & 0xFFFFFF);
         if (rainbowHue >= 1) rainbowHue = 0;
         rainbowHue += 0.002f;
     }
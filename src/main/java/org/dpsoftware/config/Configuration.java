@@ -157,8 +157,21 @@ public class Configuration implements Cloneable {
     private String screenCastRestoreToken;
     // SIMD AVX Instructions
     private int simdAvx = Enums.SimdAvxOption.AUTO.getSimdOptionNumeric();
+    // Compute LED zones on multiple cores, useful on 4K/8K captures with a low resampling factor
+    private boolean parallelZones = false;
+    // Run zones, correction and output on separate threads, useful on high framerate captures with many LEDs
+    private boolean pipelinedExecution = false;
+    // Ultra low latency, correct, encode and send on the capture thread, frame insertion is disabled
+    private boolean directPipeline = false;
     private Enums.TRAY_PREFERENCE trayPreference = Enums.TRAY_PREFERENCE.AUTO;
     private int udpTrafficClass = Constants.DEFAULT_UDP_TRAFFIC_CLASS;
+    // Send only the LEDs that changed between periodic keyframes on the binary UDP stream, saves airtime on busy WiFi networks
+    private boolean udpDeltaEncoding = false;
+    // A LED is sent in a delta frame when one of its channels changed more than this value
+    private int udpDeltaThreshold = Constants.DEFAULT_UDP_DELTA_THRESHOLD;
+    // Export metrics in the Prometheus text format on http://host:metricsPort/metrics, every interface is bound
+    private boolean metricsEndpoint = false;
+    private int metricsPort = Constants.DEFAULT_METRICS_PORT;
     private int gpuThreshold;
     private int cpuThreshold;
     private List<String> profileProcesses = new ArrayList<>();
@@ -218,6 +231,276 @@ public class Configuration implements Cloneable {
         this.toggleLed = toggleLed;
     }
 
+    /**
+     * Settings compiled in the pipeline snapshot are changed in memory from many places (tray, MQTT, web API, GUI),
+     * publish a new snapshot when the config in use is changed.
+     */
+    private void refreshPipelineSettings() {
+        if (MainSingleton.getInstance() != null && MainSingleton.getInstance().config == this) {
+            PipelineSettings.refresh();
+        }
+    }
+
+    /**
+     * Set effect in use, the pipeline settings are refreshed
+     *
+     * @param effect effect in use
+     */
+    public void setEffect(String effect) {
+        this.effect = effect;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set capture method in use, the pipeline settings are refreshed
+     *
+     * @param captureMethod capture method in use
+     */
+    public void setCaptureMethod(String captureMethod) {
+        this.captureMethod = captureMethod;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set true if multi monitor with a single device, the pipeline settings are refreshed
+     *
+     * @param multiScreenSingleDevice true if multi monitor with a single device
+     */
+    public void setMultiScreenSingleDevice(boolean multiScreenSingleDevice) {
+        this.multiScreenSingleDevice = multiScreenSingleDevice;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set number of monitors, the pipeline settings are refreshed
+     *
+     * @param multiMonitor number of monitors
+     */
+    public void setMultiMonitor(int multiMonitor) {
+        this.multiMonitor = multiMonitor;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set power saving timeout, the pipeline settings are refreshed
+     *
+     * @param powerSaving power saving timeout
+     */
+    public void setPowerSaving(String powerSaving) {
+        this.powerSaving = powerSaving;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set LEDs orientation, the pipeline settings are refreshed
+     *
+     * @param orientation LEDs orientation
+     */
+    public void setOrientation(String orientation) {
+        this.orientation = orientation;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set LED start offset, the pipeline settings are refreshed
+     *
+     * @param ledStartOffset LED start offset
+     */
+    public void setLedStartOffset(int ledStartOffset) {
+        this.ledStartOffset = ledStartOffset;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set true if the device runs the full firmware, the pipeline settings are refreshed
+     *
+     * @param fullFirmware true if the device runs the full firmware
+     */
+    public void setFullFirmware(boolean fullFirmware) {
+        this.fullFirmware = fullFirmware;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set true if colors are streamed wirelessly, the pipeline settings are refreshed
+     *
+     * @param wirelessStream true if colors are streamed wirelessly
+     */
+    public void setWirelessStream(boolean wirelessStream) {
+        this.wirelessStream = wirelessStream;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set MQTT or UDP stream, the pipeline settings are refreshed
+     *
+     * @param streamType MQTT or UDP stream
+     */
+    public void setStreamType(String streamType) {
+        this.streamType = streamType;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set true if black bars auto detection is enabled, the pipeline settings are refreshed
+     *
+     * @param autoDetectBlackBars true if black bars auto detection is enabled
+     */
+    public void setAutoDetectBlackBars(boolean autoDetectBlackBars) {
+        this.autoDetectBlackBars = autoDetectBlackBars;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set algo used to compute the LED colors, the pipeline settings are refreshed
+     *
+     * @param algo algo used to compute the LED colors
+     */
+    public void setAlgo(String algo) {
+        this.algo = algo;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set divisor applied to the LED coordinates, the pipeline settings are refreshed
+     *
+     * @param resamplingFactor divisor applied to the LED coordinates
+     */
+    public void setResamplingFactor(int resamplingFactor) {
+        this.resamplingFactor = resamplingFactor;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set true if LED zones can be computed on multiple cores, the pipeline settings are refreshed
+     *
+     * @param parallelZones true if LED zones can be computed on multiple cores
+     */
+    public void setParallelZones(boolean parallelZones) {
+        this.parallelZones = parallelZones;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set SIMD option in use, the pipeline settings are refreshed
+     *
+     * @param simdAvx SIMD option in use
+     */
+    public void setSimdAvx(int simdAvx) {
+        this.simdAvx = simdAvx;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set true if frames are corrected and sent on the capture thread, the pipeline settings are refreshed
+     *
+     * @param directPipeline true if frames are corrected and sent on the capture thread
+     */
+    public void setDirectPipeline(boolean directPipeline) {
+        this.directPipeline = directPipeline;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set smoothing level, the pipeline settings are refreshed
+     *
+     * @param smoothingType smoothing level
+     */
+    public void setSmoothingType(String smoothingType) {
+        this.smoothingType = smoothingType;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set exponential moving average alpha, the pipeline settings are refreshed
+     *
+     * @param emaAlpha exponential moving average alpha
+     */
+    public void setEmaAlpha(float emaAlpha) {
+        this.emaAlpha = emaAlpha;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set smoothing target framerate, the pipeline settings are refreshed
+     *
+     * @param smoothingTargetFramerate smoothing target framerate
+     */
+    public void setSmoothingTargetFramerate(int smoothingTargetFramerate) {
+        this.smoothingTargetFramerate = smoothingTargetFramerate;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set frame insertion target, the pipeline settings are refreshed
+     *
+     * @param frameInsertionTarget frame insertion target
+     */
+    public void setFrameInsertionTarget(int frameInsertionTarget) {
+        this.frameInsertionTarget = frameInsertionTarget;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set white temperature, the pipeline settings are refreshed
+     *
+     * @param whiteTemperature white temperature
+     */
+    public void setWhiteTemperature(int whiteTemperature) {
+        this.whiteTemperature = whiteTemperature;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set brightness limiter, the pipeline settings are refreshed
+     *
+     * @param brightnessLimiter brightness limiter
+     */
+    public void setBrightnessLimiter(Float brightnessLimiter) {
+        this.brightnessLimiter = brightnessLimiter;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set split bottom margin, the pipeline settings are refreshed
+     *
+     * @param splitBottomMargin split bottom margin
+     */
+    public void setSplitBottomMargin(String splitBottomMargin) {
+        this.splitBottomMargin = splitBottomMargin;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set number of LEDs in the bottom row, the pipeline settings are refreshed
+     *
+     * @param bottomRowLed number of LEDs in the bottom row
+     */
+    public void setBottomRowLed(int bottomRowLed) {
+        this.bottomRowLed = bottomRowLed;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set gamma in use, the pipeline settings are refreshed
+     *
+     * @param gamma gamma in use
+     */
+    public void setGamma(double gamma) {
+        this.gamma = gamma;
+        refreshPipelineSettings();
+    }
+
+    /**
+     * Set hue, saturation and lightness corrections, the pipeline settings are refreshed
+     *
+     * @param hueMap hue, saturation and lightness corrections
+     */
+    public void setHueMap(Map<Enums.ColorEnum, HSLColor> hueMap) {
+        this.hueMap = hueMap;
+        refreshPipelineSettings();
+    }
+
     /**
      * WinAPI and DDUPL enables GPU Hardware Acceleration on Windows, CPU uses CPU brute force only.
      * DDUPL (Desktop Duplication API) is recommended in Win8/Win10/Win11 and it uses DX11
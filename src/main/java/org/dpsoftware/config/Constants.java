@@ -93,6 +93,7 @@ public class Constants {
     public static final String MINIMUM_FIRM_FOR_AUTO_UPGRADE = "4.0.3";
     public static final String MINIMUM_FIRM_FOR_AUTO_UPGRADE_ESP8266_1M = "5.12.10";
     public static final String FORCE_FIRMWARE_AUTO_UPGRADE = "4.0.4";
+    public static final String MINIMUM_FIRM_FOR_BINARY_UDP = "5.26.0";
     public static final String MIN_FIRMWARE_NOT_MATCH = "min.firmware.not.match";
     public static final String GITHUB_POM_URL = "https://raw.githubusercontent.com/sblantipodi/firefly_luciferin/master/pom.xml";
     public static final String GITHUB_GLOW_WORM_URL_FULL = "https://raw.githubusercontent.com/sblantipodi/glow_worm_luciferin/master/docs/static/firmware_build/manifest_full.json";
@@ -485,6 +486,7 @@ public class Constants {
     public static final String TOOLTIP_CHECK_UPDATES = "tooltip.check.updates";
     public static final String TOOLTIP_PLAYBUTTON_NULL = "tooltip.playbutton.null";
     public static final String TOOLTIP_SYNC_CHECK = "tooltip.sync.check";
+    public static final String TOOLTIP_FLIGHT_RECORDING = "tooltip.flight.recording";
     public static final String TOOLTIP_BRIGHTNESS = "tooltip.brightness";
     public static final String TOOLTIP_SPLIT_BOTTOM_ROW = "tooltip.split.bottom.row";
     public static final String TOOLTIP_GRABBER_AREA_TOP_BOTTOM = "tooltip.grabber.area.top.bottom";
@@ -572,6 +574,36 @@ public class Constants {
     public static final String PIPEWIRE_KEEPALIVE = "PIPEWIRE_KEEPALIVE";
     public static final int RESAMPLING_FACTOR = 4;
     public static final int SIMD_SCALAR_BENCH_ITERATIONS = 2;
+    public static final int FRAME_POOL_SIZE = 16;
+    public static final int COLOR_LUT_SIZE = 33;
+    public static final int PARALLEL_ZONES_PIXELS_PER_THREAD = 250_000;
+    public static final int PARALLEL_ZONES_CHUNKS_PER_THREAD = 4;
+    public static final int PARALLEL_ZONES_BENCH_FRAMES = 120;
+    public static final int ZONE_KERNEL_TUNER_WARMUP_FRAMES = 10;
+    public static final int ZONE_KERNEL_TUNER_FRAMES = 30;
+    public static final String LATENCY_STAGE_ZONES = "zones";
+    public static final String LATENCY_STAGE_POST_PROCESSING = "postProcessing";
+    public static final String LATENCY_STAGE_QUEUE_WAIT = "queueWait";
+    public static final String LATENCY_STAGE_ENCODE = "encode";
+    public static final String LATENCY_STAGE_SEND = "send";
+    public static final String LATENCY_STAGE_CAPTURE_TO_WIRE = "captureToWire";
+    public static final String PIPELINE_STAGE_OUTPUT = "output";
+    public static final int PIPELINE_RING_CAPACITY = 4;
+    public static final long PACER_MIN_SPIN_NANOS = 50_000;
+    public static final long PACER_MAX_SPIN_NANOS = 2_000_000;
+    public static final int WAYLAND_KEEPALIVE_MS = 200;
+    public static final String JFR_DROP_CAPTURE_BUSY = "Capture busy";
+    public static final String JFR_DROP_STALE = "Replaced by a newer frame";
+    public static final String JFR_DROP_LED_MISMATCH = "LED number mismatch";
+    public static final String JFR_DROP_INSTANCE_UNREACHABLE = "Main instance unreachable";
+    public static final String JFR_DROP_UDP_ERROR = "UDP send failed";
+    public static final String JFR_DROP_RING_FULL = "Pipeline stage busy";
+    public static final String JFR_DROP_SINK_BUSY = "Sink busy";
+    public static final String JFR_DROP_OUT_OF_ORDER = "Older than the last frame sent";
+    public static final String SEQUENCE_STAGE_MAILBOX = "mailbox";
+    public static final String JFR_RECORDING_NAME = "Firefly Luciferin";
+    public static final String JFR_RECORDING_FILENAME = "FireflyLuciferin_{0}.jfr";
+    public static final String JFR_RECORDING_SETTINGS = "default";
     public static final String EMIT_SIGNALS = "emit-signals";
     public static final String WIDTH = "width";
     public static final String HEIGHT = "height";
@@ -611,7 +643,6 @@ public class Constants {
     public static final String GRABBER_AREA_SIDE_DEFAULT = "8%";
     public static final String GAP_TYPE_DEFAULT_TOP_BOTTOM = "8%";
     public static final String GAP_TYPE_DEFAULT_SIDE = "0%";
-    public static final int SMOOTHING_SLOW_FRAME_TOLERANCE = 3;
     public static final int REFERENCE_RESOLUTION_FOR_SCALING_X = 3840;
     public static final int REFERENCE_RESOLUTION_FOR_SCALING_Y = 2160;
     // Canvas LED Coordinate
@@ -661,8 +692,25 @@ public class Constants {
     public static final String UDP_DEVICE_NAME_STATIC = "DNStatic";
     public static final String UDP_PONG = "PONG";
     public static final int DEFAULT_UDP_TRAFFIC_CLASS = 184;
+    public static final int DEFAULT_METRICS_PORT = 9464;
+    public static final String METRICS_PATH = "/metrics";
+    public static final String METRICS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
     public static final double UDP_CHUNK_SIZE = 140;
     public static final int UDP_MAX_BUFFER_SIZE = 4096;
+    // Binary UDP stream: "DPB" magic, version, sequence, brightness, chunk total/num, LED count, first LED, chunk LED count, then RGB triplets
+    public static final byte[] UDP_BINARY_MAGIC = {'D', 'P', 'B'};
+    public static final int UDP_BINARY_VERSION = 1;
+    public static final int UDP_BINARY_HEADER_SIZE = 15;
+    // Ethernet MTU minus IPv4 and UDP headers, keeps every chunk in a single unfragmented datagram
+    public static final int UDP_BINARY_MAX_PACKET_SIZE = 1472;
+    public static final int UDP_BINARY_CHUNK_SIZE = (UDP_BINARY_MAX_PACKET_SIZE - UDP_BINARY_HEADER_SIZE) / 3;
+    // Delta frames: same header with "DPD" magic, base sequence and run count, then runs of first LED, length and RGB triplets
+    public static final byte[] UDP_DELTA_MAGIC = {'D', 'P', 'D'};
+    public static final int UDP_DELTA_RUN_HEADER_SIZE = 4;
+    public static final int UDP_DELTA_RUN_MERGE_GAP = 1;
+    public static final int UDP_DELTA_KEYFRAME_INTERVAL = 60;
+    public static final long UDP_DELTA_MAX_GAP_NANOS = 250_000_000L;
+    public static final int DEFAULT_UDP_DELTA_THRESHOLD = 2;
     public static final int UDP_MICROCONTROLLER_REST_TIME = 0;
     // Audio
     public static final String WASAPI = "WASAPI";
@@ -692,6 +740,9 @@ public class Constants {
     public static final String INFO_WIFI = "WiFi: ";
     public static final String INFO_LDR = " / LDR: ";
     public static final String INFO_CPU_LAT = "CPU latency: ";
+    public static final String INFO_ZONE_KERNEL = " - Zone kernel: ";
+    public static final String INFO_DROPPED = " / dropped: ";
+    public static final String INFO_LATENCY = "Latency p50/p95/p99/max: ";
     public static final String FPS_VAL = " FPS";
     // LDR
     public static final String LDR_ALERT_ENABLED = "ldr.alert.enabled";
@@ -706,6 +757,8 @@ public class Constants {
     // SATELLITES
     public static final String SAT_ALERT_IP_TITLE = "satellite.ip.error.title";
     public static final String SAT_ALERT_IP_HEADER = "satellite.ip.error.header";
+    public static final String JFR_ALERT_TITLE = "flight.recording.title";
+    public static final String JFR_ALERT_HEADER = "flight.recording.header";
     public static final String SAT_ALERT_IP_CONTENT = "satellite.ip.error.content";
     //Style sheets
     public static final String CSS_LINUX = "css/linux.css";
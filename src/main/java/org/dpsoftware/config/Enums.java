@@ -782,7 +782,8 @@ public class Enums {
         AVX512("enum.simd.avx512", 1),
         AVX256("enum.simd.avx256", 2),
         AVX("enum.simd.avx", 3),
-        DISABLED("enum.simd.disabled", 4);
+        DISABLED("enum.simd.disabled", 4),
+        INTEGRAL_IMAGE("enum.simd.integral", 5);
         private final String simdOption;
         @Getter
         private final int simdOptionNumeric;
@@ -0,0 +1,225 @@
+/*
+  PipelineSettings.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.MainSingleton;
+import org.dpsoftware.managers.dto.HSLColor;
+import org.dpsoftware.utilities.CommonUtility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the settings used by the capture and consume pipeline.
+ * Configuration stores most of the settings as localized Strings, resolving them on every frame means
+ * String comparisons and resource bundle lookups on the hot path. The snapshot is compiled once from the Configuration,
+ * all the stages read enums, primitives and precomputed values from it.
+ * <p>
+ * The snapshot is published using a volatile reference, it is rebuilt when the config is loaded or written,
+ * and by the Configuration setters when the config in use is changed in memory (tray, MQTT, web API, GUI).
+ * A new snapshot is published only when something is changed.
+ *
+ * @param effect                   effect in use
+ * @param captureMethod            capture method in use
+ * @param singleDeviceMultiScreen  true if multi monitor with a single device
+ * @param singleDeviceMainInstance true if multi monitor with a single device and this is the main instance
+ * @param powerSavingEnabled       true if power saving is enabled
+ * @param clockwise                true if LEDs orientation is clockwise
+ * @param ledStartOffset           LED start offset
+ * @param wirelessStream           true if colors are streamed via MQTT/UDP using the full firmware
+ * @param udpStream                true if stream type is UDP
+ * @param serialEffect             effect code sent via serial
+ * @param autoDetectBlackBars      true if black bars auto detection is enabled
+ * @param avgAllColor              true if the algo averages all the LEDs together
+ * @param resamplingFactor         divisor applied to the LED coordinates
+ * @param parallelZones            true if LED zones can be computed on multiple cores
+ * @param zoneKernelAutoTune       true if the fastest zone kernel is selected at runtime
+ * @param directPipeline           true if frames are corrected and sent on the capture thread, bypassing the consumer
+ * @param smoothingEnabled         true if smoothing is enabled
+ * @param emaAlpha                 exponential moving average alpha
+ * @param frameInsertion           true if frame insertion is enabled
+ * @param frameInsertionTargetFps  frame insertion target framerate
+ * @param frameInsertionGpuFps     framerate requested to the GPU when frame insertion is enabled
+ * @param whiteBalanceOffset       white balance offset, 0 if white balance correction is not needed
+ * @param brightnessLimiter        brightness limiter, 1.0 if disabled
+ * @param splitBottomRow           true if the bottom row is split
+ * @param bottomRowLed             number of LEDs in the bottom row
+ * @param colorCorrectionKey       settings that affect the color correction LUT
+ */
+@Slf4j
+public record PipelineSettings(Enums.Effect effect,
+                               Configuration.CaptureMethod captureMethod,
+                               boolean singleDeviceMultiScreen,
+                               boolean singleDeviceMainInstance,
+                               boolean powerSavingEnabled,
+                               boolean clockwise,
+                               int ledStartOffset,
+                               boolean wirelessStream,
+                               boolean udpStream,
+                               int serialEffect,
+                               boolean autoDetectBlackBars,
+                               boolean avgAllColor,
+                               int resamplingFactor,
+                               boolean parallelZones,
+                               boolean zoneKernelAutoTune,
+                               boolean directPipeline,
+                               boolean smoothingEnabled,
+                               float emaAlpha,
+                               boolean frameInsertion,
+                               int frameInsertionTargetFps,
+                               int frameInsertionGpuFps,
+                               int whiteBalanceOffset,
+                               float brightnessLimiter,
+                               boolean splitBottomRow,
+                               int bottomRowLed,
+                               ColorCorrectionKey colorCorrectionKey) {
+
+    private static volatile PipelineSettings current;
+
+    /**
+     * Get the snapshot in use
+     *
+     * @return current settings snapshot
+     */
+    public static PipelineSettings get() {
+        PipelineSettings settings = current;
+        if (settings == null) {
+            settings = refresh();
+        }
+        return settings;
+    }
+
+    /**
+     * Compile a new snapshot from the configuration in use and publish it if something is changed
+     *
+     * @return current settings snapshot
+     */
+    public static synchronized PipelineSettings refresh() {
+        Configuration config = MainSingleton.getInstance().config;
+        if (config != null) {
+            try {
+                PipelineSettings settings = from(config);
+                if (!settings.equals(current)) {
+                    current = settings;
+                    log.trace("Pipeline settings updated");
+                }
+            } catch (Exception e) {
+                log.error(e.getMessage());
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Compile a snapshot from a configuration
+     *
+     * @param config configuration to compile
+     * @return settings snapshot
+     */
+    public static PipelineSettings from(Configuration config) {
+        int serialEffect = 0;
+        Enums.Effect effect = LocalizedEnum.fromBaseStr(Enums.Effect.class, config.getEffect());
+        if (config.isFullFirmware()) {
+            serialEffect = 100;
+        } else if (effect != null) {
+            serialEffect = effect.ordinal() + 1;
+        }
+        // Frame insertion, framerate requested to the GPU depends on the target framerate
+        int targetFramerate = config.getSmoothingTargetFramerate();
+        int gpuFramerateFps = config.getFrameInsertionTarget();
+        if (targetFramerate == Enums.SmoothingTarget.TARGET_120_FPS.getSmoothingTargetValue()) {
+            gpuFramerateFps *= 2;
+        } else if (targetFramerate == Enums.SmoothingTarget.TARGET_30_FPS.getSmoothingTargetValue()) {
+            gpuFramerateFps /= 2;
+        }
+        int whiteBalanceOffset = 0;
+        if (config.getWhiteTemperature() != 65) {
+            whiteBalanceOffset = (65 - config.getWhiteTemperature()) * 20;
+        }
+        boolean singleDeviceMultiScreen = config.isMultiScreenSingleDevice() && config.getMultiMonitor() > 1;
+        boolean smoothingEnabled = !Enums.Smoothing.DISABLED.getBaseI18n().equals(config.getSmoothingType());
+        // Direct pipeline can't be used when colors are aggregated by the main instance, it disables frame insertion
+        boolean directPipeline = config.isDirectPipeline() && !singleDeviceMultiScreen;
+        return new PipelineSettings(
+                effect,
+                Arrays.stream(Configuration.CaptureMethod.values())
+                        .filter(captureMethod -> captureMethod.name().equals(config.getCaptureMethod()))
+                        .findFirst()
+                        .orElse(null),
+                singleDeviceMultiScreen,
+                singleDeviceMultiScreen && MainSingleton.getInstance().whoAmI == 1,
+                !Enums.PowerSaving.DISABLED.equals(LocalizedEnum.fromBaseStr(Enums.PowerSaving.class, config.getPowerSaving())),
+                Enums.Orientation.CLOCKWISE.equals(LocalizedEnum.fromBaseStr(Enums.Orientation.class, config.getOrientation())),
+                config.getLedStartOffset(),
+                config.isFullFirmware() && config.isWirelessStream(),
+                Enums.StreamType.UDP.getStreamType().equals(config.getStreamType()),
+                serialEffect,
+                config.isAutoDetectBlackBars(),
+                Enums.Algo.AVG_ALL_COLOR.getBaseI18n().equals(config.getAlgo()),
+                config.getResamplingFactor(),
+                config.isParallelZones(),
+                Enums.SimdAvxOption.AUTO.equals(Enums.SimdAvxOption.findByValue(config.getSimdAvx())),
+                directPipeline,
+                smoothingEnabled,
+                config.getEmaAlpha(),
+                smoothingEnabled && config.getFrameInsertionTarget() > 0 && !directPipeline,
+                targetFramerate,
+                gpuFramerateFps,
+                whiteBalanceOffset,
+                config.getBrightnessLimiter(),
+                config.getSplitBottomMargin() != null && CommonUtility.isSplitBottomRow(config.getSplitBottomMargin()),
+                config.getBottomRowLed(),
+                ColorCorrectionKey.of(config)
+        );
+    }
+
+    /**
+     * Settings baked in the color correction LUT, compared by value so a stale table is never used
+     *
+     * @param gamma  gamma in use
+     * @param hueMap hue, saturation and lightness corrections of every color, NaN if not set
+     */
+    public record ColorCorrectionKey(double gamma, List<Float> hueMap) {
+
+        /**
+         * Read the settings from a configuration
+         *
+         * @param config configuration in use
+         * @return color correction settings
+         */
+        public static ColorCorrectionKey of(Configuration config) {
+            List<Float> hueMap = new ArrayList<>();
+            if (config.getHueMap() != null) {
+                for (Enums.ColorEnum colorEnum : Enums.ColorEnum.values()) {
+                    HSLColor hslColor = config.getHueMap().get(colorEnum);
+                    hueMap.add(hslColor != null && hslColor.getHue() != null ? hslColor.getHue() : Float.NaN);
+                    hueMap.add(hslColor != null && hslColor.getSaturation() != null ? hslColor.getSaturation() : Float.NaN);
+                    hueMap.add(hslColor != null && hslColor.getLightness() != null ? hslColor.getLightness() : Float.NaN);
+                }
+            }
+            return new ColorCorrectionKey(config.getGamma(), List.copyOf(hueMap));
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+  ColorCorrectionLut.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.config.Constants;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.utilities.ColorUtilities;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Precomputed 3D lookup table that bakes the smooth color corrections applied to a LED: HSL correction (hue map) and gamma.
+ * The table is sampled on a regular grid and read using trilinear interpolation, the hot path is a single lookup per LED
+ * instead of two HSL round trips, three Math.pow and a few EnumMap lookups.
+ * Luminosity threshold, night light and brightness limiter have hard thresholds, interpolating them would blend colors
+ * that the exact computation never produces, so they are applied after the lookup, see ImageProcessor.applyExactCorrections().
+ * <p>
+ * The table is rebuilt in a background thread only when one of the settings that affects the corrections changes.
+ * While a rebuild is in progress no table is returned, and the caller computes the corrections directly.
+ */
+@Slf4j
+public class ColorCorrectionLut {
+
+    private static final int SIZE = Constants.COLOR_LUT_SIZE;
+    private static final ExecutorService lutExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ColorCorrectionLut");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Last built table, table and settings are published together
+    private static volatile Lut lut;
+    // Table that matches the settings in use on the current frame, null if the table must be rebuilt
+    private static volatile int[] currentTable;
+    private static volatile boolean rebuildPending = false;
+
+    /**
+     * Check if the settings are changed since the last build, if so, rebuild the table in background.
+     * This is called once per frame by the producers, settings are compared by value, not by hash.
+     */
+    public static void refresh() {
+        PipelineSettings settings = PipelineSettings.get();
+        if (settings == null) {
+            return;
+        }
+        PipelineSettings.ColorCorrectionKey key = settings.colorCorrectionKey();
+        Lut builtLut = lut;
+        boolean upToDate = builtLut != null && builtLut.key.equals(key);
+        currentTable = upToDate ? builtLut.table : null;
+        if (!upToDate && !rebuildPending) {
+            rebuildPending = true;
+            lutExecutor.execute(() -> build(key));
+        }
+    }
+
+    /**
+     * Get the table to use on the current frame
+     *
+     * @return packed colors table, null if the table does not match the current settings
+     */
+    public static int[] getTable() {
+        return currentTable;
+    }
+
+    /**
+     * Read a corrected color from the table, trilinear interpolation between the eight nearest grid points
+     *
+     * @param table packed colors table
+     * @param r     red channel between 0 and 255
+     * @param g     green channel between 0 and 255
+     * @param b     blue channel between 0 and 255
+     * @return corrected packed color
+     */
+    public static int lookup(int[] table, int r, int g, int b) {
+        // Fixed point position on the grid, the integer part is the cell, the remainder is the weight (0-255)
+        int posR = r * (SIZE - 1), posG = g * (SIZE - 1), posB = b * (SIZE - 1);
+        int ri = Math.min(posR / 255, SIZE - 2);
+        int gi = Math.min(posG / 255, SIZE - 2);
+        int bi = Math.min(posB / 255, SIZE - 2);
+        float wr = (posR - ri * 255) / 255f;
+        float wg = (posG - gi * 255) / 255f;
+        float wb = (posB - bi * 255) / 255f;
+        int base = (ri * SIZE + gi) * SIZE + bi;
+        int strideR = SIZE * SIZE;
+        int c000 = table[base], c001 = table[base + 1];
+        int c010 = table[base + SIZE], c011 = table[base + SIZE + 1];
+        int c100 = table[base + strideR], c101 = table[base + strideR + 1];
+        int c110 = table[base + strideR + SIZE], c111 = table[base + strideR + SIZE + 1];
+        return ColorUtilities.packRgb(
+                interpolate(c000 >> 16 & 0xFF, c001 >> 16 & 0xFF, c010 >> 16 & 0xFF, c011 >> 16 & 0xFF,
+                        c100 >> 16 & 0xFF, c101 >> 16 & 0xFF, c110 >> 16 & 0xFF, c111 >> 16 & 0xFF, wr, wg, wb),
+                interpolate(c000 >> 8 & 0xFF, c001 >> 8 & 0xFF, c010 >> 8 & 0xFF, c011 >> 8 & 0xFF,
+                        c100 >> 8 & 0xFF, c101 >> 8 & 0xFF, c110 >> 8 & 0xFF, c111 >> 8 & 0xFF, wr, wg, wb),
+                interpolate(c000 & 0xFF, c001 & 0xFF, c010 & 0xFF, c011 & 0xFF,
+                        c100 & 0xFF, c101 & 0xFF, c110 & 0xFF, c111 & 0xFF, wr, wg, wb));
+    }
+
+    /**
+     * Trilinear interpolation of a single channel
+     *
+     * @return interpolated channel
+     */
+    private static int interpolate(int v000, int v001, int v010, int v011, int v100, int v101, int v110, int v111,
+                                   float wr, float wg, float wb) {
+        float v00 = v000 + (v001 - v000) * wb;
+        float v01 = v010 + (v011 - v010) * wb;
+        float v10 = v100 + (v101 - v100) * wb;
+        float v11 = v110 + (v111 - v110) * wb;
+        float v0 = v00 + (v01 - v00) * wg;
+        float v1 = v10 + (v11 - v10) * wg;
+        return Math.round(v0 + (v1 - v0) * wr);
+    }
+
+    /**
+     * Build the table using the current settings, the settings are taken before building the table,
+     * if settings change during the build, the next refresh will trigger a new build.
+     *
+     * @param key settings used to build the table
+     */
+    private static void build(PipelineSettings.ColorCorrectionKey key) {
+        try {
+            long start = System.nanoTime();
+            int[] table = new int[SIZE * SIZE * SIZE];
+            int idx = 0;
+            for (int ri = 0; ri < SIZE; ri++) {
+                for (int gi = 0; gi < SIZE; gi++) {
+                    for (int bi = 0; bi < SIZE; bi++) {
+                        table[idx++] = ImageProcessor.applySmoothCorrections(ColorUtilities.packRgb(gridValue(ri), gridValue(gi), gridValue(bi)));
+                    }
+                }
+            }
+            lut = new Lut(key, table);
+            log.debug("Color correction LUT built in {}ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        } finally {
+            rebuildPending = false;
+        }
+    }
+
+    /**
+     * Channel value of a grid point
+     *
+     * @param index grid index
+     * @return channel value between 0 and 255
+     */
+    private static int gridValue(int index) {
+        return Math.round(index * 255f / (SIZE - 1));
+    }
+
+    /**
+     * Table and the settings used to build it
+     *
+     * @param key   settings used to build the table
+     * @param table packed colors table
+     */
+    private record Lut(PipelineSettings.ColorCorrectionKey key, int[] table) {
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+  CpuCaptureEngine.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.MainSingleton;
+import org.dpsoftware.audio.AudioSingleton;
+import org.dpsoftware.config.Enums;
+import org.dpsoftware.managers.MetricsManager;
+import org.dpsoftware.managers.PipelineManager;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU and WinAPI screen capture.
+ * A single thread captures the whole screen and reads the pixels straight from the screenshot raster,
+ * zone averaging is fanned out to the zone workers. Compared to many threads capturing the full screen each,
+ * there is one screenshot per frame instead of one per thread, so memory bandwidth and heap churn are much lower.
+ * <p>
+ * WinAPI screenshots are copied into a raster allocated once, Robot always allocates its own image.
+ * Captures are paced at the target framerate by a FramePacer.
+ */
+@Slf4j
+public class CpuCaptureEngine {
+
+    private final Robot robot;
+    private final int zoneThreads;
+
+    /**
+     * Create the capture engine
+     *
+     * @param robot       AWT Robot used for screen capture, null when using WinAPI
+     * @param zoneThreads max number of threads used to compute the zones
+     */
+    public CpuCaptureEngine(Robot robot, int zoneThreads) {
+        this.robot = robot;
+        this.zoneThreads = Math.max(1, zoneThreads);
+    }
+
+    /**
+     * Start the capture thread
+     */
+    public void start() {
+        log.info("CPU capture engine started, zone threads={}", zoneThreads);
+        Thread.ofPlatform().name("cpu-capture").daemon(true).priority(Thread.MAX_PRIORITY).start(this::run);
+    }
+
+    /**
+     * Capture loop
+     */
+    private void run() {
+        FramePacer pacer = new FramePacer(TimeUnit.SECONDS.toNanos(1) / Math.max(1, GStreamerGrabber.getTargetFramerate()), MetricsManager.PACER_MISSED_PRODUCER);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (MainSingleton.getInstance().RUNNING && isCaptureNeeded()) {
+                    PipelineManager.offerToTheQueue(ImageProcessor.getColors(robot, null, zoneThreads));
+                    MetricsManager.FRAMES_PRODUCED.increment();
+                }
+            } catch (RuntimeException e) {
+                log.error(e.getMessage());
+            }
+            pacer.awaitNextFrame();
+        }
+    }
+
+    /**
+     * Screen capture is not needed when an audio effect drives the LEDs
+     *
+     * @return true if the screen must be captured
+     */
+    private boolean isCaptureNeeded() {
+        return !AudioSingleton.getInstance().RUNNING_AUDIO || Enums.Effect.MUSIC_MODE_BRIGHT.getBaseI18n().equals(MainSingleton.getInstance().config.getEffect())
+                || Enums.Effect.MUSIC_MODE_RAINBOW.getBaseI18n().equals(MainSingleton.getInstance().config.getEffect());
+    }
+
+}
@@ -60,6 +60,9 @@ public class CustomGDI32Util {
     DataBuffer dataBuffer;
     BufferedImage image;
     HANDLE hOriginal;
+    // Raster reused by the single thread CPU capture
+    int[] reusablePixels;
+    BufferedImage reusableImage;
 
     /**
      * Constructor
@@ -93,6 +96,34 @@ public class CustomGDI32Util {
      * @return screenshot image
      */
     public BufferedImage getScreenshot() {
+        blitToBuffer();
+        DataBuffer dataBuffer = new DataBufferInt(buffer.getIntArray(0L, bufferSize), bufferSize);
+        WritableRaster raster = Raster.createPackedRaster(dataBuffer, windowWidth, windowHeight, windowWidth, SCREENSHOT_BAND_MASKS, null);
+        image = new BufferedImage(SCREENSHOT_COLOR_MODEL, raster, false, null);
+        return image;
+    }
+
+    /**
+     * Take single picture at high framerate, pixels are copied into a raster allocated once and reused on every call.
+     * The returned image is overwritten by the next call, it must be used by a single capture thread.
+     *
+     * @return screenshot image backed by the reused raster
+     */
+    public BufferedImage getScreenshotReusingRaster() {
+        blitToBuffer();
+        if (reusablePixels == null) {
+            reusablePixels = new int[bufferSize];
+            WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(reusablePixels, bufferSize), windowWidth, windowHeight, windowWidth, SCREENSHOT_BAND_MASKS, null);
+            reusableImage = new BufferedImage(SCREENSHOT_COLOR_MODEL, raster, false, null);
+        }
+        buffer.read(0L, reusablePixels, 0, bufferSize);
+        return reusableImage;
+    }
+
+    /**
+     * Copy the window content into the native buffer
+     */
+    private void blitToBuffer() {
         if (windowWidth != 0 && windowHeight != 0) {
             HDC hdcTarget = User32.INSTANCE.GetDC(target);
             if (hdcTarget == null) {
@@ -129,10 +160,6 @@ public class CustomGDI32Util {
                                 throw new Win32Exception(Native.getLastError());
                             }
 
-                            DataBuffer dataBuffer = new DataBufferInt(buffer.getIntArray(0L, bufferSize), bufferSize);
-                            WritableRaster raster = Raster.createPackedRaster(dataBuffer, windowWidth, windowHeight, windowWidth, SCREENSHOT_BAND_MASKS, null);
-                            image = new BufferedImage(SCREENSHOT_COLOR_MODEL, raster, false, null);
-
                         } catch (Win32Exception var23) {
                             throw new IllegalStateException(CommonUtility.getWord(Constants.WIN32_EXCEPTION));
                         }
@@ -159,11 +186,9 @@ public class CustomGDI32Util {
                     }
                 }
 
-                return image;
-
             }
         } else {
             throw new IllegalStateException(CommonUtility.getWord(Constants.WINDOWS_EXCEPTION));
         }
     }
-}
\ No newline at end of file
+}
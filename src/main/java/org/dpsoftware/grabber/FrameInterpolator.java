@@ -0,0 +1,213 @@
+/*
+  FrameInterpolator.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.MainSingleton;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.managers.MetricsManager;
+import org.dpsoftware.managers.PipelineManager;
+import org.dpsoftware.utilities.ColorUtilities;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame insertion on a dedicated output clock.
+ * The capture thread only publishes keyframes, this thread renders frames at the smoothing target framerate
+ * interpolating from the last rendered colors to the latest keyframe. A transition lasts one GPU frame time,
+ * so the LEDs reach the keyframe colors when the next keyframe is expected.
+ * <p>
+ * If a keyframe arrives before the transition is complete, the new transition starts from the colors that are on
+ * the strip, there are no jumps and the GStreamer streaming thread never sleeps.
+ * Frames are paced by a FramePacer on absolute deadlines, so the error does not accumulate.
+ */
+@Slf4j
+public class FrameInterpolator {
+
+    private static final FrameMailbox keyframes = new FrameMailbox();
+    private static Thread outputClock;
+
+    // Output clock state, used by the output clock thread only
+    private static int[] from = new int[0];
+    private static int[] to = new int[0];
+    private static int ledNum;
+    private static long transitionStart;
+    private static long transitionNanos;
+    private static long keyframeCaptureNanos;
+    private static long keyframeSequence;
+    private static boolean transitionComplete = true;
+    private static volatile boolean resetRequested;
+
+    /**
+     * Publish a captured frame, the frame is owned by the interpolator after this call.
+     * The output clock thread is started on the first keyframe.
+     *
+     * @param frame captured frame
+     */
+    public static void publishKeyframe(LedFrame frame) {
+        if (outputClock == null) {
+            startOutputClock();
+        }
+        keyframes.offer(frame);
+    }
+
+    /**
+     * Drop the pending keyframe and start from scratch on the next one, used when the capture pipeline is disposed
+     */
+    public static void reset() {
+        keyframes.clear();
+        resetRequested = true;
+    }
+
+    /**
+     * Start the output clock thread
+     */
+    private static synchronized void startOutputClock() {
+        if (outputClock != null) {
+            return;
+        }
+        outputClock = Thread.ofPlatform().name("frame-interpolator").daemon(true).priority(Thread.MAX_PRIORITY).start(FrameInterpolator::run);
+    }
+
+    /**
+     * Output clock loop, it waits for a keyframe when the strip already shows the latest one
+     */
+    @SuppressWarnings("InfiniteLoopStatement")
+    private static void run() {
+        FramePacer pacer = new FramePacer(1, MetricsManager.PACER_MISSED_INTERPOLATOR);
+        while (true) {
+            try {
+                if (resetRequested) {
+                    resetRequested = false;
+                    transitionComplete = true;
+                    ledNum = 0;
+                }
+                PipelineSettings settings = PipelineSettings.get();
+                pacer.setFramerate(settings.frameInsertionTargetFps());
+                boolean idle = transitionComplete;
+                LedFrame keyframe = idle ? keyframes.take() : keyframes.poll();
+                long now = System.nanoTime();
+                if (keyframe != null) {
+                    startTransition(keyframe, settings, now);
+                    FramePool.release(keyframe);
+                    if (idle) {
+                        // The output clock was waiting for a keyframe, start a new schedule
+                        pacer.reset(0);
+                    }
+                }
+                if (ledNum > 0 && MainSingleton.getInstance().RUNNING) {
+                    render(Math.min(1F, (float) (now - transitionStart) / transitionNanos));
+                }
+                pacer.awaitNextFrame();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error(e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                // Never let the output clock die, LED number can change on the fly
+                log.error(e.getMessage());
+                transitionComplete = true;
+            }
+        }
+    }
+
+    /**
+     * Start a new transition toward a keyframe, the transition starts from the colors that are on the strip
+     *
+     * @param keyframe new keyframe
+     * @param settings pipeline settings in use
+     * @param now      current monotonic time
+     */
+    private static void startTransition(LedFrame keyframe, PipelineSettings settings, long now) {
+        int keyframeLeds = keyframe.getLedNum();
+        if (from.length < keyframeLeds) {
+            from = new int[keyframeLeds];
+            to = new int[keyframeLeds];
+        }
+        if (ledNum != keyframeLeds) {
+            // First keyframe or LED number changed, there is nothing to interpolate from
+            System.arraycopy(keyframe.getRgb(), 0, from, 0, keyframeLeds);
+        } else {
+            stripColors(from, to, keyframeLeds, transitionComplete, Math.min(1F, (float) (now - transitionStart) / transitionNanos));
+        }
+        System.arraycopy(keyframe.getRgb(), 0, to, 0, keyframeLeds);
+        ledNum = keyframeLeds;
+        keyframeCaptureNanos = keyframe.getCaptureNanos();
+        keyframeSequence = keyframe.getSequence();
+        transitionStart = now;
+        transitionNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, settings.frameInsertionGpuFps());
+        transitionComplete = false;
+    }
+
+    /**
+     * Compute the colors that are on the strip, a new transition starts from them
+     *
+     * @param from               start colors of the current transition, replaced by the colors on the strip
+     * @param to                 end colors of the current transition
+     * @param length             number of LEDs
+     * @param transitionComplete true if the strip already shows the end colors
+     * @param progress           progress of the current transition (0-1)
+     */
+    static void stripColors(int[] from, int[] to, int length, boolean transitionComplete, float progress) {
+        if (transitionComplete) {
+            System.arraycopy(to, 0, from, 0, length);
+        } else {
+            lerp(from, to, from, length, progress);
+        }
+    }
+
+    /**
+     * Render a frame and offer it to the consumer
+     *
+     * @param progress transition progress, 0 = previous colors, 1 = keyframe colors
+     */
+    private static void render(float progress) {
+        LedFrame frame = FramePool.acquire(ledNum);
+        lerp(from, to, frame.getRgb(), ledNum, progress);
+        frame.setCaptureNanos(keyframeCaptureNanos);
+        frame.setSequence(keyframeSequence);
+        PipelineManager.offerToTheQueue(frame);
+        transitionComplete = progress >= 1F;
+    }
+
+    /**
+     * Linear interpolation between two packed color arrays
+     *
+     * @param start    start colors
+     * @param end      end colors
+     * @param out      output colors, it can be the same array as start
+     * @param length   number of LEDs
+     * @param progress interpolation progress (0-1)
+     */
+    static void lerp(int[] start, int[] end, int[] out, int length, float progress) {
+        for (int i = 0; i < length; i++) {
+            int r = ColorUtilities.red(start[i]);
+            int g = ColorUtilities.green(start[i]);
+            int b = ColorUtilities.blue(start[i]);
+            out[i] = ColorUtilities.packRgb(
+                    r + Math.round((ColorUtilities.red(end[i]) - r) * progress),
+                    g + Math.round((ColorUtilities.green(end[i]) - g) * progress),
+                    b + Math.round((ColorUtilities.blue(end[i]) - b) * progress));
+        }
+    }
+
+}
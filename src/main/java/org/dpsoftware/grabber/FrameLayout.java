@@ -0,0 +1,89 @@
+/*
+  FrameLayout.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Layout of the frames received from the GStreamer appsink, it is computed from the negotiated caps and from the
+ * buffer size once, then it is reused on every frame until the buffer size changes.
+ * <p>
+ * NOTE: stride is unnecessary when using GSTREAMER_PIPELINE_WINDOWS_HARDWARE_HANDLE_SYSTEM_MEMORY and GSTREAMER_PIPELINE_DDUPL_SYSTEM_MEMORY
+ * System memory pipeline needs d3d11download element that copies the buffer from video memory to system memory.
+ * During this copy, d3d11download aligns the memory and the copied buffer contains zero strides.
+ * We want to avoid this expensive copy to system memory, and we want to use the buffer direct from the video memory.
+ * Video memory is not aligned, and we need to align it by calculating the correct stride.
+ * To have a visual example of "non-aligned memory" you can run a resolution that doesn't need alignment and one that needs it
+ * and enable the TRACE debug level.
+ * Example: NVIDIA 3840x2160 does not need alignment, 3440x1440 needs alignment.
+ * TRACE debug level captures a screenshot of the captured image; when using 3840x2160 resolution, the captured image is correct.
+ * When using 3440x1440 resolution, the captured image is scrambled. Every pixel is shifted by 4 pixels.
+ *
+ * @param width           captured image width (includes rescaling)
+ * @param height          captured image height (includes rescaling)
+ * @param widthPlusStride width that contains stride for some resolutions that needs it like: 3440x1440 on NVIDIA or 1920x1080 on AMD
+ * @param byteSize        size of the mapped buffer in bytes
+ */
+public record FrameLayout(int width, int height, int widthPlusStride, long byteSize) {
+
+    // JNA maps the buffer using native byte order, GStreamer caps set the color masks accordingly
+    public static final ValueLayout.OfInt PIXEL = ValueLayout.JAVA_INT_UNALIGNED;
+
+    /**
+     * Compute the layout of the captured frame, rows are padded up to the stride
+     *
+     * @param width    captured image width
+     * @param height   captured image height
+     * @param byteSize size of the mapped buffer in bytes
+     * @return frame layout
+     */
+    public static FrameLayout of(int width, int height, long byteSize) {
+        int widthPlusStride = width;
+        if (height > 0) {
+            widthPlusStride = Math.max(width, (int) (byteSize / Integer.BYTES / height));
+        }
+        return new FrameLayout(width, height, widthPlusStride, byteSize);
+    }
+
+    /**
+     * Index of the last pixel that can be read from the buffer
+     *
+     * @return last pixel index
+     */
+    public long lastPixel() {
+        return Math.min((long) widthPlusStride * height, byteSize / Integer.BYTES) - 1;
+    }
+
+    /**
+     * Index of the pixel read when sampling (x, y). Samples past the stride are clamped to the stride, that is the
+     * first pixel of the next row, samples below the frame are clamped to the last pixel. Clamped samples still count.
+     *
+     * @param x sample column
+     * @param y sample row
+     * @return index of the pixel to read
+     */
+    public long sampleIndex(int x, int y) {
+        long index = Math.min(x, widthPlusStride) + (long) Math.min(y, height) * widthPlusStride;
+        return Math.min(lastPixel(), index);
+    }
+
+}
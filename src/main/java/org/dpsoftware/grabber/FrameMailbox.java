@@ -0,0 +1,138 @@
+/*
+  FrameMailbox.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.config.Constants;
+import org.dpsoftware.managers.MetricsManager;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latest-wins handoff between the producers (screen capture, audio, effects) and the consumer that sends colors to the strip.
+ * This is a triple buffer where the buffers are pooled frames: the producer writes its own frame, publishes it in the
+ * middle slot with a CAS, the consumer swaps the middle slot out and owns the frame until it's sent.
+ * <p>
+ * Producers never block and never take a lock. If the consumer is busy, the frame waiting in the slot is stale,
+ * it is replaced by the newest one and given back to the FramePool, so the consumer always gets the freshest colors.
+ * A captured frame never replaces a frame that has been captured after it, see FrameSequence.
+ * Every frame is released once: by the mailbox when it's replaced or cleared, or by the consumer once sent.
+ */
+public class FrameMailbox {
+
+    private final AtomicReference<LedFrame> slot = new AtomicReference<>();
+    private final LongAdder offeredFrames = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    // Consumer thread, set only while it's parked waiting for a frame
+    private volatile Thread waitingConsumer;
+
+    /**
+     * Publish a frame, the frame is owned by the mailbox after this call
+     *
+     * @param frame frame to publish
+     */
+    public void offer(LedFrame frame) {
+        offeredFrames.increment();
+        frame.setOfferNanos(System.nanoTime());
+        LedFrame stale;
+        do {
+            stale = slot.get();
+            if (stale != null && FrameSequence.isOlder(frame, stale)) {
+                // Captured before the frame that is waiting, a producer finished late
+                MetricsManager.OUT_OF_ORDER_MAILBOX.increment();
+                PipelineEvents.frameDropped(Constants.JFR_DROP_OUT_OF_ORDER);
+                FramePool.release(frame);
+                return;
+            }
+        } while (!slot.compareAndSet(stale, frame));
+        if (stale != null) {
+            droppedFrames.increment();
+            PipelineEvents.frameDropped(Constants.JFR_DROP_STALE);
+            FramePool.release(stale);
+        }
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Take the freshest frame, wait if there are no new frames since the last take.
+     * There must be a single consumer thread.
+     *
+     * @return frame owned by the caller, it must be given back to the FramePool once sent
+     * @throws InterruptedException if the consumer is interrupted while waiting
+     */
+    public LedFrame take() throws InterruptedException {
+        LedFrame frame = slot.getAndSet(null);
+        while (frame == null) {
+            waitingConsumer = Thread.currentThread();
+            // Check again after registering, a producer may have published before seeing the waiting consumer
+            frame = slot.getAndSet(null);
+            if (frame == null) {
+                LockSupport.park(this);
+                frame = slot.getAndSet(null);
+            }
+            waitingConsumer = null;
+            if (frame == null && Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Take the freshest frame without waiting
+     *
+     * @return frame owned by the caller, null if there are no new frames since the last take
+     */
+    public LedFrame poll() {
+        return slot.getAndSet(null);
+    }
+
+    /**
+     * Remove the pending frame, if any, and give it back to the FramePool
+     */
+    public void clear() {
+        FramePool.release(slot.getAndSet(null));
+    }
+
+    /**
+     * Number of frames published since startup
+     *
+     * @return offered frames
+     */
+    public long getOfferedFrames() {
+        return offeredFrames.sum();
+    }
+
+    /**
+     * Number of frames replaced by a newer one before the consumer took them
+     *
+     * @return dropped frames
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.sum();
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+  FramePacer.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.Getter;
+import org.dpsoftware.config.Constants;
+import org.dpsoftware.managers.MetricsManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Nanosecond frame pacer for loops that must run at a fixed cadence (120/144 Hz can't be expressed in whole milliseconds).
+ * Deadlines are on an absolute schedule, every deadline is the previous one plus a period, so the time spent working
+ * on a frame and the wake-up error don't accumulate.
+ * <p>
+ * Waiting is hybrid: the thread parks until shortly before the deadline, then it spins for the rest.
+ * The spin window adapts to the park overshoot measured on this OS, short on Linux, longer where the timer is coarse.
+ * When a frame starts after its deadline it's counted as missed, if it's more than a period late the schedule is
+ * moved to now so the loop doesn't burst to catch up.
+ * <p>
+ * A pacer is used by a single thread.
+ */
+public class FramePacer {
+
+    private final MetricsManager.Counter missedDeadlinesCounter;
+    private long periodNanos;
+    private long deadline;
+    private long spinNanos = Constants.PACER_MIN_SPIN_NANOS;
+    // How late the last wake-up was, measured against the absolute schedule
+    @Getter
+    private long lastDriftNanos;
+    @Getter
+    private long missedDeadlines;
+
+    /**
+     * Create a pacer
+     *
+     * @param periodNanos            frame period in nanoseconds
+     * @param missedDeadlinesCounter metric incremented on every missed deadline
+     */
+    public FramePacer(long periodNanos, MetricsManager.Counter missedDeadlinesCounter) {
+        this.periodNanos = Math.max(1, periodNanos);
+        this.missedDeadlinesCounter = missedDeadlinesCounter;
+    }
+
+    /**
+     * Change the frame period, it's used from the next deadline
+     *
+     * @param periodNanos frame period in nanoseconds
+     */
+    public void setPeriodNanos(long periodNanos) {
+        this.periodNanos = Math.max(1, periodNanos);
+    }
+
+    /**
+     * Change the frame period using a framerate
+     *
+     * @param framerate frames per second
+     */
+    public void setFramerate(int framerate) {
+        setPeriodNanos(TimeUnit.SECONDS.toNanos(1) / Math.max(1, framerate));
+    }
+
+    /**
+     * Start a new schedule, the next deadline is one period from now plus an offset.
+     * Used after the loop has been idle and to spread many loops sharing the same period.
+     *
+     * @param offsetNanos delay added to the first deadline
+     */
+    public void reset(long offsetNanos) {
+        deadline = System.nanoTime() + offsetNanos;
+    }
+
+    /**
+     * Wait for the next deadline
+     *
+     * @return false if the deadline was already missed, the method returns immediately
+     */
+    public boolean awaitNextFrame() {
+        long now = System.nanoTime();
+        if (deadline == 0) {
+            deadline = now;
+        }
+        deadline += periodNanos;
+        long late = now - deadline;
+        if (late > 0) {
+            missedDeadlines++;
+            missedDeadlinesCounter.increment();
+            lastDriftNanos = late;
+            if (late > periodNanos) {
+                // Don't try to catch up, start a new schedule
+                deadline = now;
+            }
+            return false;
+        }
+        waitUntil(deadline);
+        lastDriftNanos = System.nanoTime() - deadline;
+        return true;
+    }
+
+    /**
+     * Park, then spin, until a deadline
+     *
+     * @param deadlineNanos deadline on the System.nanoTime() clock
+     */
+    private void waitUntil(long deadlineNanos) {
+        long parkNanos = deadlineNanos - System.nanoTime() - spinNanos;
+        if (parkNanos > 0) {
+            long parkStart = System.nanoTime();
+            LockSupport.parkNanos(parkNanos);
+            long overshoot = System.nanoTime() - parkStart - parkNanos;
+            // Moving average of the park overshoot, with some headroom
+            long target = Math.clamp(overshoot * 2, Constants.PACER_MIN_SPIN_NANOS, Constants.PACER_MAX_SPIN_NANOS);
+            spinNanos = (spinNanos * 7 + target) / 8;
+        }
+        while (deadlineNanos - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+  FramePool.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.config.Constants;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of reusable frames shared by producers and consumers.
+ * The free list is array backed, acquiring and releasing a frame does not allocate.
+ * A frame must be released once by its last owner: the consumer after sending it, or the producer when the frame is dropped.
+ */
+public class FramePool {
+
+    private static final ArrayBlockingQueue<LedFrame> freeFrames = new ArrayBlockingQueue<>(Constants.FRAME_POOL_SIZE);
+
+    /**
+     * Get a frame from the pool, a new one is created only if the pool is empty
+     *
+     * @param ledNum number of LEDs in the frame
+     * @return frame ready to be written
+     */
+    public static LedFrame acquire(int ledNum) {
+        LedFrame frame = freeFrames.poll();
+        if (frame == null) {
+            return new LedFrame(ledNum);
+        }
+        frame.resize(ledNum);
+        frame.setCaptureNanos(0);
+        frame.setOfferNanos(0);
+        frame.setSequence(0);
+        return frame;
+    }
+
+    /**
+     * Give back a frame to the pool, if the pool is full the frame is left to the Garbage Collector
+     *
+     * @param frame frame to release
+     */
+    public static void release(LedFrame frame) {
+        if (frame != null) {
+            //noinspection ResultOfMethodCallIgnored
+            freeFrames.offer(frame);
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+  FrameSequence.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.config.Constants;
+import org.dpsoftware.managers.MetricsManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Capture sequence numbers.
+ * Every captured frame gets a monotonically increasing number when the capture starts, with many producers capturing
+ * at the same time a frame can finish after a newer one, the sequence number tells which one is older.
+ * Frames that don't come from the screen capture (audio, effects, other instances) have sequence 0 and are never rejected.
+ * <p>
+ * An instance of this class is a guard for a single emitter (the consumer, a sink), it remembers the last sequence
+ * emitted and rejects anything older.
+ */
+public class FrameSequence {
+
+    private static final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLong lastEmitted = new AtomicLong();
+    private final MetricsManager.Counter outOfOrderCounter;
+
+    /**
+     * Create a guard for an emitter
+     *
+     * @param outOfOrderCounter metric incremented when a frame is rejected
+     */
+    public FrameSequence(MetricsManager.Counter outOfOrderCounter) {
+        this.outOfOrderCounter = outOfOrderCounter;
+    }
+
+    /**
+     * Next capture sequence number, call it when the capture starts
+     *
+     * @return sequence number, always greater than 0
+     */
+    public static long next() {
+        return nextSequence.incrementAndGet();
+    }
+
+    /**
+     * Check if a frame has been captured before another one
+     *
+     * @param frame frame to check
+     * @param other frame to compare with
+     * @return true if both frames come from the capture and frame is older than other
+     */
+    public static boolean isOlder(LedFrame frame, LedFrame other) {
+        return frame.getSequence() != 0 && other.getSequence() != 0 && frame.getSequence() < other.getSequence();
+    }
+
+    /**
+     * Check if a frame can be emitted, the frame is rejected if it's older than the last frame emitted.
+     * Frames with the same sequence are accepted, frame insertion renders many frames from the same capture.
+     *
+     * @param frame frame to emit
+     * @return false if the frame must be dropped
+     */
+    public boolean accept(LedFrame frame) {
+        long sequence = frame.getSequence();
+        if (sequence == 0) {
+            return true;
+        }
+        long last = lastEmitted.get();
+        while (sequence >= last) {
+            if (sequence == last || lastEmitted.compareAndSet(last, sequence)) {
+                return true;
+            }
+            last = lastEmitted.get();
+        }
+        outOfOrderCounter.increment();
+        PipelineEvents.frameDropped(Constants.JFR_DROP_OUT_OF_ORDER);
+        return false;
+    }
+
+}
@@ -24,6 +24,7 @@ package org.dpsoftware.grabber;
 import jdk.incubator.vector.IntVector;
 import jdk.incubator.vector.VectorMask;
 import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
 import lombok.extern.slf4j.Slf4j;
 import org.dpsoftware.LEDCoordinate;
 import org.dpsoftware.MainSingleton;
@@ -32,8 +33,10 @@ import org.dpsoftware.config.Configuration;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
 import org.dpsoftware.config.LocalizedEnum;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.managers.MetricsManager;
 import org.dpsoftware.managers.PipelineManager;
-import org.dpsoftware.utilities.CommonUtility;
+import org.dpsoftware.utilities.ColorUtilities;
 import org.freedesktop.gstreamer.*;
 import org.freedesktop.gstreamer.elements.AppSink;
 
@@ -46,9 +49,7 @@ import java.io.IOException;
 import java.lang.foreign.MemorySegment;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.IntBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
@@ -63,16 +64,17 @@ import java.util.concurrent.locks.ReentrantLock;
 public class GStreamerGrabber extends JComponent {
 
     public static LinkedHashMap<Integer, LEDCoordinate> ledMatrix;
+    // Summed-area table reused across frames, see IntegralImage
+    static final IntegralImage integralImage = new IntegralImage();
+    // Vector species used on zones narrower than the preferred species
+    static final VectorSpecies<Integer> NARROW_SPECIES = IntVector.SPECIES_128;
     static long startSimdTime;
     static boolean usingSimd;
     static int lastRgbValue;
-    final int oneSecondMillis = 1000;
     private final Lock bufferLock = new ReentrantLock();
     public AppSink videosink;
     boolean writeToFile = false;
     int capturedFrames = 0;
-    long start;
-    private Color[] previousFrame;
 
     /**
      * Creates a new instance of GstVideoComponent
@@ -80,8 +82,6 @@ public class GStreamerGrabber extends JComponent {
     public GStreamerGrabber() {
         this(new AppSink("GstVideoComponent"));
         ledMatrix = MainSingleton.getInstance().config.getLedMatrixInUse(MainSingleton.getInstance().config.getDefaultLedMatrix());
-        previousFrame = new Color[ledMatrix.size()];
-        Arrays.fill(previousFrame, new Color(0, 0, 0));
     }
 
     /**
@@ -129,13 +129,13 @@ public class GStreamerGrabber extends JComponent {
     /**
      * Bench SIMD vs Scalar CPU computations
      *
-     * @param leds       array that is offered to the queue
+     * @param leds       packed colors that are offered to the queue
      * @param pickNumber LED to analuze (first one=
      * @param r          red channel
      * @param g          green channel
      * @param b          blu channel
      */
-    private static void benchSimd(Color[] leds, int pickNumber, int r, int g, int b) {
+    private static void benchSimd(int[] leds, int pickNumber, int r, int g, int b) {
         int key = 1;
         long finish = System.nanoTime();
         long timeElapsed = finish - startSimdTime;
@@ -152,13 +152,13 @@ public class GStreamerGrabber extends JComponent {
                 printSimdBenchResult();
             }
         } else {
-            int rgbValueSum = leds[key - 1].getRed() + leds[key - 1].getGreen() + leds[key - 1].getBlue();
+            int rgbValueSum = ColorUtilities.red(leds[key - 1]) + ColorUtilities.green(leds[key - 1]) + ColorUtilities.blue(leds[key - 1]);
             if (lastRgbValue != rgbValueSum) {
-                lastRgbValue = leds[key - 1].getRed() + leds[key - 1].getGreen() + leds[key - 1].getBlue();
+                lastRgbValue = rgbValueSum;
                 if (Enums.SimdAvxOption.findByValue(MainSingleton.getInstance().config.getSimdAvx()).getSimdOptionNumeric() != 0) {
                     log.trace("SIMD: {}, R: {}, G: {}, B: {}, pickNumber: {}, R_AVG: {}, G_AVG: {}, B_AVG: {}",
                             Enums.SimdAvxOption.findByValue(MainSingleton.getInstance().config.getSimdAvx()).getBaseI18n(),
-                            r, g, b, pickNumber, leds[key - 1].getRed(), leds[key - 1].getGreen(), leds[key - 1].getBlue());
+                            r, g, b, pickNumber, ColorUtilities.red(leds[key - 1]), ColorUtilities.green(leds[key - 1]), ColorUtilities.blue(leds[key - 1]));
                 }
             }
         }
@@ -241,17 +241,15 @@ public class GStreamerGrabber extends JComponent {
     }
 
     /**
-     * Write intBuffer (image) to file
+     * Write captured frame (image) to file
      *
-     * @param rgbBuffer rgb int buffer
+     * @param frameSegment mapped memory of the captured frame
      */
-    private void intBufferRgbToImage(IntBuffer rgbBuffer) {
+    private void frameSegmentToImage(MemorySegment frameSegment) {
         capturedFrames++;
         BufferedImage img = new BufferedImage(MainSingleton.getInstance().config.getScreenResX() / MainSingleton.getInstance().config.getResamplingFactor(),
                 MainSingleton.getInstance().config.getScreenResY() / MainSingleton.getInstance().config.getResamplingFactor(), 1);
-        int[] rgbArray = new int[rgbBuffer.capacity()];
-        rgbBuffer.rewind();
-        rgbBuffer.get(rgbArray);
+        int[] rgbArray = frameSegment.toArray(FrameLayout.PIXEL);
         img.setRGB(0, 0, img.getWidth(), img.getHeight(), rgbArray, 0, img.getWidth());
         try {
             if (!writeToFile && capturedFrames == 90) {
@@ -266,108 +264,216 @@ public class GStreamerGrabber extends JComponent {
     /**
      * Listener callback triggered every captured frame
      */
-    private class AppSinkListener implements AppSink.NEW_SAMPLE {
+    class AppSinkListener implements AppSink.NEW_SAMPLE {
+
+        // Layout of the captured frames, reused until the buffer size changes
+        private FrameLayout frameLayout;
 
         /**
-         * GPU has captured the screen and now we have an IntBuffer that contains the captured image.
+         * GPU has captured the screen and now we have a memory segment that contains the captured image.
          * This method process that buffer to calculate average colors on the configured zones.
-         * This computation is done on the CPU side.
-         * The buffer used in this method is not backed by an accessible array, so you can't call asArray() on it,
-         * this kind of copy requires a lot of CPU/Memory time but it is required to use the SIMD AVX CPU instructions.
-         * The use of AVX512 / AVX256 guarantees a huge increase in performance on very large zones.
-         * <p>
-         * NOTE: Don't split this method, this code must run inside one method for maximum performance.
+         * This computation is done on the CPU side, on the capture thread or on multiple cores if parallel zones are enabled.
          *
-         * @param width     captured image width
-         * @param height    captured image height
-         * @param rgbBuffer the buffer that bake the captured screen image
-         * @return an array that contains the average color for each zones
+         * @param settings     pipeline settings in use
+         * @param layout       layout of the captured frame
+         * @param frameSegment mapped memory of the captured frame
+         * @return a pooled frame that contains the average color for each zones
          */
-        private static Color[] processBufferUsingCpu(int width, int height, IntBuffer rgbBuffer) {
-            Color[] leds = new Color[ledMatrix.size()];
-            if (log.isDebugEnabled() || MainSingleton.getInstance().isCpuLatencyBenchRunning()) {
-                startSimdTime = System.nanoTime();
+        static LedFrame processBufferUsingCpu(PipelineSettings settings, FrameLayout layout, MemorySegment frameSegment) {
+            ColorCorrectionLut.refresh();
+            LedFrame frame = FramePool.acquire(ledMatrix.size());
+            // The frame goes back to the pool if the zones can't be computed, e.g. LED num changed on the fly
+            boolean computed = false;
+            try {
+                int[] leds = frame.getRgb();
+                boolean bench = log.isDebugEnabled() || MainSingleton.getInstance().isCpuLatencyBenchRunning();
+                if (bench) {
+                    startSimdTime = System.nanoTime();
+                }
+                int widthPlusStride = layout.widthPlusStride();
+                int height = layout.height();
+                ZonePlan plan = ZonePlan.forCapture(ledMatrix, settings.resamplingFactor(), widthPlusStride, height);
+                // Kernel selected by the tuner when SIMD option is AUTO, kernel selected by the user otherwise
+                ZoneKernelTuner.Kernel kernel = ZoneKernelTuner.kernelFor(plan, settings);
+                PipelineEvents.ZonesComputed zonesEvent = new PipelineEvents.ZonesComputed();
+                zonesEvent.begin();
+                var SPECIES = kernel != null ? kernel.species() : MainSingleton.getInstance().SPECIES;
+                boolean useIntegralImage = kernel != null ? kernel.integralImage() : SPECIES == null && MainSingleton.getInstance().integralImage;
+                boolean parallel = kernel != null ? kernel.parallel() : settings.parallelZones();
+                long kernelStart = kernel != null ? System.nanoTime() : 0;
+                if (useIntegralImage) {
+                    integralImage.build(widthPlusStride, height, frameSegment);
+                }
+                if (bench) {
+                    usingSimd = SPECIES != null;
+                }
+                if (parallel) {
+                    // Every chunk writes its own slots of the leds array, order is preserved
+                    ParallelZoneEngine.compute(plan, ParallelZoneEngine.threadsFor(plan),
+                            (from, to) -> computeZones(plan, from, to, leds, SPECIES, frameSegment, layout, useIntegralImage),
+                            kernel == null && log.isDebugEnabled());
+                } else {
+                    computeZones(plan, 0, plan.zones.length, leds, SPECIES, frameSegment, layout, useIntegralImage);
+                }
+                if (kernel != null) {
+                    ZoneKernelTuner.record(kernel, System.nanoTime() - kernelStart);
+                }
+                plan.copyGroupedLeds(leds);
+                if (zonesEvent.shouldCommit()) {
+                    zonesEvent.zones = plan.zones.length;
+                    zonesEvent.kernel = kernel != null ? kernel.getName() : (useIntegralImage ? Enums.SimdAvxOption.INTEGRAL_IMAGE.name()
+                            : SPECIES != null ? SPECIES.vectorBitSize() + " bit SIMD" : Enums.SimdAvxOption.DISABLED.name()) + (parallel ? " parallel" : "");
+                    zonesEvent.commit();
+                }
+                if (bench) {
+                    benchSimd(leds, 0, 0, 0, 0);
+                }
+                computed = true;
+                return frame;
+            } finally {
+                if (!computed) {
+                    FramePool.release(frame);
+                }
             }
-            int widthPlusStride = ImageProcessor.getWidthPlusStride(width, height, rgbBuffer);
-            // We need an ordered collection, parallelStream does not help here
-            var SPECIES = MainSingleton.getInstance().SPECIES;
-            MemorySegment memorySegment;
-            if (SPECIES != null) {
-                memorySegment = MemorySegment.ofBuffer(rgbBuffer);
-            } else {
-                memorySegment = null;
+        }
+
+        /**
+         * Calculate average colors on a range of zones, zones are summed first and then the colors are corrected.
+         * This method only reads shared state, so it can run on multiple threads on different ranges.
+         *
+         * @param plan             zone plan in use
+         * @param from             first index of plan.zones to compute (inclusive)
+         * @param to               last index of plan.zones to compute (exclusive)
+         * @param leds             array that will contain the average colors
+         * @param SPECIES          vector species in use, null if SIMD is disabled
+         * @param frameSegment     mapped memory of the captured frame
+         * @param layout           layout of the captured frame
+         * @param useIntegralImage true if the summed-area table has been built for this frame
+         */
+        private static void computeZones(ZonePlan plan, int from, int to, int[] leds, VectorSpecies<Integer> SPECIES,
+                                         MemorySegment frameSegment, FrameLayout layout, boolean useIntegralImage) {
+            sumZones(plan, from, to, SPECIES, frameSegment, layout, useIntegralImage);
+            int[] zoneSums = plan.zoneSums;
+            for (int z = from; z < to; z++) {
+                int i = plan.zones[z];
+                int slot = i * 4;
+                int pickNumber = Math.max(1, zoneSums[slot + 3]);
+                leds[i] = ImageProcessor.correctColors(zoneSums[slot], zoneSums[slot + 1], zoneSums[slot + 2], pickNumber, plan.active[i]);
+                if (log.isTraceEnabled() || MainSingleton.getInstance().isCpuLatencyBenchRunning()) {
+                    if (i == 0) benchSimd(leds, pickNumber, zoneSums[slot], zoneSums[slot + 1], zoneSums[slot + 2]);
+                }
             }
-            ledMatrix.forEach((key, value) -> {
+        }
+
+        /**
+         * Sum the pixels of a range of zones, R, G, B sums and the number of pixels are written in the zone slots of the plan.
+         * The mapped GStreamer memory is read in place through a memory segment, no copy and no intermediate buffer view is needed.
+         * The use of AVX512 / AVX256 guarantees a huge increase in performance on very large zones.
+         * Every engine samples zones crossing the frame edges following {@link FrameLayout#sampleIndex(int, int)},
+         * so all the engines produce the same sums.
+         * <p>
+         * NOTE: Don't split this method, the zone loop must run inside one method for maximum performance.
+         * Every zone has its own slots in the plan, chunks computed in parallel never share them.
+         *
+         * @param plan             zone plan in use
+         * @param from             first index of plan.zones to compute (inclusive)
+         * @param to               last index of plan.zones to compute (exclusive)
+         * @param SPECIES          vector species in use, null if SIMD is disabled
+         * @param frameSegment     mapped memory of the captured frame
+         * @param layout           layout of the captured frame
+         * @param useIntegralImage true if the summed-area table has been built for this frame
+         */
+        static void sumZones(ZonePlan plan, int from, int to, VectorSpecies<Integer> SPECIES,
+                             MemorySegment frameSegment, FrameLayout layout, boolean useIntegralImage) {
+            int widthPlusStride = layout.widthPlusStride();
+            int height = layout.height();
+            int[] zoneSums = plan.zoneSums;
+            for (int z = from; z < to; z++) {
+                int i = plan.zones[z];
+                int slot = i * 4;
                 int r = 0, g = 0, b = 0;
-                int pickNumber = 0;
-                int xCoordinate = (value.getX() / MainSingleton.getInstance().config.getResamplingFactor());
-                int yCoordinate = (value.getY() / MainSingleton.getInstance().config.getResamplingFactor());
-                int pixelInUseX = value.getWidth() / MainSingleton.getInstance().config.getResamplingFactor();
-                int pixelInUseY = value.getHeight() / MainSingleton.getInstance().config.getResamplingFactor();
+                int xCoordinate = plan.x0[i];
+                int yCoordinate = plan.y0[i];
+                int pixelInUseX = plan.x1[i] - xCoordinate;
+                int pixelInUseY = plan.y1[i] - yCoordinate;
                 if (SPECIES != null) {
-                    if (log.isDebugEnabled() || MainSingleton.getInstance().isCpuLatencyBenchRunning()) {
-                        usingSimd = true;
-                    }
-                    if (!value.isGroupedLed()) {
-                        for (int y = 0; y < pixelInUseY; y++) {
-                            int offsetY = yCoordinate + y;
-                            if (offsetY >= height) continue;
-                            int baseBufferOffset = offsetY * widthPlusStride;
-                            for (int x = 0; x < pixelInUseX; x += SPECIES.length() * 2) {
-                                int offsetX = xCoordinate + x;
-                                if (offsetX >= widthPlusStride) continue;
-                                VectorMask<Integer> mask1 = SPECIES.indexInRange(x, pixelInUseX);
-                                VectorMask<Integer> mask2 = SPECIES.indexInRange(x + SPECIES.length(), pixelInUseX);
-                                IntVector rgbVector1 = IntVector.fromMemorySegment(SPECIES, memorySegment,
-                                        (long) (offsetX + baseBufferOffset) * Integer.BYTES, ByteOrder.nativeOrder(), mask1);
-                                IntVector rgbVector2 = IntVector.fromMemorySegment(SPECIES, memorySegment,
-                                        (long) (Math.min(offsetX + SPECIES.length(), widthPlusStride) + baseBufferOffset) * Integer.BYTES, ByteOrder.nativeOrder(), mask2);
-                                r += rgbVector1.and(0xFF0000).lanewise(VectorOperators.LSHR, 16)
-                                        .add(rgbVector2.and(0xFF0000).lanewise(VectorOperators.LSHR, 16))
-                                        .reduceLanes(VectorOperators.ADD);
-                                g += rgbVector1.and(0x00FF00).lanewise(VectorOperators.LSHR, 8)
-                                        .add(rgbVector2.and(0x00FF00).lanewise(VectorOperators.LSHR, 8))
-                                        .reduceLanes(VectorOperators.ADD);
-                                b += rgbVector1.and(0x0000FF)
-                                        .add(rgbVector2.and(0x0000FF))
-                                        .reduceLanes(VectorOperators.ADD);
-                                pickNumber += mask1.trueCount() + mask2.trueCount();
+                    // Vectors read the part of the zone inside the frame, rows are never read past the stride
+                    int rowLen = Math.min(pixelInUseX, widthPlusStride - xCoordinate);
+                    int rowEnd = Math.min(yCoordinate + pixelInUseY, height);
+                    if (rowLen > 0 && rowEnd > yCoordinate) {
+                        // Narrow vertical zones use 128 bit vectors, wide vectors would be mostly masked
+                        VectorSpecies<Integer> species = (rowLen < SPECIES.length() && SPECIES.length() > NARROW_SPECIES.length()) ? NARROW_SPECIES : SPECIES;
+                        int lanes = species.length();
+                        int bodyLen = rowLen - (rowLen % lanes);
+                        VectorMask<Integer> tailMask = species.indexInRange(bodyLen, rowLen);
+                        boolean hasTail = bodyLen < rowLen;
+                        // Accumulators stay in registers for the whole zone, lanes are reduced once per zone
+                        IntVector accR = IntVector.zero(species);
+                        IntVector accG = IntVector.zero(species);
+                        IntVector accB = IntVector.zero(species);
+                        for (int y = yCoordinate; y < rowEnd; y++) {
+                            long rowOffset = ((long) y * widthPlusStride + xCoordinate) * Integer.BYTES;
+                            for (int x = 0; x < bodyLen; x += lanes) {
+                                IntVector rgbVector = IntVector.fromMemorySegment(species, frameSegment,
+                                        rowOffset + (long) x * Integer.BYTES, ByteOrder.nativeOrder());
+                                accR = accR.add(rgbVector.lanewise(VectorOperators.LSHR, 16).and(0xFF));
+                                accG = accG.add(rgbVector.lanewise(VectorOperators.LSHR, 8).and(0xFF));
+                                accB = accB.add(rgbVector.and(0xFF));
+                            }
+                            if (hasTail) {
+                                // Masked lanes are loaded as zero, they don't contribute to the sums
+                                IntVector rgbVector = IntVector.fromMemorySegment(species, frameSegment,
+                                        rowOffset + (long) bodyLen * Integer.BYTES, ByteOrder.nativeOrder(), tailMask);
+                                accR = accR.add(rgbVector.lanewise(VectorOperators.LSHR, 16).and(0xFF));
+                                accG = accG.add(rgbVector.lanewise(VectorOperators.LSHR, 8).and(0xFF));
+                                accB = accB.add(rgbVector.and(0xFF));
                             }
                         }
-                        leds[key - 1] = ImageProcessor.correctColors(r, g, b, pickNumber, value.isActive());
-                    } else {
-                        leds[key - 1] = leds[key - 2];
+                        r = accR.reduceLanes(VectorOperators.ADD);
+                        g = accG.reduceLanes(VectorOperators.ADD);
+                        b = accB.reduceLanes(VectorOperators.ADD);
                     }
-                } else {
-                    if (log.isDebugEnabled() || MainSingleton.getInstance().isCpuLatencyBenchRunning()) {
-                        usingSimd = false;
+                    // Samples past the stride read the same pixel on every column of a row, one read per row is enough
+                    int rightColumns = plan.x1[i] - Math.max(xCoordinate, widthPlusStride);
+                    if (rightColumns > 0) {
+                        for (int y = yCoordinate; y < rowEnd; y++) {
+                            int rgb = frameSegment.getAtIndex(FrameLayout.PIXEL, layout.sampleIndex(widthPlusStride, y));
+                            r += rightColumns * (rgb >> 16 & 0xFF);
+                            g += rightColumns * (rgb >> 8 & 0xFF);
+                            b += rightColumns * (rgb & 0xFF);
+                        }
                     }
-                    if (!value.isGroupedLed()) {
-                        for (int y = 0; y < pixelInUseY; y++) {
-                            for (int x = 0; x < pixelInUseX; x++) {
-                                int offsetX = (xCoordinate + x);
-                                int offsetY = (yCoordinate + y);
-                                int bufferOffset = (Math.min(offsetX, widthPlusStride)) + ((offsetY < height) ? (offsetY * widthPlusStride) : (height * widthPlusStride));
-                                int rgb = rgbBuffer.get(Math.min(rgbBuffer.capacity() - 1, bufferOffset));
-                                r += rgb >> 16 & 0xFF;
-                                g += rgb >> 8 & 0xFF;
-                                b += rgb & 0xFF;
-                                pickNumber++;
-                            }
+                    // Samples below the frame all read the last pixel
+                    int rowsBelow = plan.y1[i] - Math.max(yCoordinate, height);
+                    if (rowsBelow > 0 && pixelInUseX > 0) {
+                        int rgb = frameSegment.getAtIndex(FrameLayout.PIXEL, layout.sampleIndex(xCoordinate, height));
+                        int samples = rowsBelow * pixelInUseX;
+                        r += samples * (rgb >> 16 & 0xFF);
+                        g += samples * (rgb >> 8 & 0xFF);
+                        b += samples * (rgb & 0xFF);
+                    }
+                    zoneSums[slot + 3] = Math.max(0, pixelInUseX) * Math.max(0, pixelInUseY);
+                } else if (useIntegralImage) {
+                    // O(1) per zone, four lookups per channel on the summed-area table, all the slots are written by the table
+                    integralImage.sum(xCoordinate, yCoordinate, plan.x1[i], plan.y1[i], zoneSums, slot);
+                    continue;
+                } else {
+                    int pickNumber = 0;
+                    for (int y = 0; y < pixelInUseY; y++) {
+                        for (int x = 0; x < pixelInUseX; x++) {
+                            int rgb = frameSegment.getAtIndex(FrameLayout.PIXEL, layout.sampleIndex(xCoordinate + x, yCoordinate + y));
+                            r += rgb >> 16 & 0xFF;
+                            g += rgb >> 8 & 0xFF;
+                            b += rgb & 0xFF;
+                            pickNumber++;
                         }
-                        leds[key - 1] = ImageProcessor.correctColors(r, g, b, pickNumber, value.isActive());
-                    } else {
-                        leds[key - 1] = leds[key - 2];
                     }
+                    zoneSums[slot + 3] = pickNumber;
                 }
-                if (log.isTraceEnabled() || MainSingleton.getInstance().isCpuLatencyBenchRunning()) {
-                    if (key == 1) benchSimd(leds, pickNumber, r, g, b);
-                }
-            });
-            if (log.isDebugEnabled() || MainSingleton.getInstance().isCpuLatencyBenchRunning()) {
-                benchSimd(leds, 0, 0, 0, 0);
+                zoneSums[slot] = r;
+                zoneSums[slot + 1] = g;
+                zoneSums[slot + 2] = b;
             }
-            return leds;
         }
 
         /**
@@ -375,124 +481,66 @@ public class GStreamerGrabber extends JComponent {
          * After all the computations, the results are offered to the queue that contains the avg colors to be
          * sent to the LED strip.
          *
-         * @param width     captured image width
-         * @param height    captured image height
-         * @param rgbBuffer the buffer that bake the captured screen image
+         * @param layout       layout of the captured frame
+         * @param frameSegment mapped memory of the captured frame
+         * @param sampleNanos  monotonic timestamp taken when the GStreamer sample arrived
          */
-        public void rgbFrame(int width, int height, IntBuffer rgbBuffer) {
+        public void rgbFrame(FrameLayout layout, MemorySegment frameSegment, long sampleNanos) {
             // If the EDT is still copying data from the buffer, just drop this frame
             if (!bufferLock.tryLock()) {
+                PipelineEvents.frameDropped(Constants.JFR_DROP_CAPTURE_BUSY);
                 return;
             }
+            PipelineEvents.FrameCaptured capturedEvent = new PipelineEvents.FrameCaptured();
+            capturedEvent.begin();
+            PipelineSettings settings = PipelineSettings.get();
             // CHECK_ASPECT_RATIO is true 4 times per second, if true and black bars auto detection is on, auto detect black bars
-            if (MainSingleton.getInstance().config.isAutoDetectBlackBars()) {
+            if (settings.autoDetectBlackBars()) {
                 if (GrabberSingleton.getInstance().CHECK_ASPECT_RATIO) {
                     GrabberSingleton.getInstance().CHECK_ASPECT_RATIO = false;
-                    ImageProcessor.autodetectBlackBars(width, height, rgbBuffer);
+                    ImageProcessor.autodetectBlackBars(layout.width(), layout.height(), layout, frameSegment);
                 }
             }
             try {
                 if (log.isTraceEnabled()) {
-                    IntBuffer intBufferClone = rgbBuffer.duplicate();
-                    intBufferRgbToImage(intBufferClone);
+                    frameSegmentToImage(frameSegment);
                 }
                 // Process zones and calculate avg colors
-                Color[] leds = processBufferUsingCpu(width, height, rgbBuffer);
-                ImageProcessor.averageOnAllLeds(leds);
+                long zonesStart = System.nanoTime();
+                LedFrame frame = processBufferUsingCpu(settings, layout, frameSegment);
+                ImageProcessor.averageOnAllLeds(frame);
+                frame.setCaptureNanos(sampleNanos);
+                frame.setSequence(FrameSequence.next());
+                LatencyMonitor.ZONES.recordSince(zonesStart);
+                MetricsManager.STAGE_BUSY_ZONES.add(System.nanoTime() - zonesStart);
                 // Put the image in the queue or send it via socket to the main instance server
                 if (!MainSingleton.getInstance().exitTriggered && (!AudioSingleton.getInstance().RUNNING_AUDIO
-                        || Enums.Effect.MUSIC_MODE_BRIGHT.equals(LocalizedEnum.fromBaseStr(Enums.Effect.class, MainSingleton.getInstance().config.getEffect())))) {
-                    if (!MainSingleton.getInstance().config.getSmoothingType().equals(Enums.Smoothing.DISABLED.getBaseI18n()) && MainSingleton.getInstance().config.getFrameInsertionTarget() > 0) {
-                        if (previousFrame != null) {
-                            frameGeneration(leds);
-                        }
+                        || Enums.Effect.MUSIC_MODE_BRIGHT.equals(settings.effect()))) {
+                    if (settings.directPipeline()) {
+                        // Ultra low latency, correct and send on this thread, frame insertion is disabled
+                        PipelineManager.sendDirect(frame);
+                    } else if (settings.frameInsertion()) {
+                        // Inserted frames are rendered by the output clock, the captured frame is the next keyframe
+                        FrameInterpolator.publishKeyframe(frame);
                     } else {
-                        PipelineManager.offerToTheQueue(leds);
+                        PipelineManager.offerToTheQueue(frame);
                     }
                     // Increase the FPS counter
-                    MainSingleton.getInstance().FPS_PRODUCER_COUNTER++;
+                    MetricsManager.FRAMES_PRODUCED.increment();
+                } else {
+                    FramePool.release(frame);
+                }
+                if (capturedEvent.shouldCommit()) {
+                    capturedEvent.width = layout.width();
+                    capturedEvent.height = layout.height();
+                    capturedEvent.widthPlusStride = layout.widthPlusStride();
+                    capturedEvent.commit();
                 }
             } finally {
                 bufferLock.unlock();
             }
         }
 
-        /**
-         * Generate frames between captured frames, inserted frames represents the linear interpolation from the two captured frames.
-         * Higher levels will smooth transitions from one color to another but LEDs will be less responsive to quick changes.
-         *
-         * @param leds array containing color information
-         */
-        void frameGeneration(Color[] leds) {
-            int skipFastFramesMs = 8;
-            int targetFramerate = MainSingleton.getInstance().config.getSmoothingTargetFramerate();
-            int gpuFramerateFps = MainSingleton.getInstance().config.getFrameInsertionTarget();
-            if (targetFramerate == Enums.SmoothingTarget.TARGET_120_FPS.getSmoothingTargetValue()) {
-                skipFastFramesMs /= 2;
-                gpuFramerateFps *= 2;
-            } else if (targetFramerate == Enums.SmoothingTarget.TARGET_30_FPS.getSmoothingTargetValue()) {
-                skipFastFramesMs *= 2;
-                gpuFramerateFps /= 2;
-            }
-            Color[] frameGeneration = new Color[ledMatrix.size()];
-            int totalElapsed = 0;
-            // Framerate we asks to the GPU, less FPS = smoother but less response, more FPS = less smooth but faster to changes.
-            // Total number of frames to compute.
-            int totalFrameToAdd = targetFramerate - gpuFramerateFps;
-            // Number of frames to compute every time a frame is received from the GPU.
-            int frameToCompute = (totalFrameToAdd / gpuFramerateFps);
-            // Total number of frames to render, contains computed framse + GPU frame.
-            int frameToRender = frameToCompute + 1;
-            // GPU frame time (milliseconds) between one GPU frame and the other.
-            int gpuFrameTimeMs = oneSecondMillis / gpuFramerateFps;
-            // Milliseconds available to compute and show a frame, remove some milliseconds to the equation for protocol headroom. frameToCompute + 1 frame computed by the GPU.
-            double frameDistanceMs = ((double) gpuFrameTimeMs / (frameToCompute + 1));
-            // Skip frame if GPU is late and tries to catch up by capturing frames too fast.
-            for (int i = 0; i < frameToRender; i++) {
-                for (int j = 0; j < leds.length; j++) {
-                    final int dRed = leds[j].getRed() - previousFrame[j].getRed();
-                    final int dGreen = leds[j].getGreen() - previousFrame[j].getGreen();
-                    final int dBlue = leds[j].getBlue() - previousFrame[j].getBlue();
-                    Color c = new Color(
-                            previousFrame[j].getRed() + (dRed * i) / frameToCompute,
-                            previousFrame[j].getGreen() + (dGreen * i) / frameToCompute,
-                            previousFrame[j].getBlue() + (dBlue * i) / frameToCompute
-                    );
-                    frameGeneration[j] = c;
-                }
-                long finish = System.currentTimeMillis();
-                if (frameGeneration.length == leds.length) {
-                    long timeElapsed = finish - start;
-                    totalElapsed += (int) timeElapsed;
-                    if (i != 0 && timeElapsed <= skipFastFramesMs) {
-                        log.debug("Frames are coming too fast, GPU is trying to catch up, skipping frame={}, Elapsed={}, TotaleTimeElapsed={}, SkipFastFrames={}", i, timeElapsed, totalElapsed, skipFastFramesMs);
-                        CommonUtility.sleepMilliseconds(skipFastFramesMs);
-                    }
-                    PipelineManager.offerToTheQueue(frameGeneration);
-                    start = System.currentTimeMillis();
-                    double sleepMs = frameDistanceMs;
-                    if (timeElapsed > sleepMs) {
-                        sleepMs -= timeElapsed - sleepMs;
-                    }
-                    sleepMs = Math.max(1, sleepMs - Constants.SMOOTHING_SLOW_FRAME_TOLERANCE);
-                    double maxElasped = (frameDistanceMs * frameToRender);
-                    if (totalElapsed > maxElasped) {
-                        // If GPU is late skip waiting.
-                        log.debug("GPU is late, skip wait on frame #{}, Elapsed={}, TotaleTimeElapsed={}, MaxElasped={}, SkipFastFrames={}, FrameDistanceMs={}", i, timeElapsed, totalElapsed, maxElasped, skipFastFramesMs, frameDistanceMs);
-                        previousFrame = leds.clone();
-                        start = System.currentTimeMillis();
-                        break;
-                    } else {
-                        CommonUtility.sleepMilliseconds((int) sleepMs);
-                    }
-                }
-                if (i == frameToRender - 1) {
-                    start = System.currentTimeMillis();
-                }
-            }
-            previousFrame = leds.clone();
-        }
-
         /**
          * New sample triggered every frame
          *
@@ -501,16 +549,21 @@ public class GStreamerGrabber extends JComponent {
          */
         @Override
         public FlowReturn newSample(AppSink elem) {
+            long sampleNanos = System.nanoTime();
             Sample sample = elem.pullSample();
-            Structure capsStruct = sample.getCaps().getStructure(0);
-            int w = capsStruct.getInteger(Constants.WIDTH);
-            int h = capsStruct.getInteger(Constants.HEIGHT);
             Buffer buffer = sample.getBuffer();
             ByteBuffer bb = buffer.map(false);
             if (bb != null) {
                 try {
-                    rgbFrame(w, h, bb.asIntBuffer());
-                } catch (ArrayIndexOutOfBoundsException ignored) {
+                    // Caps are fixed on the appsink, negotiated width and height can't change without changing the buffer size
+                    if (frameLayout == null || frameLayout.byteSize() != bb.capacity()) {
+                        Structure capsStruct = sample.getCaps().getStructure(0);
+                        frameLayout = FrameLayout.of(capsStruct.getInteger(Constants.WIDTH), capsStruct.getInteger(Constants.HEIGHT), bb.capacity());
+                        log.info("Captured frame: {}x{}, stride: {}", frameLayout.width(), frameLayout.height(), frameLayout.widthPlusStride());
+                    }
+                    // Zero copy, the segment is a view on the mapped GStreamer memory
+                    rgbFrame(frameLayout, MemorySegment.ofBuffer(bb), sampleNanos);
+                } catch (IndexOutOfBoundsException ignored) {
                     // ignoring the out of bound when changing LED num on the fly
                 } finally {
                     buffer.unmap();
@@ -26,7 +26,6 @@ import javafx.scene.control.ButtonType;
 import lombok.extern.slf4j.Slf4j;
 import org.dpsoftware.MainSingleton;
 import org.dpsoftware.NativeExecutor;
-import org.dpsoftware.audio.AudioSingleton;
 import org.dpsoftware.config.Configuration;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
@@ -50,6 +49,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Screen grabbing manager
@@ -113,13 +113,19 @@ public class GrabberManager {
         }
         String finalLinuxParams = linuxParams;
         Gst.getExecutor().scheduleAtFixedRate(() -> {
-            if (!ManagerSingleton.getInstance().pipelineStopping && MainSingleton.getInstance().RUNNING && MainSingleton.getInstance().FPS_PRODUCER_COUNTER == 0) {
+            if (!ManagerSingleton.getInstance().pipelineStopping && MainSingleton.getInstance().RUNNING && MetricsManager.FRAMES_PRODUCED.getWindowCount() == 0) {
                 pipelineRetry.getAndIncrement();
                 if (GrabberSingleton.getInstance().pipe == null || !GrabberSingleton.getInstance().pipe.isPlaying() || pipelineRetry.get() >= 2) {
                     if (GrabberSingleton.getInstance().pipe != null) {
                         log.info("Restarting pipeline");
+                        MetricsManager.PIPELINE_RESTARTS.increment();
                         GrabberSingleton.getInstance().pipe.stop();
                         restartCounter.getAndIncrement();
+                        PipelineEvents.PipelineRestarted restartedEvent = new PipelineEvents.PipelineRestarted();
+                        if (restartedEvent.shouldCommit()) {
+                            restartedEvent.restarts = restartCounter.get();
+                            restartedEvent.commit();
+                        }
                         if (restartCounter.get() >= Constants.MAX_PIPELINE_RESTARTS) {
                             log.error("Pipeline restarted too many times, restarting...");
                             NativeExecutor.restartNativeInstanceWithCurrentProfile();
@@ -175,6 +181,9 @@ public class GrabberManager {
             Gst.invokeLater(vc.getElement()::dispose);
             Gst.invokeLater(GrabberSingleton.getInstance().pipe::dispose);
             GStreamerGrabber.ledMatrix = null;
+            ZonePlan.invalidate();
+            ZoneKernelTuner.reset();
+            FrameInterpolator.reset();
             bin = null;
             vc.videosink = null;
             vc = null;
@@ -184,43 +193,18 @@ public class GrabberManager {
     }
 
     /**
-     * Producers for CPU and WinAPI capturing
+     * Single capture thread for CPU and WinAPI capturing, zones are computed on up to executorNumber threads
      *
-     * @param scheduledExecutorService executor service used to restart grabbing if it fails
-     * @param executorNumber           number of threads to execute standard pipeline
+     * @param executorNumber max number of threads used to compute the zones
      * @throws AWTException GUI exception
      */
-    public void launchStandardGrabber(ScheduledExecutorService scheduledExecutorService, int executorNumber) throws AWTException {
+    public void launchStandardGrabber(int executorNumber) throws AWTException {
         Robot robot = null;
-        for (int i = 0; i < executorNumber; i++) {
-            // One AWT Robot instance every 3 threads seems to be the sweet spot for performance/memory.
-            if (!(MainSingleton.getInstance().config.getCaptureMethod().equals(Configuration.CaptureMethod.WinAPI.name())) && i % 3 == 0) {
-                robot = new Robot();
-                log.info(CommonUtility.getWord(Constants.SPAWNING_ROBOTS));
-            }
-            Robot finalRobot = robot;
-            // No need for completablefuture here, we wrote the queue with a producer and we forget it
-            scheduledExecutorService.scheduleAtFixedRate(() -> {
-                if (MainSingleton.getInstance().RUNNING) {
-                    producerTask(finalRobot);
-                }
-            }, 0, 25, TimeUnit.MILLISECONDS);
-        }
-    }
-
-    /**
-     * Write Serial Stream to the Serial Output
-     *
-     * @param robot an AWT Robot instance for screen capture.
-     *              One instance every three threads seems to be the hot spot for performance.
-     */
-    private void producerTask(Robot robot) {
-        if (!AudioSingleton.getInstance().RUNNING_AUDIO || Enums.Effect.MUSIC_MODE_BRIGHT.getBaseI18n().equals(MainSingleton.getInstance().config.getEffect())
-                || Enums.Effect.MUSIC_MODE_RAINBOW.getBaseI18n().equals(MainSingleton.getInstance().config.getEffect())) {
-            PipelineManager.offerToTheQueue(ImageProcessor.getColors(robot, null));
-            MainSingleton.getInstance().FPS_PRODUCER_COUNTER++;
+        if (!(MainSingleton.getInstance().config.getCaptureMethod().equals(Configuration.CaptureMethod.WinAPI.name()))) {
+            robot = new Robot();
+            log.info(CommonUtility.getWord(Constants.SPAWNING_ROBOTS));
         }
-        //System.gc(); // uncomment when hammering the JVM
+        new CpuCaptureEngine(robot, executorNumber).start();
     }
 
     /**
@@ -229,17 +213,26 @@ public class GrabberManager {
     public void getFPS() {
         AtomicInteger framerateAlert = new AtomicInteger();
         AtomicBoolean notified = new AtomicBoolean(false);
+        AtomicLong lastDroppedFrames = new AtomicLong();
         ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(1);
         Runnable framerateTask = () -> {
-            if (MainSingleton.getInstance().FPS_PRODUCER_COUNTER > 0 || MainSingleton.getInstance().FPS_CONSUMER_COUNTER > 0) {
+            if (MainSingleton.getInstance().frameMailbox != null) {
+                long droppedFrames = MainSingleton.getInstance().frameMailbox.getDroppedFrames();
+                MainSingleton.getInstance().FPS_DROPPED = (droppedFrames - lastDroppedFrames.getAndSet(droppedFrames)) / 5F;
+            }
+            LatencyMonitor.snapshot();
+            boolean framesInWindow = MetricsManager.FRAMES_PRODUCED.getWindowCount() > 0 || MetricsManager.FRAMES_CONSUMED.getWindowCount() > 0;
+            MetricsManager.tick(5);
+            if (framesInWindow) {
                 if (CommonUtility.isSingleDeviceOtherInstance() && MainSingleton.getInstance().config.getEffect().contains(Constants.MUSIC_MODE)) {
                     MainSingleton.getInstance().FPS_PRODUCER = MainSingleton.getInstance().FPS_GW_CONSUMER;
                 } else {
-                    MainSingleton.getInstance().FPS_PRODUCER = MainSingleton.getInstance().FPS_PRODUCER_COUNTER / 5;
+                    MainSingleton.getInstance().FPS_PRODUCER = MetricsManager.FRAMES_PRODUCED.getRate();
                 }
-                MainSingleton.getInstance().FPS_CONSUMER = MainSingleton.getInstance().FPS_CONSUMER_COUNTER / 5;
-                log.trace(" --* Producing @ {} FPS *--  --* Consuming @ {} FPS *-- ", MainSingleton.getInstance().FPS_PRODUCER, MainSingleton.getInstance().FPS_GW_CONSUMER);
-                MainSingleton.getInstance().FPS_CONSUMER_COUNTER = MainSingleton.getInstance().FPS_PRODUCER_COUNTER = 0;
+                MainSingleton.getInstance().FPS_CONSUMER = MetricsManager.FRAMES_CONSUMED.getRate();
+                log.trace(" --* Producing @ {} FPS *--  --* Consuming @ {} FPS *--  --* Dropping @ {} FPS *-- ", MainSingleton.getInstance().FPS_PRODUCER,
+                        MainSingleton.getInstance().FPS_GW_CONSUMER, MainSingleton.getInstance().FPS_DROPPED);
+                log.trace(" --* Latency {} *-- ", LatencyMonitor.CAPTURE_TO_WIRE.getLastSnapshot().format());
             } else {
                 MainSingleton.getInstance().FPS_PRODUCER = MainSingleton.getInstance().FPS_CONSUMER = 0;
             }
@@ -249,6 +242,7 @@ public class GrabberManager {
                     MqttFramerateDto mqttFramerateDto = new MqttFramerateDto();
                     mqttFramerateDto.setProducing(String.valueOf(MainSingleton.getInstance().FPS_PRODUCER));
                     mqttFramerateDto.setConsuming(String.valueOf(MainSingleton.getInstance().FPS_CONSUMER));
+                    mqttFramerateDto.setLatency(LatencyMonitor.getLastSnapshots());
                     mqttFramerateDto.setEffect(MainSingleton.getInstance().config.getEffect());
                     mqttFramerateDto.setColorMode(String.valueOf(Enums.ColorMode.values()[MainSingleton.getInstance().config.getColorMode() - 1].getBaseI18n()));
                     mqttFramerateDto.setAspectRatio(MainSingleton.getInstance().config.isAutoDetectBlackBars() ?
@@ -31,7 +31,8 @@ import org.dpsoftware.NativeExecutor;
 import org.dpsoftware.config.Configuration;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
-import org.dpsoftware.gui.elements.Satellite;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.managers.MetricsManager;
 import org.dpsoftware.managers.NetworkManager;
 import org.dpsoftware.managers.dto.HSLColor;
 import org.dpsoftware.utilities.ColorUtilities;
@@ -39,12 +40,12 @@ import org.dpsoftware.utilities.CommonUtility;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.File;
-import java.nio.IntBuffer;
+import java.lang.foreign.MemorySegment;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.LinkedHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -89,18 +90,22 @@ public class ImageProcessor {
     }
 
     /**
-     * Screen Capture and analysis
+     * Screen Capture and analysis, it must be called by a single capture thread
      *
-     * @param robot an AWT Robot instance for screen capture.
-     *              One instance every three threads seems to be the hot spot for performance.
-     * @param image screenshot image
-     * @return array of LEDs containing the avg color to be displayed on the LED strip
-     */
-    public static Color[] getColors(Robot robot, BufferedImage image) {
+     * @param robot       an AWT Robot instance for screen capture
+     * @param image       screenshot image
+     * @param zoneThreads max number of threads used to compute the zones
+     * @return frame containing the avg color to be displayed on the LED strip
+     */
+    public static LedFrame getColors(Robot robot, BufferedImage image, int zoneThreads) {
+        long captureNanos = System.nanoTime();
+        long sequence = FrameSequence.next();
+        ColorCorrectionLut.refresh();
+        PipelineSettings settings = PipelineSettings.get();
         // Choose between CPU and GPU acceleration
         if (image == null) {
-            if (MainSingleton.getInstance().config.getCaptureMethod().equals(Configuration.CaptureMethod.WinAPI.name())) {
-                GrabberSingleton.getInstance().screen = GrabberSingleton.getInstance().customGDI32Util.getScreenshot();
+            if (settings.captureMethod() == Configuration.CaptureMethod.WinAPI) {
+                GrabberSingleton.getInstance().screen = GrabberSingleton.getInstance().customGDI32Util.getScreenshotReusingRaster();
             } else {
                 GrabberSingleton.getInstance().screen = robot.createScreenCapture(GrabberSingleton.getInstance().rect);
             }
@@ -110,85 +115,127 @@ public class ImageProcessor {
         }
 
         // CHECK_ASPECT_RATIO is true 10 times per second, if true and black bars auto detection is on, auto detect black bars
-        if (MainSingleton.getInstance().config.isAutoDetectBlackBars()) {
+        if (settings.autoDetectBlackBars()) {
             if (GrabberSingleton.getInstance().CHECK_ASPECT_RATIO) {
                 GrabberSingleton.getInstance().CHECK_ASPECT_RATIO = false;
-                ImageProcessor.autodetectBlackBars(GrabberSingleton.getInstance().screen.getWidth(), GrabberSingleton.getInstance().screen.getHeight(), null);
+                ImageProcessor.autodetectBlackBars(GrabberSingleton.getInstance().screen.getWidth(), GrabberSingleton.getInstance().screen.getHeight(), null, null);
                 GrabberSingleton.getInstance().ledMatrix = MainSingleton.getInstance().config.getLedMatrixInUse(MainSingleton.getInstance().config.getDefaultLedMatrix());
             }
         }
 
         int osScaling = MainSingleton.getInstance().config.getOsScaling();
-        Color[] leds = new Color[GrabberSingleton.getInstance().ledMatrix.size()];
+        LedFrame frame = FramePool.acquire(GrabberSingleton.getInstance().ledMatrix.size());
+        frame.setCaptureNanos(captureNanos);
+        frame.setSequence(sequence);
+        int[] leds = frame.getRgb();
 
-        // We need an ordered collection so no parallelStream here
-        GrabberSingleton.getInstance().ledMatrix.forEach((key, value) ->
-                leds[key - 1] = getAverageColor(value, osScaling)
-        );
-        averageOnAllLeds(leds);
-        return leds;
+        long zonesStart = System.nanoTime();
+        getAverageColors(GrabberSingleton.getInstance().ledMatrix, osScaling, false, leds, zoneThreads);
+        averageOnAllLeds(frame);
+        LatencyMonitor.ZONES.recordSince(zonesStart);
+        MetricsManager.STAGE_BUSY_ZONES.add(System.nanoTime() - zonesStart);
+        return frame;
     }
 
     /**
      * Set the average color on all leds
      *
-     * @param leds color array
+     * @param frame frame to average
      */
-    public static void averageOnAllLeds(Color[] leds) {
-        if (Enums.Algo.AVG_ALL_COLOR.getBaseI18n().equals(MainSingleton.getInstance().config.getAlgo())) {
-            Color avgColor = ImageProcessor.getAverageForAllZones(leds, 0, leds.length);
-            Arrays.fill(leds, avgColor);
+    public static void averageOnAllLeds(LedFrame frame) {
+        if (PipelineSettings.get().avgAllColor()) {
+            frame.fill(ImageProcessor.getAverageForAllZones(frame.getRgb(), 0, frame.getLedNum()));
         }
     }
 
     /**
-     * Get the average color from the screen buffer section
+     * Get the average color of every zone from the screen buffer
      *
-     * @param ledCoordinate led X,Y coordinates
-     * @param osScaling     OS scaling percentage
-     * @return the average color
+     * @param ledMatrix            LED matrix in use
+     * @param osScaling            OS scaling percentage
+     * @param getAverageScreenshot if the buffer comes from a screenshot, apply os scaling
+     * @param leds                 array that will contain the average colors, packed as 0xRRGGBB
      */
-    public static Color getAverageColor(LEDCoordinate ledCoordinate, int osScaling) {
-        return getAverageColor(ledCoordinate, osScaling, false);
+    public static void getAverageColors(LinkedHashMap<Integer, LEDCoordinate> ledMatrix, int osScaling, boolean getAverageScreenshot, int[] leds) {
+        getAverageColors(ledMatrix, osScaling, getAverageScreenshot, leds, 1);
     }
 
     /**
-     * Get the average color from the screen buffer section
-     * captured by a screenshot
+     * Get the average color of every zone from the screen buffer.
+     * Pixels are read straight from the packed int raster of the screenshot, no getRGB() and no Color per pixel,
+     * zones are fanned out to the zone workers when the workload is big enough.
      *
-     * @param ledCoordinate        led X,Y coordinates
+     * @param ledMatrix            LED matrix in use
      * @param osScaling            OS scaling percentage
      * @param getAverageScreenshot if the buffer comes from a screenshot, apply os scaling
-     * @return the average color
-     */
-    public static Color getAverageColor(LEDCoordinate ledCoordinate, int osScaling, boolean getAverageScreenshot) {
-        int r = 0, g = 0, b = 0;
-        int pickNumber = 0;
-        int width = GrabberSingleton.getInstance().screen.getWidth() - 1;
-        int height = GrabberSingleton.getInstance().screen.getHeight() - 1;
-        int xCoordinate;
-        int yCoordinate;
-        if (getAverageScreenshot || MainSingleton.getInstance().config.getCaptureMethod().equals(Configuration.CaptureMethod.CPU.name())) {
-            xCoordinate = ((ledCoordinate.getX() * 100) / osScaling);
-            yCoordinate = ((ledCoordinate.getY() * 100) / osScaling);
-        } else {
-            xCoordinate = ledCoordinate.getX();
-            yCoordinate = ledCoordinate.getY();
-        }
-        // We start with a negative offset
-        for (int x = 0; x < ledCoordinate.getWidth(); x++) {
-            for (int y = 0; y < ledCoordinate.getHeight(); y++) {
-                int offsetX = (xCoordinate + x);
-                int offsetY = (yCoordinate + y);
-                int rgb = GrabberSingleton.getInstance().screen.getRGB(Math.min(offsetX, width), Math.min(offsetY, height));
-                Color color = new Color(rgb);
-                r += color.getRed();
-                g += color.getGreen();
-                b += color.getBlue();
-                pickNumber++;
+     * @param leds                 array that will contain the average colors, packed as 0xRRGGBB
+     * @param zoneThreads          max number of threads used to compute the zones
+     */
+    public static void getAverageColors(LinkedHashMap<Integer, LEDCoordinate> ledMatrix, int osScaling, boolean getAverageScreenshot, int[] leds, int zoneThreads) {
+        BufferedImage screen = GrabberSingleton.getInstance().screen;
+        int width = screen.getWidth() - 1;
+        int height = screen.getHeight() - 1;
+        boolean scaleCoordinates = getAverageScreenshot || PipelineSettings.get().captureMethod() == Configuration.CaptureMethod.CPU;
+        ZonePlan plan = ZonePlan.forScreenshot(ledMatrix, osScaling, scaleCoordinates, width, height);
+        ScreenRaster raster = ScreenRaster.of(screen);
+        int threads = Math.min(Math.max(1, zoneThreads), ParallelZoneEngine.threadsFor(plan));
+        ParallelZoneEngine.compute(plan, threads, (from, to) -> {
+            for (int z = from; z < to; z++) {
+                int i = plan.zones[z];
+                int r = 0, g = 0, b = 0;
+                int pickNumber = 0;
+                // Row by row, pixels outside the screen are clamped to the last row/column
+                for (int y = plan.y0[i]; y < plan.y1[i]; y++) {
+                    int row = raster.offset() + Math.min(y, height) * raster.stride();
+                    for (int x = plan.x0[i]; x < plan.x1[i]; x++) {
+                        int rgb = raster.pixels()[row + Math.min(x, width)];
+                        r += ColorUtilities.red(rgb);
+                        g += ColorUtilities.green(rgb);
+                        b += ColorUtilities.blue(rgb);
+                        pickNumber++;
+                    }
+                }
+                leds[i] = correctColors(r, g, b, pickNumber, plan.active[i]);
             }
+        }, false);
+    }
+
+    /**
+     * Packed 0xRRGGBB pixels of a screenshot
+     *
+     * @param pixels pixels array, it's the image raster when possible
+     * @param offset index of the first pixel
+     * @param stride distance between two rows
+     */
+    record ScreenRaster(int[] pixels, int offset, int stride) {
+
+        /**
+         * Access the pixels of an image, Robot and GDI screenshots are backed by a packed int raster that is read
+         * in place, other images are copied once
+         *
+         * @param image screenshot
+         * @return pixels of the image
+         */
+        static ScreenRaster of(BufferedImage image) {
+            if (!image.isAlphaPremultiplied() && image.getRaster().getDataBuffer() instanceof DataBufferInt dataBuffer && dataBuffer.getNumBanks() == 1
+                    && image.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel
+                    && image.getRaster().getParent() == null && isRgbMasks(sampleModel.getBitMasks())) {
+                return new ScreenRaster(dataBuffer.getData(), dataBuffer.getOffset(), sampleModel.getScanlineStride());
+            }
+            int width = image.getWidth();
+            return new ScreenRaster(image.getRGB(0, 0, width, image.getHeight(), null, 0, width), 0, width);
+        }
+
+        /**
+         * Check if the raster stores red, green and blue where ColorUtilities expects them
+         *
+         * @param masks bit masks of the sample model
+         * @return true if the pixels are 0x(AA)RRGGBB
+         */
+        private static boolean isRgbMasks(int[] masks) {
+            return masks.length >= 3 && masks[0] == 0xFF0000 && masks[1] == 0xFF00 && masks[2] == 0xFF;
         }
-        return correctColors(r, g, b, pickNumber, ledCoordinate.isActive());
+
     }
 
     /**
@@ -198,21 +245,58 @@ public class ImageProcessor {
      * - HSL correction
      * - Don't turn LED off (eye care)
      * - Brightness limiter to limit strobo effect
+     * Corrections are read from the precomputed LUT when available, computed on the fly while the LUT is rebuilt.
      *
      * @param r          avg red channel
      * @param g          avg green channel
      * @param b          avg blue channel
      * @param pickNumber number of computed pixel, used to get the avg
      * @param active     if led is active
-     * @return corrected color
+     * @return corrected color, packed as 0xRRGGBB
      */
-    public static Color correctColors(int r, int g, int b, int pickNumber, boolean active) {
+    public static int correctColors(int r, int g, int b, int pickNumber, boolean active) {
         // AVG colors inside the tile, no need for the square root here since we calculate the gamma later
-        Color adjusted = new Color(r / pickNumber, g / pickNumber, b / pickNumber);
+        r /= pickNumber;
+        g /= pickNumber;
+        b /= pickNumber;
+        int[] lut = ColorCorrectionLut.getTable();
+        int adjusted = lut != null ? applyExactCorrections(ColorCorrectionLut.lookup(lut, r, g, b)) : applyColorCorrection(ColorUtilities.packRgb(r, g, b));
+        // Inactive LEDs are turned off only when the brightness limiter is disabled
+        if (!active && PipelineSettings.get().brightnessLimiter() == 1.0F) adjusted = 0;
+        return adjusted;
+    }
+
+    /**
+     * Apply HSL correction, gamma, luminosity threshold, night light and brightness limiter to a color.
+     *
+     * @param color packed color to correct
+     * @return corrected color, packed as 0xRRGGBB
+     */
+    public static int applyColorCorrection(int color) {
+        return applyExactCorrections(applySmoothCorrections(color));
+    }
+
+    /**
+     * Apply HSL correction and gamma to a color, these corrections are baked in the color correction LUT
+     *
+     * @param color packed color to correct
+     * @return corrected color, packed as 0xRRGGBB
+     */
+    public static int applySmoothCorrections(int color) {
         // Saturate colors and shift bits if needed, apply HSL correcction
-        adjusted = manageColors(adjusted);
+        int adjusted = manageColors(color);
         // Apply gamma correction
-        adjusted = gammaCorrection(adjusted);
+        return gammaCorrection(adjusted);
+    }
+
+    /**
+     * Apply luminosity threshold, night light and brightness limiter to a color.
+     * These corrections have hard thresholds that an interpolated LUT can't reproduce, so they are always computed.
+     *
+     * @param adjusted packed color with the smooth corrections applied
+     * @return corrected color, packed as 0xRRGGBB
+     */
+    public static int applyExactCorrections(int adjusted) {
         if (MainSingleton.getInstance().config.getLuminosityThreshold() != 0) {
             adjusted = adjustLuminosityThreshold(adjusted, MainSingleton.getInstance().config.getLuminosityThreshold() / 100.0f);
         }
@@ -233,30 +317,29 @@ public class ImageProcessor {
         }
         // Brightness limiter to limit strobo effect
         if (MainSingleton.getInstance().config.getBrightnessLimiter() != 1.0F) {
-            float[] brightnessLimitedRGB = ColorUtilities.RGBtoHSL(adjusted, null);
+            float[] brightnessLimitedRGB = ColorUtilities.RGBtoHSL(ColorUtilities.red(adjusted), ColorUtilities.green(adjusted), ColorUtilities.blue(adjusted), null);
             if (brightnessLimitedRGB[2] >= MainSingleton.getInstance().config.getBrightnessLimiter()) {
                 brightnessLimitedRGB[2] = MainSingleton.getInstance().config.getBrightnessLimiter();
             }
-            return ColorUtilities.HSLtoRGB(brightnessLimitedRGB[0], brightnessLimitedRGB[1], brightnessLimitedRGB[2]);
+            return ColorUtilities.HSLtoPackedRGB(brightnessLimitedRGB[0], brightnessLimitedRGB[1], brightnessLimitedRGB[2]);
         }
-        if (!active) adjusted = new Color(0, 0, 0);
         return adjusted;
     }
 
     /**
      * Night light correction
      *
-     * @param color          RGB color
+     * @param color          packed RGB color
      * @param blueReduction  blue reduction
      * @param redBoost       red boost
      * @param greenReduction green reduction
-     * @return color
+     * @return packed color
      */
-    public static Color removeBlueAndMakeItWarm(Color color, double blueReduction, double redBoost, double greenReduction) {
+    public static int removeBlueAndMakeItWarm(int color, double blueReduction, double redBoost, double greenReduction) {
         // Get normalized RGB components (0-1)
-        double r = color.getRed() / 255.0;
-        double g = color.getGreen() / 255.0;
-        double b = color.getBlue() / 255.0;
+        double r = ColorUtilities.red(color) / 255.0;
+        double g = ColorUtilities.green(color) / 255.0;
+        double b = ColorUtilities.blue(color) / 255.0;
         // Remove almost all blue
         b *= (1 - blueReduction);
         // If the color is bright, make it much warmer
@@ -266,7 +349,7 @@ public class ImageProcessor {
             g = Math.max(0.0, g - greenReduction); // Reduce green to prevent greenish tint
         }
         // Convert back to 0-255 values
-        return new Color(
+        return ColorUtilities.packRgb(
                 (int) (r * 255),
                 (int) (g * 255),
                 (int) (b * 255)
@@ -276,45 +359,45 @@ public class ImageProcessor {
     /**
      * If the color is too dark, increase its brightness
      *
-     * @param color         RGB color
+     * @param color         packed RGB color
      * @param minBrightness minimum brightness
-     * @return color
+     * @return packed color
      */
-    public static Color adjustLuminosityThreshold(Color color, float minBrightness) {
-        float[] hsb = Color.RGBtoHSB(color.getRed(), color.getGreen(), color.getBlue(), null);
+    public static int adjustLuminosityThreshold(int color, float minBrightness) {
+        float[] hsb = Color.RGBtoHSB(ColorUtilities.red(color), ColorUtilities.green(color), ColorUtilities.blue(color), null);
         if (hsb[2] < minBrightness) {
             hsb[2] = minBrightness;
         }
-        return Color.getHSBColor(hsb[0], hsb[1], hsb[2]);
+        return Color.HSBtoRGB(hsb[0], hsb[1], hsb[2]) & 0xFFFFFF;
     }
 
     /**
      * Adjust gamma based on a given color
      *
-     * @param color the color to adjust
-     * @return the average color
-     */
-    public static Color gammaCorrection(Color color) {
-        return new Color(
-                (int) (255.0 * Math.pow((color.getRed() / 255.0), MainSingleton.getInstance().config.getGamma())),
-                (int) (255.0 * Math.pow((color.getGreen() / 255.0), MainSingleton.getInstance().config.getGamma())),
-                (int) (255.0 * Math.pow((color.getBlue() / 255.0), MainSingleton.getInstance().config.getGamma()))
+     * @param color the packed color to adjust
+     * @return the packed color
+     */
+    public static int gammaCorrection(int color) {
+        return ColorUtilities.packRgb(
+                (int) (255.0 * Math.pow((ColorUtilities.red(color) / 255.0), MainSingleton.getInstance().config.getGamma())),
+                (int) (255.0 * Math.pow((ColorUtilities.green(color) / 255.0), MainSingleton.getInstance().config.getGamma())),
+                (int) (255.0 * Math.pow((ColorUtilities.blue(color) / 255.0), MainSingleton.getInstance().config.getGamma()))
         );
     }
 
     /**
      * Auto detect black bars when screen grabbing, set Fullscreen, Letterbox or Pillarbox accordingly
      *
-     * @param width     screen width with scale ratio
-     * @param height    screen height with scale ratio
-     * @param rgbBuffer full screen captured buffer
+     * @param width        screen width with scale ratio
+     * @param height       screen height with scale ratio
+     * @param layout       layout of the captured frame, null when using the screenshot
+     * @param frameSegment mapped memory of the captured frame, null when using the screenshot
      */
-    public static void autodetectBlackBars(int width, int height, IntBuffer rgbBuffer) {
-        int intBufferSize = (width * height) - 1;
+    public static void autodetectBlackBars(int width, int height, FrameLayout layout, MemorySegment frameSegment) {
         int[][] blackPixelMatrix;
-        blackPixelMatrix = calculateBlackPixels(Enums.AspectRatio.LETTERBOX, width, height, intBufferSize, rgbBuffer);
+        blackPixelMatrix = calculateBlackPixels(Enums.AspectRatio.LETTERBOX, width, height, layout, frameSegment);
         boolean letterbox = switchAspectRatio(Enums.AspectRatio.LETTERBOX, blackPixelMatrix);
-        blackPixelMatrix = calculateBlackPixels(Enums.AspectRatio.PILLARBOX, width, height, intBufferSize, rgbBuffer);
+        blackPixelMatrix = calculateBlackPixels(Enums.AspectRatio.PILLARBOX, width, height, layout, frameSegment);
         boolean pillarbox = false;
         if (!letterbox) {
             pillarbox = switchAspectRatio(Enums.AspectRatio.PILLARBOX, blackPixelMatrix);
@@ -352,6 +435,11 @@ public class ImageProcessor {
         MainSingleton.getInstance().config.setDefaultLedMatrix(aspectRatio.getBaseI18n());
         GStreamerGrabber.ledMatrix = MainSingleton.getInstance().config.getLedMatrixInUse(aspectRatio.getBaseI18n());
         log.info("Switching to {} aspect ratio (confirmed).", aspectRatio.getBaseI18n());
+        PipelineEvents.AspectRatioSwitched switchedEvent = new PipelineEvents.AspectRatioSwitched();
+        if (switchedEvent.shouldCommit()) {
+            switchedEvent.aspectRatio = aspectRatio.getBaseI18n();
+            switchedEvent.commit();
+        }
         if (MainSingleton.getInstance().config.isMqttEnable()) {
             NetworkManager.publishToTopic(NetworkManager.getTopic(Constants.TOPIC_ASPECT_RATIO), aspectRatio.getBaseI18n());
         }
@@ -360,14 +448,14 @@ public class ImageProcessor {
     /**
      * Calculate black pixels and put it into an array, works for every supported aspect ratios
      *
-     * @param aspectRatio   If not Letterbox is Pillarbox
-     * @param width         screen width with scale ratio
-     * @param height        screen height with scale ratio
-     * @param intBufferSize buffer size
-     * @param rgbBuffer     full screen captured buffer
+     * @param aspectRatio  If not Letterbox is Pillarbox
+     * @param width        screen width with scale ratio
+     * @param height       screen height with scale ratio
+     * @param layout       layout of the captured frame, null when using the screenshot
+     * @param frameSegment mapped memory of the captured frame, null when using the screenshot
      * @return black pixels array, 0 for light pixel, 1 for black pixel
      */
-    static int[][] calculateBlackPixels(Enums.AspectRatio aspectRatio, int width, int height, int intBufferSize, IntBuffer rgbBuffer) {
+    static int[][] calculateBlackPixels(Enums.AspectRatio aspectRatio, int width, int height, FrameLayout layout, MemorySegment frameSegment) {
         int[][] blackPixelMatrix = new int[3][Constants.NUMBER_OF_AREA_TO_CHECK];
         int offsetX;
         int offsetY;
@@ -400,20 +488,19 @@ public class ImageProcessor {
             }
             int r, g, b;
             // DUPL
-            if (rgbBuffer != null) {
-                int widthPlusStride = getWidthPlusStride(width, height, rgbBuffer);
+            if (frameSegment != null) {
+                int widthPlusStride = layout.widthPlusStride();
                 int bufferOffset = (Math.min(offsetX, widthPlusStride))
                         + ((offsetY < height) ? (offsetY * widthPlusStride) : (height * widthPlusStride));
-                int rgb = rgbBuffer.get(Math.min(intBufferSize, bufferOffset));
+                int rgb = frameSegment.getAtIndex(FrameLayout.PIXEL, Math.min(layout.lastPixel(), bufferOffset));
                 r = rgb >> 16 & 0xFF;
                 g = rgb >> 8 & 0xFF;
                 b = rgb & 0xFF;
             } else { // Other methods
                 int rgb = GrabberSingleton.getInstance().screen.getRGB(Math.min(offsetX, width), Math.min(offsetY, height));
-                Color color = new Color(rgb);
-                r = color.getRed();
-                g = color.getGreen();
-                b = color.getBlue();
+                r = ColorUtilities.red(rgb);
+                g = ColorUtilities.green(rgb);
+                b = ColorUtilities.blue(rgb);
             }
             if (r <= Constants.DEEP_BLACK_CHANNEL_TOLERANCE && g <= Constants.DEEP_BLACK_CHANNEL_TOLERANCE && b <= Constants.DEEP_BLACK_CHANNEL_TOLERANCE) {
                 blackPixelMatrix[j][columnRowIndex] = 1;
@@ -485,12 +572,12 @@ public class ImageProcessor {
     /**
      * Hue Saturation and Lightness management
      *
-     * @param color color to manage
-     * @return RGB integer, needs bit shifting
+     * @param color packed color to manage
+     * @return packed RGB integer
      */
     @SuppressWarnings("all")
-    public static Color manageColors(Color color) {
-        float[] hsl = ColorUtilities.RGBtoHSL(color, null);
+    public static int manageColors(int color) {
+        float[] hsl = ColorUtilities.RGBtoHSL(ColorUtilities.red(color), ColorUtilities.green(color), ColorUtilities.blue(color), null);
         // Current color without corrections
         HSLColor hslColor = new HSLColor();
         hslColor.setHue(hsl[0]);
@@ -536,7 +623,7 @@ public class ImageProcessor {
             if (hueToUse < 0.0F) {
                 hueToUse = 1.0F + hueToUse; // hueToUse is a negative value, I add it to subtract to hueToUse
             }
-            return ColorUtilities.HSLtoRGB(hueToUse, hslCorrectedColor.getSaturation() != null ? hslCorrectedColor.getSaturation() : hslColor.getSaturation(),
+            return ColorUtilities.HSLtoPackedRGB(hueToUse, hslCorrectedColor.getSaturation() != null ? hslCorrectedColor.getSaturation() : hslColor.getSaturation(),
                     hslCorrectedColor.getLightness() != null ? hslCorrectedColor.getLightness() : hslColor.getLightness());
         }
         return color;
@@ -622,109 +709,25 @@ public class ImageProcessor {
         return valueToUse;
     }
 
-    /**
-     * Add N colors for every Zone
-     *
-     * @param leds       array of colors to send
-     * @param sat        satellite where to send colors
-     * @param zoneDetail record with start end position
-     * @return color array
-     */
-    public static java.util.List<Color> padColors(Color[] leds, Satellite sat, LEDCoordinate.getStartEndLeds zoneDetail) {
-        int zoneStart = zoneDetail.start() - 1;
-        int zoneNumLed = (zoneDetail.end() - zoneDetail.start()) + 1;
-        int satNumLed = Integer.parseInt(sat.getLedNum());
-        List<Color> clonedLeds;
-        clonedLeds = new LinkedList<>();
-        int multiplier = (int) Math.abs((double) satNumLed / zoneNumLed);
-        for (int lIdx = 0; lIdx < zoneNumLed; lIdx++) {
-            clonedLeds.add(leds[zoneStart + lIdx]);
-            for (int j = 0; j < multiplier - 1; j++) {
-                clonedLeds.add(leds[zoneStart + lIdx]);
-            }
-        }
-        return addLeds(satNumLed, clonedLeds);
-    }
-
-    /**
-     * Add colors on the head and the tail of the color list
-     *
-     * @param satNumLed  max number of LEDs on the satellite
-     * @param clonedLeds array to use for the satellite
-     * @return color array
-     */
-    private static List<Color> addLeds(int satNumLed, List<Color> clonedLeds) {
-        int colorToAdd = satNumLed - clonedLeds.size();
-        int colorAdded = 0;
-        if (colorToAdd > 0) {
-            int addEveryLed = Math.abs(clonedLeds.size() / colorToAdd);
-            int addIdx = 0;
-            ListIterator<Color> iterator = clonedLeds.listIterator();
-            while (iterator.hasNext() && colorAdded < colorToAdd) {
-                Color c = iterator.next();
-                if (addIdx == addEveryLed) {
-                    colorAdded++;
-                    iterator.add(c);
-                    addIdx = 0;
-                }
-                addIdx++;
-            }
-            for (int i = clonedLeds.size(); i < satNumLed; i++) {
-                clonedLeds.add(clonedLeds.getLast());
-            }
-        }
-        return clonedLeds;
-    }
-
-    /**
-     * When a satellite has less LEDs than the number of captured zones, reduce colors on the array
-     *
-     * @param leds       array of colors to send
-     * @param sat        satellite where to send colors
-     * @param zoneDetail record with start end position
-     * @return reduced array
-     */
-    public static java.util.List<Color> reduceColors(Color[] leds, Satellite sat, LEDCoordinate.getStartEndLeds zoneDetail) {
-        int zoneStart = zoneDetail.start() - 1;
-        int zoneNumLed = (zoneDetail.end() - zoneDetail.start()) + 1;
-        int satNumLed = Integer.parseInt(sat.getLedNum());
-        List<Color> clonedLeds;
-        clonedLeds = new LinkedList<>();
-        int divider = (int) Math.ceil((double) zoneNumLed / satNumLed);
-        int r = 0, g = 0, b = 0;
-        for (int i = 0; i < zoneNumLed; i++) {
-            r += leds[zoneStart + i].getRed();
-            g += leds[zoneStart + i].getGreen();
-            b += leds[zoneStart + i].getBlue();
-            if (i % divider == 0) {
-                clonedLeds.add(new Color(r / divider, g / divider, b / divider));
-                r = 0;
-                g = 0;
-                b = 0;
-            }
-        }
-        return addLeds(satNumLed, clonedLeds);
-    }
-
     /**
      * Returns an array of colors containing the average for all zones
      *
-     * @param leds      original array of colors
+     * @param leds      original packed colors
      * @param zoneStart captured zone, start
      * @param zoneEnd   captured zone, end
-     * @return avg color from every capture zones
+     * @return packed avg color from every capture zones
      */
-    public static Color getAverageForAllZones(Color[] leds, int zoneStart, int zoneEnd) {
+    public static int getAverageForAllZones(int[] leds, int zoneStart, int zoneEnd) {
         int rAccumulator = 0;
         int gAccumulator = 0;
         int bAccumulator = 0;
         for (int i = zoneStart; i < zoneEnd; i++) {
-            rAccumulator += leds[i].getRed();
-            gAccumulator += leds[i].getGreen();
-            bAccumulator += leds[i].getBlue();
+            rAccumulator += ColorUtilities.red(leds[i]);
+            gAccumulator += ColorUtilities.green(leds[i]);
+            bAccumulator += ColorUtilities.blue(leds[i]);
         }
         int zoneNum = (zoneEnd - zoneStart) + 1;
-        return new Color(rAccumulator / zoneNum,
+        return ColorUtilities.packRgb(rAccumulator / zoneNum,
                 gAccumulator / zoneNum,
                 bAccumulator / zoneNum);
     }
@@ -746,34 +749,36 @@ public class ImageProcessor {
      * A high β (e.g., 0.5 - 0.7) → Faster adaptation (better for gaming or fast motion).
      * By tuning β, you can adjust the balance between smoothness and responsiveness.
      *
-     * @param leds leds array that will be sent to the strip
+     * @param frame frame that will be sent to the strip
      */
-    public static void exponentialMovingAverage(Color[] leds) {
-        if (!MainSingleton.getInstance().config.getSmoothingType().equals(Enums.Smoothing.DISABLED.getBaseI18n())) {
-            float alpha = MainSingleton.getInstance().config.getEmaAlpha();
+    public static void exponentialMovingAverage(LedFrame frame) {
+        PipelineSettings settings = PipelineSettings.get();
+        if (settings.smoothingEnabled()) {
+            float alpha = settings.emaAlpha();
             if (alpha <= 0f || alpha >= 1f) {
                 return;
             }
-            int numLeds = leds.length;
+            int[] leds = frame.getRgb();
+            int numLeds = frame.getLedNum();
             if (previousColorFloat == null || previousColorFloat.length != numLeds) {
                 previousColorFloat = new float[numLeds][3];
                 for (int i = 0; i < numLeds; i++) {
-                    previousColorFloat[i][0] = leds[i].getRed();
-                    previousColorFloat[i][1] = leds[i].getGreen();
-                    previousColorFloat[i][2] = leds[i].getBlue();
+                    previousColorFloat[i][0] = ColorUtilities.red(leds[i]);
+                    previousColorFloat[i][1] = ColorUtilities.green(leds[i]);
+                    previousColorFloat[i][2] = ColorUtilities.blue(leds[i]);
                 }
             }
             for (int i = 0; i < numLeds; i++) {
-                float currR = leds[i].getRed();
-                float currG = leds[i].getGreen();
-                float currB = leds[i].getBlue();
+                float currR = ColorUtilities.red(leds[i]);
+                float currG = ColorUtilities.green(leds[i]);
+                float currB = ColorUtilities.blue(leds[i]);
                 previousColorFloat[i][0] = alpha * currR + (1f - alpha) * previousColorFloat[i][0];
                 previousColorFloat[i][1] = alpha * currG + (1f - alpha) * previousColorFloat[i][1];
                 previousColorFloat[i][2] = alpha * currB + (1f - alpha) * previousColorFloat[i][2];
                 int r = Math.round(previousColorFloat[i][0]);
                 int g = Math.round(previousColorFloat[i][1]);
                 int b = Math.round(previousColorFloat[i][2]);
-                leds[i] = new Color(r, g, b);
+                leds[i] = ColorUtilities.packRgb(r, g, b);
             }
         }
     }
@@ -792,38 +797,6 @@ public class ImageProcessor {
         return Math.min(roundedNum, 255);
     }
 
-    /**
-     * Return the stride of the buffer
-     * <p>
-     * NOTE: this is unnecessary when using GSTREAMER_PIPELINE_WINDOWS_HARDWARE_HANDLE_SYSTEM_MEMORY and GSTREAMER_PIPELINE_DDUPL_SYSTEM_MEMORY
-     * System memory pipeline needs d3d11download element that copies the buffer from video memory to system memory.
-     * During this copy, d3d11download aligns the memory and the copied buffer contains zero strides.
-     * We want to avoid this expensive copy to system memory, and we want to use the buffer direct from the video memory.
-     * Video memory is not aligned, and we need to align it by calculating the correct stride.
-     * To have a visual example of "non-aligned memory" you can run a resolution that doesn't need alignment and one that needs it
-     * and enable the TRACE debug level.
-     * Example: NVIDIA 3840x2160 does not need alignment, 3440x1440 needs alignment.
-     * TRACE debug level captures a screenshot of the captured image; when using 3840x2160 resolution, the captured image is correct.
-     * When using 3440x1440 resolution, the captured image is scrambled. Every pixel is shifted by 4 pixels.
-     * This is the stride that we calculate here.
-     *
-     * @param width     captured image width (includes rescaling)
-     * @param height    captured image height (includes rescaling)
-     * @param rgbBuffer captured image IntBuffer
-     * @return width that contains stride for some resolutions that needs it like: 3440x1440 on NVIDIA or 1920x1080 on AMD
-     */
-    public static int getWidthPlusStride(int width, int height, IntBuffer rgbBuffer) {
-        int widthPlusStride = width;
-        final int exectedCapacityWithoutStride = width * height;
-        if ((rgbBuffer.capacity()) != exectedCapacityWithoutStride) {
-            double capacity = rgbBuffer.capacity();
-            double difference = capacity - exectedCapacityWithoutStride;
-            double stride = difference / height;
-            widthPlusStride = width + (int) Math.round(stride);
-        }
-        return widthPlusStride;
-    }
-
     /**
      * Find the distance between two colors
      *
@@ -851,18 +824,13 @@ public class ImageProcessor {
      * Adjust white balance via Firefly Luciferin. This method kicks in when screen capture is active.
      * When screen capture is not active white balance is done via the Glow Worm Luciferin firmware.
      *
-     * @param leds to adjust
+     * @param frame to adjust
      */
-    public static void adjustStripWhiteBalance(Color[] leds) {
-        int tempOffset = MainSingleton.getInstance().config.getWhiteTemperature();
-        if (tempOffset != 65) {
-            if (tempOffset < 65) {
-                tempOffset = 65 - tempOffset;
-            } else {
-                tempOffset = -(tempOffset - 65);
-            }
-            tempOffset = tempOffset * 20;
-            for (int i = 0; i < leds.length; i++) {
+    public static void adjustStripWhiteBalance(LedFrame frame) {
+        int tempOffset = PipelineSettings.get().whiteBalanceOffset();
+        if (tempOffset != 0) {
+            int[] leds = frame.getRgb();
+            for (int i = 0; i < frame.getLedNum(); i++) {
                 leds[i] = adjustWhiteBalance(leds[i], tempOffset);
             }
         }
@@ -871,15 +839,15 @@ public class ImageProcessor {
     /**
      * Adjust white balance for a single color
      *
-     * @param color       to adjust
+     * @param color       packed color to adjust
      * @param temperature to adjust
-     * @return adjusted color
+     * @return adjusted packed color
      */
-    public static Color adjustWhiteBalance(Color color, int temperature) {
+    public static int adjustWhiteBalance(int color, int temperature) {
         float factor = temperature / 100.0f; // Normalizzazione
-        float r = color.getRed();
-        float g = color.getGreen();
-        float b = color.getBlue();
+        float r = ColorUtilities.red(color);
+        float g = ColorUtilities.green(color);
+        float b = ColorUtilities.blue(color);
         // Get original luminance value
         float originalLuminance = (r * 0.299f + g * 0.587f + b * 0.114f) / 255.0f;
         if (temperature > 0) { // warmer
@@ -897,7 +865,7 @@ public class ImageProcessor {
         r *= scale;
         g *= scale;
         b *= scale;
-        return new Color(clamp(r), clamp(g), clamp(b));
+        return ColorUtilities.packRgb(clamp(r), clamp(g), clamp(b));
     }
 
     /**
@@ -0,0 +1,163 @@
+/*
+  IntegralImage.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.Getter;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Per channel integral image (summed-area table) of the captured frame.
+ * The table is built in a single stride aware pass over the captured frame, once built, the sum of every
+ * rectangle inside the frame is computed in O(1) using four lookups per channel, regardless of the zone size.
+ * This is useful when there are a lot of LEDs, a small resampling factor or a very wide grabber area.
+ * <p>
+ * Tables are stored as int[] and the accumulation is allowed to overflow. Integer arithmetic is modular so
+ * the difference between the four corners is still exact as long as the sum of the requested rectangle fits an int,
+ * this is the same constraint that the scalar and SIMD kernels already have on their accumulators.
+ * <p>
+ * Zones that cross the frame edges are sampled like the scalar kernel does, see {@link FrameLayout#sampleIndex(int, int)}.
+ */
+public class IntegralImage {
+
+    private int[] sumR = new int[0];
+    private int[] sumG = new int[0];
+    private int[] sumB = new int[0];
+    // Table width, it contains one extra column of zeroes on the left
+    private int tableWidth;
+    @Getter
+    private int width;
+    @Getter
+    private int height;
+    // Last pixel of the frame, samples below the frame read it
+    private int lastR;
+    private int lastG;
+    private int lastB;
+
+    /**
+     * Build the summed-area table for the current frame. Arrays are reused across frames and reallocated
+     * only when the capture resolution or the stride changes.
+     *
+     * @param widthPlusStride captured image width including the stride
+     * @param height          captured image height
+     * @param frameSegment    mapped memory of the captured frame
+     */
+    public void build(int widthPlusStride, int height, MemorySegment frameSegment) {
+        int rows = (int) Math.min(height, frameSegment.byteSize() / Integer.BYTES / widthPlusStride);
+        int size = (widthPlusStride + 1) * (rows + 1);
+        if (sumR.length != size) {
+            sumR = new int[size];
+            sumG = new int[size];
+            sumB = new int[size];
+        }
+        this.tableWidth = widthPlusStride + 1;
+        this.width = widthPlusStride;
+        this.height = rows;
+        for (int y = 0; y < rows; y++) {
+            int rowR = 0, rowG = 0, rowB = 0;
+            int bufferOffset = y * widthPlusStride;
+            int prevRow = y * tableWidth;
+            int currRow = prevRow + tableWidth;
+            for (int x = 0; x < widthPlusStride; x++) {
+                int rgb = frameSegment.getAtIndex(FrameLayout.PIXEL, bufferOffset + x);
+                rowR += rgb >> 16 & 0xFF;
+                rowG += rgb >> 8 & 0xFF;
+                rowB += rgb & 0xFF;
+                sumR[currRow + x + 1] = sumR[prevRow + x + 1] + rowR;
+                sumG[currRow + x + 1] = sumG[prevRow + x + 1] + rowG;
+                sumB[currRow + x + 1] = sumB[prevRow + x + 1] + rowB;
+            }
+        }
+        long lastPixel = Math.min((long) widthPlusStride * height, frameSegment.byteSize() / Integer.BYTES) - 1;
+        int rgb = lastPixel >= 0 ? frameSegment.getAtIndex(FrameLayout.PIXEL, lastPixel) : 0;
+        lastR = rgb >> 16 & 0xFF;
+        lastG = rgb >> 8 & 0xFF;
+        lastB = rgb & 0xFF;
+    }
+
+    /**
+     * Sum the pixels contained in the rectangle, samples outside the frame are clamped and counted like the scalar kernel does:
+     * samples past the stride read the first pixel of the next row, samples below the frame read the last pixel.
+     *
+     * @param x0  left coordinate (inclusive)
+     * @param y0  top coordinate (inclusive)
+     * @param x1  right coordinate (exclusive)
+     * @param y1  bottom coordinate (exclusive)
+     * @param out    array that will contain R, G, B sums and the number of pixels
+     * @param offset index of the first of the 4 elements to write in out
+     */
+    public void sum(int x0, int y0, int x1, int y1, int[] out, int offset) {
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.max(x1, x0);
+        y1 = Math.max(y1, y0);
+        out[offset] = 0;
+        out[offset + 1] = 0;
+        out[offset + 2] = 0;
+        // Samples inside the frame
+        add(x0, y0, x1, y1, 1, out, offset);
+        int lastPixelSamples = 0;
+        // Samples past the stride, row y reads the first pixel of row y + 1
+        int rightColumns = x1 - Math.max(x0, width);
+        int rowEnd = Math.min(y1, height);
+        if (rightColumns > 0 && y0 < rowEnd) {
+            add(0, y0 + 1, 1, rowEnd + 1, rightColumns, out, offset);
+            if (rowEnd == height) {
+                lastPixelSamples += rightColumns;
+            }
+        }
+        // Samples below the frame
+        if (y1 > height) {
+            lastPixelSamples += (x1 - x0) * (y1 - Math.max(y0, height));
+        }
+        out[offset] += lastPixelSamples * lastR;
+        out[offset + 1] += lastPixelSamples * lastG;
+        out[offset + 2] += lastPixelSamples * lastB;
+        out[offset + 3] = (x1 - x0) * (y1 - y0);
+    }
+
+    /**
+     * Add the sum of the rectangle, clipped to the frame, multiplied by the number of times it is sampled
+     *
+     * @param x0      left coordinate (inclusive)
+     * @param y0      top coordinate (inclusive)
+     * @param x1      right coordinate (exclusive)
+     * @param y1      bottom coordinate (exclusive)
+     * @param samples number of times every pixel is sampled
+     * @param out     array that will contain R, G, B sums
+     * @param offset  index of the R sum in out
+     */
+    private void add(int x0, int y0, int x1, int y1, int samples, int[] out, int offset) {
+        x0 = Math.min(x0, width);
+        x1 = Math.clamp(x1, x0, width);
+        y0 = Math.min(y0, height);
+        y1 = Math.clamp(y1, y0, height);
+        int topLeft = y0 * tableWidth + x0;
+        int topRight = y0 * tableWidth + x1;
+        int bottomLeft = y1 * tableWidth + x0;
+        int bottomRight = y1 * tableWidth + x1;
+        out[offset] += samples * (sumR[bottomRight] - sumR[bottomLeft] - sumR[topRight] + sumR[topLeft]);
+        out[offset + 1] += samples * (sumG[bottomRight] - sumG[bottomLeft] - sumG[topRight] + sumG[topLeft]);
+        out[offset + 2] += samples * (sumB[bottomRight] - sumB[bottomLeft] - sumB[topRight] + sumB[topLeft]);
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+  LatencyHistogram.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed bucket latency histogram, values are recorded in microseconds.
+ * Buckets are log-linear: values below 16us have their own bucket, bigger values are split in 8 buckets per power of two,
+ * so percentiles are accurate within 12.5% whatever the magnitude is. Recording a value is a couple of shifts and an
+ * atomic increment, no allocation and no lock, it's safe to call it on the capture and on the consumer threads.
+ * <p>
+ * Samples are collected in a window, snapshot() reads the window and starts a new one.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKETS_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKETS_BITS;
+    // Values up to 2^36 microseconds, a lot more than any frame will ever take
+    private static final int BUCKETS = LINEAR_BUCKETS + (36 - 4) * SUB_BUCKETS;
+
+    @Getter
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+    // Snapshot of the last closed window, read by the GUI and by the MQTT framerate payload
+    @Getter
+    private volatile Snapshot lastSnapshot = Snapshot.EMPTY;
+
+    /**
+     * Constructor
+     *
+     * @param name stage name, shown in the Info dialog and used as key in the MQTT payload
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record a duration
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        counts.incrementAndGet(bucketOf(micros));
+        if (micros > max.get()) {
+            max.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    /**
+     * Record the time elapsed since a monotonic timestamp, timestamps that has not been set are ignored
+     *
+     * @param startNanos System.nanoTime() taken at the beginning of the stage
+     */
+    public void recordSince(long startNanos) {
+        if (startNanos != 0) {
+            record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Close the current window and start a new one
+     *
+     * @return percentiles of the closed window
+     */
+    public Snapshot snapshot() {
+        long[] window = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            window[i] = counts.getAndSet(i, 0);
+            count += window[i];
+        }
+        long windowMax = max.getAndSet(0);
+        Snapshot snapshot = count == 0 ? Snapshot.EMPTY : new Snapshot(count,
+                percentile(window, count, 0.50, windowMax),
+                percentile(window, count, 0.95, windowMax),
+                percentile(window, count, 0.99, windowMax),
+                windowMax);
+        lastSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Find the bucket that contains the requested percentile
+     *
+     * @param window     bucket counts
+     * @param count      total number of samples
+     * @param percentile requested percentile (0-1)
+     * @param windowMax  biggest value recorded, the bucket upper bound is clamped to it
+     * @return percentile value in microseconds
+     */
+    private static long percentile(long[] window, long count, double percentile, long windowMax) {
+        long rank = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += window[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), windowMax);
+            }
+        }
+        return windowMax;
+    }
+
+    /**
+     * Bucket index of a value
+     *
+     * @param micros value in microseconds
+     * @return bucket index
+     */
+    static int bucketOf(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKETS_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket, BUCKETS - 1);
+    }
+
+    /**
+     * Biggest value contained in a bucket
+     *
+     * @param bucket bucket index
+     * @return value in microseconds
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKETS_BITS);
+        return (SUB_BUCKETS + subBucket) * width + width - 1;
+    }
+
+    /**
+     * Percentiles of a closed window, values are in microseconds
+     *
+     * @param count number of samples
+     * @param p50   median
+     * @param p95   95th percentile
+     * @param p99   99th percentile
+     * @param max   slowest sample
+     */
+    public record Snapshot(long count, long p50, long p95, long p99, long max) {
+
+        static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0);
+
+        /**
+         * Human readable percentiles in milliseconds
+         *
+         * @return p50/p95/p99/max in milliseconds
+         */
+        public String format() {
+            return String.format("%.1f/%.1f/%.1f/%.1f ms", p50 / 1000F, p95 / 1000F, p99 / 1000F, max / 1000F);
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+  LatencyMonitor.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.config.Constants;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latency of every stage of the pipeline, from the moment the frame is captured to the moment it's written to the wire.
+ * Frames are stamped with a monotonic timestamp when the GStreamer sample arrives or when the CPU capture starts,
+ * every stage records its own duration in a fixed bucket histogram.
+ * Windows are closed every 5 seconds together with the FPS counters.
+ */
+public class LatencyMonitor {
+
+    // Zone averaging, color correction is applied by the same kernel
+    public static final LatencyHistogram ZONES = new LatencyHistogram(Constants.LATENCY_STAGE_ZONES);
+    // Exponential moving average and white balance
+    public static final LatencyHistogram POST_PROCESSING = new LatencyHistogram(Constants.LATENCY_STAGE_POST_PROCESSING);
+    // Time spent in the frame mailbox waiting for the consumer
+    public static final LatencyHistogram QUEUE_WAIT = new LatencyHistogram(Constants.LATENCY_STAGE_QUEUE_WAIT);
+    // Serialization of the colors, one sample per serial write, UDP packet or MQTT message
+    public static final LatencyHistogram ENCODE = new LatencyHistogram(Constants.LATENCY_STAGE_ENCODE);
+    // Serial write, UDP send or MQTT publish, one sample per write
+    public static final LatencyHistogram SEND = new LatencyHistogram(Constants.LATENCY_STAGE_SEND);
+    // End to end latency, from the capture timestamp to the end of the send
+    public static final LatencyHistogram CAPTURE_TO_WIRE = new LatencyHistogram(Constants.LATENCY_STAGE_CAPTURE_TO_WIRE);
+
+    private static final List<LatencyHistogram> STAGES = List.of(ZONES, POST_PROCESSING, QUEUE_WAIT, ENCODE, SEND, CAPTURE_TO_WIRE);
+
+    /**
+     * Close the current window on every stage
+     */
+    public static void snapshot() {
+        for (LatencyHistogram stage : STAGES) {
+            stage.snapshot();
+        }
+    }
+
+    /**
+     * Percentiles of the last closed window for every stage, stages without samples are skipped
+     *
+     * @return stage name to percentiles, in pipeline order
+     */
+    public static Map<String, LatencyHistogram.Snapshot> getLastSnapshots() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<>();
+        for (LatencyHistogram stage : STAGES) {
+            if (stage.getLastSnapshot().count() > 0) {
+                snapshots.put(stage.getName(), stage.getLastSnapshot());
+            }
+        }
+        return snapshots;
+    }
+
+}
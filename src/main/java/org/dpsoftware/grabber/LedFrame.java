@@ -0,0 +1,155 @@
+/*
+  LedFrame.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.dpsoftware.utilities.ColorUtilities;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Primitive frame that travels from the capture to the LED strip.
+ * Colors are stored as packed 0xRRGGBB integers, no java.awt.Color is created while the frame moves through the pipeline.
+ * Frames are recycled by the FramePool, the backing array is reallocated only when the number of LEDs grows.
+ */
+@Getter
+public class LedFrame {
+
+    private int[] rgb;
+    private int ledNum;
+    // Monotonic timestamp (System.nanoTime) taken when the frame has been captured
+    @Setter
+    private long captureNanos;
+    // Monotonic timestamp (System.nanoTime) taken when the frame has been published to the FrameMailbox
+    @Setter
+    private long offerNanos;
+    // Capture sequence number, 0 if the frame doesn't come from the screen capture
+    @Setter
+    private long sequence;
+
+    /**
+     * Constructor
+     *
+     * @param ledNum number of LEDs in the frame
+     */
+    LedFrame(int ledNum) {
+        rgb = new int[ledNum];
+        this.ledNum = ledNum;
+    }
+
+    /**
+     * Set the number of LEDs in use, the backing array is reused if big enough
+     *
+     * @param ledNum number of LEDs in the frame
+     */
+    void resize(int ledNum) {
+        if (rgb.length < ledNum) {
+            rgb = new int[ledNum];
+        }
+        this.ledNum = ledNum;
+    }
+
+    /**
+     * Get the packed color of a LED
+     *
+     * @param index LED index
+     * @return packed 0xRRGGBB color
+     */
+    public int get(int index) {
+        return rgb[index];
+    }
+
+    /**
+     * Set the packed color of a LED
+     *
+     * @param index LED index
+     * @param color packed 0xRRGGBB color
+     */
+    public void set(int index, int color) {
+        rgb[index] = color;
+    }
+
+    /**
+     * Set the same color on every LED
+     *
+     * @param color packed 0xRRGGBB color
+     */
+    public void fill(int color) {
+        Arrays.fill(rgb, 0, ledNum, color);
+    }
+
+    /**
+     * Copy colors from a packed array
+     *
+     * @param source packed colors
+     * @param length number of LEDs to copy
+     */
+    public void copyFrom(int[] source, int length) {
+        resize(length);
+        System.arraycopy(source, 0, rgb, 0, length);
+    }
+
+    /**
+     * Rotate the LEDs to the left in place, the LED at the offset position becomes the first one.
+     *
+     * @param offset rotation offset
+     */
+    public void rotateLeft(int offset) {
+        if (ledNum == 0) return;
+        offset = offset % ledNum;
+        if (offset == 0) return;
+        reverse(rgb, 0, offset);
+        reverse(rgb, offset, ledNum);
+        reverse(rgb, 0, ledNum);
+    }
+
+    /**
+     * Reverse a portion of a packed color array in place
+     *
+     * @param rgb  packed colors
+     * @param from start index (inclusive)
+     * @param to   end index (exclusive)
+     */
+    public static void reverse(int[] rgb, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int tmp = rgb[i];
+            rgb[i] = rgb[j];
+            rgb[j] = tmp;
+        }
+    }
+
+    /**
+     * Convert the frame to an array of Color, use it only at GUI boundaries
+     *
+     * @return array of colors
+     */
+    public Color[] toColors() {
+        Color[] colors = new Color[ledNum];
+        for (int i = 0; i < ledNum; i++) {
+            colors[i] = new Color(ColorUtilities.red(rgb[i]), ColorUtilities.green(rgb[i]), ColorUtilities.blue(rgb[i]));
+        }
+        return colors;
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+  OutputRoutingPlan.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.MainSingleton;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.network.MessageServer;
+import org.dpsoftware.network.NetworkSingleton;
+
+/**
+ * Compiled LED routing for the main output device.
+ * Multi monitor ordering, clockwise orientation and LED start offset are compiled in a single gather index
+ * when one of their inputs changes, every frame is then remapped with one pass and without allocations.
+ * Satellites are mapped from the routed frame by their SatelliteMapping.
+ */
+public class OutputRoutingPlan {
+
+    // Output LED k is the captured LED gather[k], null when the frame is sent as captured
+    private final int[] gather;
+    private final int[] routed;
+    // Inputs the plan has been compiled from
+    private final int ledNum;
+    private final boolean ledOrder;
+    private final boolean clockwise;
+    private final int ledStartOffset;
+    private final int multiMonitor;
+    private final Object monitorConfig1;
+    private final Object monitorConfig2;
+    private final Object monitorConfig3;
+
+    /**
+     * Compile the routing plan
+     *
+     * @param ledNum   number of LEDs in the frame
+     * @param ledOrder true if the LEDs of a single device on multiple monitors must be reordered
+     */
+    private OutputRoutingPlan(int ledNum, boolean ledOrder) {
+        PipelineSettings settings = PipelineSettings.get();
+        this.ledNum = ledNum;
+        this.ledOrder = ledOrder;
+        clockwise = settings.clockwise();
+        ledStartOffset = settings.ledStartOffset();
+        multiMonitor = MainSingleton.getInstance().config.getMultiMonitor();
+        MessageServer messageServer = NetworkSingleton.getInstance().messageServer;
+        monitorConfig1 = messageServer != null ? messageServer.getMonitorConfig1() : null;
+        monitorConfig2 = messageServer != null ? messageServer.getMonitorConfig2() : null;
+        monitorConfig3 = messageServer != null ? messageServer.getMonitorConfig3() : null;
+        if (!ledOrder && !clockwise && (ledStartOffset <= 0 || ledNum == 0 || ledStartOffset % ledNum == 0)) {
+            gather = null;
+            routed = null;
+            return;
+        }
+        int[] index;
+        if (ledOrder) {
+            index = NetworkSingleton.getInstance().compileLedOrder(ledNum);
+        } else {
+            index = new int[ledNum];
+            for (int i = 0; i < ledNum; i++) {
+                index[i] = i;
+            }
+        }
+        // Same steps applied to the frame before sending, orientation first and then the offset
+        if (clockwise) {
+            LedFrame.reverse(index, 0, ledNum);
+        }
+        if (ledStartOffset > 0 && ledNum > 0) {
+            int offset = ledStartOffset % ledNum;
+            LedFrame.reverse(index, 0, offset);
+            LedFrame.reverse(index, offset, ledNum);
+            LedFrame.reverse(index, 0, ledNum);
+        }
+        gather = index;
+        routed = new int[ledNum];
+    }
+
+    /**
+     * Get the routing plan for a frame, the current plan is reused when its inputs did not change
+     *
+     * @param current  plan in use, can be null
+     * @param ledNum   number of LEDs in the frame
+     * @param ledOrder true if the LEDs of a single device on multiple monitors must be reordered
+     * @return plan to use
+     */
+    public static OutputRoutingPlan resolve(OutputRoutingPlan current, int ledNum, boolean ledOrder) {
+        if (current != null && current.matches(ledNum, ledOrder)) {
+            return current;
+        }
+        return new OutputRoutingPlan(ledNum, ledOrder);
+    }
+
+    /**
+     * Route the frame in place
+     *
+     * @param frame frame to send
+     */
+    public void apply(LedFrame frame) {
+        if (gather == null) {
+            return;
+        }
+        int[] rgb = frame.getRgb();
+        for (int i = 0; i < ledNum; i++) {
+            routed[i] = rgb[gather[i]];
+        }
+        System.arraycopy(routed, 0, rgb, 0, ledNum);
+    }
+
+    /**
+     * Check if the plan has been compiled from the current settings
+     *
+     * @param ledNum   number of LEDs in the frame
+     * @param ledOrder true if the LEDs of a single device on multiple monitors must be reordered
+     * @return true if the plan is still valid
+     */
+    private boolean matches(int ledNum, boolean ledOrder) {
+        PipelineSettings settings = PipelineSettings.get();
+        if (this.ledNum != ledNum || this.ledOrder != ledOrder || clockwise != settings.clockwise() || ledStartOffset != settings.ledStartOffset()) {
+            return false;
+        }
+        if (!ledOrder) {
+            return true;
+        }
+        // Monitor configurations are replaced when another instance changes its LED matrix
+        MessageServer messageServer = NetworkSingleton.getInstance().messageServer;
+        return messageServer != null && multiMonitor == MainSingleton.getInstance().config.getMultiMonitor()
+                && monitorConfig1 == messageServer.getMonitorConfig1() && monitorConfig2 == messageServer.getMonitorConfig2()
+                && monitorConfig3 == messageServer.getMonitorConfig3();
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+  ParallelZoneEngine.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.config.Constants;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Compute LED zones on multiple cores.
+ * Zones are split in fixed chunks of zone indexes, every chunk writes its own slots of the output array,
+ * so the LEDs order is preserved without any merge step. Chunks run on a dedicated ForkJoinPool,
+ * the capture thread joins the pool while waiting, so it works on the chunks too.
+ * <p>
+ * Thread count and chunk size are computed from the number of pixels read on every frame,
+ * small workloads stays on the capture thread since the fork/join overhead is higher than the gain.
+ */
+@Slf4j
+public class ParallelZoneEngine {
+
+    private static final ForkJoinPool zonePool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("ZoneWorker-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
+    // Crossover benchmark, sequential and parallel computations are alternated on consecutive frames
+    private static int benchFrames = 0;
+    private static long benchSequentialNanos = 0;
+    private static long benchParallelNanos = 0;
+
+    /**
+     * Compute a range of zones, from and to are indexes of ZonePlan.zones
+     */
+    @FunctionalInterface
+    public interface ZoneKernel {
+        void compute(int from, int to);
+    }
+
+    /**
+     * Number of threads to use for the given plan
+     *
+     * @param plan zone plan in use
+     * @return number of threads, 1 means that the computation should run on the capture thread
+     */
+    public static int threadsFor(ZonePlan plan) {
+        long threads = plan.getWorkload() / Constants.PARALLEL_ZONES_PIXELS_PER_THREAD;
+        return Math.clamp(threads, 1, Math.max(1, Math.min(zonePool.getParallelism() + 1, plan.zones.length)));
+    }
+
+    /**
+     * Compute all the zones of the plan
+     *
+     * @param plan    zone plan in use
+     * @param threads number of threads to use
+     * @param kernel  zone kernel
+     * @param bench   if true, alternate sequential and parallel computations and log the timings
+     */
+    public static void compute(ZonePlan plan, int threads, ZoneKernel kernel, boolean bench) {
+        int zoneNum = plan.zones.length;
+        if (bench) {
+            benchCrossover(plan, Math.max(2, threads), kernel);
+        } else if (threads < 2) {
+            kernel.compute(0, zoneNum);
+        } else {
+            computeParallel(zoneNum, threads, kernel);
+        }
+    }
+
+    /**
+     * Split zones in fixed chunks and compute them on the zone pool
+     *
+     * @param zoneNum number of zones
+     * @param threads number of threads to use
+     * @param kernel  zone kernel
+     */
+    private static void computeParallel(int zoneNum, int threads, ZoneKernel kernel) {
+        int chunkSize = Math.max(1, Math.ceilDiv(zoneNum, threads * Constants.PARALLEL_ZONES_CHUNKS_PER_THREAD));
+        zonePool.invoke(new ZoneChunk(kernel, 0, zoneNum, chunkSize));
+    }
+
+    /**
+     * Measure sequential and parallel computations on the current workload, useful to find the crossover point
+     *
+     * @param plan    zone plan in use
+     * @param threads number of threads to use
+     * @param kernel  zone kernel
+     */
+    private static void benchCrossover(ZonePlan plan, int threads, ZoneKernel kernel) {
+        long start = System.nanoTime();
+        if ((benchFrames & 1) == 0) {
+            kernel.compute(0, plan.zones.length);
+            benchSequentialNanos += System.nanoTime() - start;
+        } else {
+            computeParallel(plan.zones.length, threads, kernel);
+            benchParallelNanos += System.nanoTime() - start;
+        }
+        if (++benchFrames >= Constants.PARALLEL_ZONES_BENCH_FRAMES) {
+            long avgSequential = benchSequentialNanos / (benchFrames / 2);
+            long avgParallel = benchParallelNanos / (benchFrames / 2);
+            log.debug("Parallel zones bench: workload={}px, zones={}, threads={}, sequential={}ns, parallel={}ns, faster={}, selected threads={}",
+                    plan.getWorkload(), plan.zones.length, threads, avgSequential, avgParallel,
+                    avgParallel < avgSequential ? "parallel" : "sequential", threadsFor(plan));
+            benchFrames = 0;
+            benchSequentialNanos = 0;
+            benchParallelNanos = 0;
+        }
+    }
+
+    /**
+     * Fork/join task that splits the zones range until it fits the chunk size
+     */
+    private static class ZoneChunk extends RecursiveAction {
+
+        private final ZoneKernel kernel;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        ZoneChunk(ZoneKernel kernel, int from, int to, int chunkSize) {
+            this.kernel = kernel;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                kernel.compute(from, to);
+            } else {
+                // Split on a chunk boundary so chunks are the same on every frame
+                int chunks = Math.ceilDiv(to - from, chunkSize);
+                int mid = from + (chunks / 2) * chunkSize;
+                invokeAll(new ZoneChunk(kernel, from, mid, chunkSize), new ZoneChunk(kernel, mid, to, chunkSize));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+  PipelineEvents.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder events emitted by the capture and output pipeline.
+ * Events are committed only while a recording is running, when JFR is off creating an event is optimized away
+ * by the JIT and shouldCommit() is a single field read, so the hot path doesn't pay anything.
+ * Recordings can be started from the settings or with -XX:StartFlightRecording and opened with JDK Mission Control.
+ */
+public class PipelineEvents {
+
+    private static final String CATEGORY = "Firefly Luciferin";
+    private static final String PIPELINE = "Pipeline";
+    private static final String OUTPUT = "Output";
+
+    /**
+     * A frame has been received from GStreamer, the event lasts until the frame is offered to the consumer
+     */
+    @Name("org.dpsoftware.FrameCaptured")
+    @Label("Frame Captured")
+    @Category({CATEGORY, PIPELINE})
+    @StackTrace(false)
+    public static class FrameCaptured extends Event {
+        @Label("Width")
+        public int width;
+        @Label("Height")
+        public int height;
+        @Label("Width plus stride")
+        public int widthPlusStride;
+    }
+
+    /**
+     * Average colors have been computed on every zone, color correction is applied by the same kernel
+     */
+    @Name("org.dpsoftware.ZonesComputed")
+    @Label("Zones Computed")
+    @Category({CATEGORY, PIPELINE})
+    @StackTrace(false)
+    public static class ZonesComputed extends Event {
+        @Label("Zones")
+        public int zones;
+        @Label("Kernel")
+        public String kernel;
+    }
+
+    /**
+     * Exponential moving average and white balance have been applied to the frame
+     */
+    @Name("org.dpsoftware.FrameCorrected")
+    @Label("Frame Corrected")
+    @Category({CATEGORY, PIPELINE})
+    @StackTrace(false)
+    public static class FrameCorrected extends Event {
+        @Label("LEDs")
+        public int leds;
+    }
+
+    /**
+     * A frame has been written to the sink
+     */
+    @Name("org.dpsoftware.FrameSent")
+    @Label("Frame Sent")
+    @Category({CATEGORY, OUTPUT})
+    @StackTrace(false)
+    public static class FrameSent extends Event {
+        @Label("Sink")
+        public String sink;
+        @Label("LEDs")
+        public int leds;
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        @Label("Capture to wire")
+        @Timespan(Timespan.NANOSECONDS)
+        public long captureToWire;
+    }
+
+    /**
+     * A frame has been discarded before reaching the LED strip
+     */
+    @Name("org.dpsoftware.FrameDropped")
+    @Label("Frame Dropped")
+    @Category({CATEGORY, PIPELINE})
+    @StackTrace(false)
+    public static class FrameDropped extends Event {
+        @Label("Reason")
+        public String reason;
+    }
+
+    /**
+     * The GStreamer pipeline stopped producing frames and it has been restarted
+     */
+    @Name("org.dpsoftware.PipelineRestarted")
+    @Label("Pipeline Restarted")
+    @Category({CATEGORY, PIPELINE})
+    public static class PipelineRestarted extends Event {
+        @Label("Restarts")
+        public int restarts;
+    }
+
+    /**
+     * Black bars auto detection switched to a new aspect ratio
+     */
+    @Name("org.dpsoftware.AspectRatioSwitched")
+    @Label("Aspect Ratio Switched")
+    @Category({CATEGORY, PIPELINE})
+    @StackTrace(false)
+    public static class AspectRatioSwitched extends Event {
+        @Label("Aspect ratio")
+        public String aspectRatio;
+    }
+
+    /**
+     * Emit a FrameDropped event
+     *
+     * @param reason why the frame has been dropped
+     */
+    public static void frameDropped(String reason) {
+        FrameDropped event = new FrameDropped();
+        if (event.shouldCommit()) {
+            event.reason = reason;
+            event.commit();
+        }
+    }
+
+}
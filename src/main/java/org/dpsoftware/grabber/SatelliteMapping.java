@@ -0,0 +1,250 @@
+/*
+  SatelliteMapping.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.LEDCoordinate;
+import org.dpsoftware.MainSingleton;
+import org.dpsoftware.config.Enums;
+import org.dpsoftware.config.LocalizedEnum;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.gui.elements.Satellite;
+import org.dpsoftware.utilities.ColorUtilities;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+
+/**
+ * Precomputed mapping from the main strip colors to the colors of a satellite.
+ * Every satellite LED is the average of a span of main strip LEDs, spans are computed once from the satellite zone,
+ * LED count, algorithm and orientation, so a frame is mapped with a single pass and without touching the Satellite.
+ * The mapping is rebuilt when one of its inputs changes.
+ */
+public class SatelliteMapping {
+
+    // Satellite LED i is the sum of main strip LEDs from spanStart[i] to spanEnd[i] (excluded) divided by divisor[i]
+    private final int[] spanStart;
+    private final int[] spanEnd;
+    private final int[] divisor;
+    // Inputs the mapping has been built from
+    private final String zone;
+    private final String ledNum;
+    private final String algo;
+    private final String orientation;
+    private final int stripLedNum;
+    private final int ledNumber;
+    private final boolean clockwise;
+    private final boolean splitBottomRow;
+    private final Object ledMatrix;
+
+    /**
+     * Build the mapping for a satellite
+     *
+     * @param sat         satellite
+     * @param stripLedNum number of LEDs in the main strip frame
+     */
+    private SatelliteMapping(Satellite sat, int stripLedNum) {
+        PipelineSettings settings = PipelineSettings.get();
+        zone = sat.getZone();
+        ledNum = sat.getLedNum();
+        algo = sat.getAlgo();
+        orientation = sat.getOrientation();
+        this.stripLedNum = stripLedNum;
+        ledNumber = MainSingleton.getInstance().ledNumber;
+        clockwise = settings.clockwise();
+        splitBottomRow = settings.splitBottomRow();
+        ledMatrix = currentLedMatrix();
+        List<int[]> spans = new ArrayList<>();
+        int satNumLed = Integer.parseInt(ledNum);
+        if (splitBottomRow && zone.equals(Enums.PossibleZones.BOTTOM.getBaseI18n())) {
+            int halfSatNumLed = satNumLed / 2;
+            spans.addAll(zoneSpans(Enums.PossibleZones.BOTTOM_LEFT.getBaseI18n(), halfSatNumLed));
+            spans.addAll(zoneSpans(Enums.PossibleZones.BOTTOM_RIGHT.getBaseI18n(), halfSatNumLed));
+        } else {
+            spans.addAll(zoneSpans(zone, satNumLed));
+        }
+        int size = spans.size();
+        spanStart = new int[size];
+        spanEnd = new int[size];
+        divisor = new int[size];
+        boolean reversed = Enums.Direction.NORMAL.equals(LocalizedEnum.fromBaseStr(Enums.Direction.class, orientation));
+        for (int i = 0; i < size; i++) {
+            int[] span = spans.get(reversed ? size - 1 - i : i);
+            // Spans are computed on the strip as seen clockwise, map them back on the frame
+            int start = clockwise ? stripLedNum - span[1] : span[0];
+            int end = clockwise ? stripLedNum - span[0] : span[1];
+            spanStart[i] = Math.clamp(start, 0, stripLedNum);
+            spanEnd[i] = Math.clamp(end, spanStart[i], stripLedNum);
+            divisor[i] = Math.max(1, span[2]);
+        }
+    }
+
+    /**
+     * Get the mapping for a satellite, the current mapping is reused when its inputs did not change
+     *
+     * @param current     mapping in use, can be null
+     * @param sat         satellite
+     * @param stripLedNum number of LEDs in the main strip frame
+     * @return mapping to use
+     */
+    public static SatelliteMapping resolve(SatelliteMapping current, Satellite sat, int stripLedNum) {
+        if (current != null && current.matches(sat, stripLedNum)) {
+            return current;
+        }
+        return new SatelliteMapping(sat, stripLedNum);
+    }
+
+    /**
+     * Map the main strip colors to the satellite colors
+     *
+     * @param leds   main strip packed colors
+     * @param output satellite packed colors, must hold getLedNum() colors
+     */
+    public void apply(int[] leds, int[] output) {
+        for (int i = 0; i < spanStart.length; i++) {
+            int start = spanStart[i];
+            int end = spanEnd[i];
+            if (end - start == 1 && divisor[i] == 1) {
+                output[i] = leds[start];
+                continue;
+            }
+            int r = 0, g = 0, b = 0;
+            for (int ledIndex = start; ledIndex < end; ledIndex++) {
+                r += ColorUtilities.red(leds[ledIndex]);
+                g += ColorUtilities.green(leds[ledIndex]);
+                b += ColorUtilities.blue(leds[ledIndex]);
+            }
+            output[i] = ColorUtilities.packRgb(r / divisor[i], g / divisor[i], b / divisor[i]);
+        }
+    }
+
+    /**
+     * Number of LEDs on the satellite
+     *
+     * @return satellite LEDs
+     */
+    public int getLedNum() {
+        return spanStart.length;
+    }
+
+    /**
+     * Check if the mapping has been built from the current satellite and strip settings
+     *
+     * @param sat         satellite
+     * @param stripLedNum number of LEDs in the main strip frame
+     * @return true if the mapping is still valid
+     */
+    private boolean matches(Satellite sat, int stripLedNum) {
+        PipelineSettings settings = PipelineSettings.get();
+        return this.stripLedNum == stripLedNum && ledNumber == MainSingleton.getInstance().ledNumber
+                && clockwise == settings.clockwise() && splitBottomRow == settings.splitBottomRow()
+                && ledMatrix == currentLedMatrix() && Objects.equals(zone, sat.getZone()) && Objects.equals(ledNum, sat.getLedNum())
+                && Objects.equals(algo, sat.getAlgo()) && Objects.equals(orientation, sat.getOrientation());
+    }
+
+    /**
+     * LED matrix in use, the zones of the satellites are computed on it
+     *
+     * @return LED matrix
+     */
+    private static Object currentLedMatrix() {
+        return MainSingleton.getInstance().config.getLedMatrixInUse(MainSingleton.getInstance().config.getDefaultLedMatrix());
+    }
+
+    /**
+     * Spans for a zone of the satellite. The average algorithm reduces or pads the zone LEDs to the satellite LEDs,
+     * the other algorithms use the average of the whole zone on every satellite LED.
+     *
+     * @param zone      zone of the screen
+     * @param satNumLed number of satellite LEDs for this zone
+     * @return list of spans as {start, end, divisor}
+     */
+    private List<int[]> zoneSpans(String zone, int satNumLed) {
+        LEDCoordinate.getStartEndLeds zoneDetail = LEDCoordinate.getGetStartEndLeds(zone);
+        int zoneStart = zoneDetail.start() - 1;
+        int zoneNumLed = (zoneDetail.end() - zoneDetail.start()) + 1;
+        List<int[]> spans = new LinkedList<>();
+        if (Enums.Algo.AVG_COLOR.getBaseI18n().equals(algo)) {
+            if (satNumLed <= zoneNumLed) {
+                // A group of zone LEDs for every satellite LED
+                int divider = (int) Math.ceil((double) zoneNumLed / satNumLed);
+                int groupStart = zoneStart;
+                for (int i = 0; i < zoneNumLed; i++) {
+                    if (i % divider == 0) {
+                        spans.add(new int[]{groupStart, zoneStart + i + 1, divider});
+                        groupStart = zoneStart + i + 1;
+                    }
+                }
+            } else {
+                // Every zone LED is repeated on more satellite LEDs
+                int multiplier = satNumLed / zoneNumLed;
+                for (int i = 0; i < zoneNumLed; i++) {
+                    for (int j = 0; j < Math.max(1, multiplier); j++) {
+                        spans.add(new int[]{zoneStart + i, zoneStart + i + 1, 1});
+                    }
+                }
+            }
+            addSpans(satNumLed, spans);
+        } else {
+            int zoneEnd = zoneDetail.end() - 1;
+            int[] zoneSpan = new int[]{zoneStart, zoneEnd, (zoneEnd - zoneStart) + 1};
+            for (int i = 0; i < satNumLed; i++) {
+                spans.add(zoneSpan);
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * Repeat spans evenly along the list until it holds a span for every satellite LED
+     *
+     * @param satNumLed number of satellite LEDs for the zone
+     * @param spans     spans computed for the zone
+     */
+    private static void addSpans(int satNumLed, List<int[]> spans) {
+        int spansToAdd = satNumLed - spans.size();
+        if (spansToAdd > 0) {
+            if (spans.isEmpty()) {
+                spans.add(new int[]{0, 0, 1});
+            }
+            int addEveryLed = spans.size() / spansToAdd;
+            int addIdx = 0;
+            int spansAdded = 0;
+            ListIterator<int[]> iterator = spans.listIterator();
+            while (iterator.hasNext() && spansAdded < spansToAdd) {
+                int[] span = iterator.next();
+                if (addIdx == addEveryLed) {
+                    spansAdded++;
+                    iterator.add(span);
+                    addIdx = 0;
+                }
+                addIdx++;
+            }
+            while (spans.size() < satNumLed) {
+                spans.add(spans.getLast());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+  SpscRing.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer/single-consumer ring used to hand frames from one pipeline stage to the next.
+ * Slots are preallocated and reused, the producer only writes the tail index and the consumer only writes the head index,
+ * so there are no locks and no CAS on the hot path.
+ * <p>
+ * Exactly one thread may offer and exactly one thread may poll/take at any given time.
+ * The ring never overwrites: when it's full, offer fails and the producer decides what to do with the item.
+ *
+ * @param <T> item type
+ */
+public class SpscRing<T> {
+
+    private final Object[] slots;
+    private final int mask;
+    // Next slot to read, written by the consumer only
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, written by the producer only
+    private final AtomicLong tail = new AtomicLong();
+    // Consumer thread, set only while it's parked waiting for an item
+    private volatile Thread waitingConsumer;
+
+    /**
+     * Create a ring
+     *
+     * @param capacity number of slots, rounded up to the next power of two
+     */
+    public SpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        slots = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Publish an item, producer thread only
+     *
+     * @param item item to publish
+     * @return false if the ring is full, the item is still owned by the caller
+     */
+    public boolean offer(T item) {
+        long t = tail.get();
+        if (t - head.get() == slots.length) {
+            return false;
+        }
+        slots[(int) t & mask] = item;
+        // Volatile store, the consumer must see the item before it reads the waiting flag back
+        tail.set(t + 1);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Take the oldest item without waiting, consumer thread only
+     *
+     * @return item owned by the caller, null if the ring is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        int index = (int) h & mask;
+        T item = (T) slots[index];
+        slots[index] = null;
+        head.lazySet(h + 1);
+        return item;
+    }
+
+    /**
+     * Take the oldest item, wait if the ring is empty. Consumer thread only.
+     *
+     * @return item owned by the caller
+     * @throws InterruptedException if the consumer is interrupted while waiting
+     */
+    public T take() throws InterruptedException {
+        T item = poll();
+        while (item == null) {
+            waitingConsumer = Thread.currentThread();
+            // Check again after registering, the producer may have published before seeing the waiting consumer
+            item = poll();
+            if (item == null) {
+                LockSupport.park(this);
+                item = poll();
+            }
+            waitingConsumer = null;
+            if (item == null && Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Number of items waiting in the ring, it's an estimate when read from a third thread
+     *
+     * @return ring occupancy
+     */
+    public int size() {
+        long h = head.get();
+        return (int) Math.max(0, Math.min(slots.length, tail.get() - h));
+    }
+
+    /**
+     * Number of slots
+     *
+     * @return ring capacity
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+  StagedPipeline.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.config.Constants;
+import org.dpsoftware.managers.MetricsManager;
+import org.dpsoftware.managers.PipelineManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pipelined execution for high framerate captures with many LEDs.
+ * When it's enabled, every stage runs on its own thread so the work on one frame overlaps the work on the next one:
+ * <pre>
+ * capture + zones (GStreamer thread) -> SpscRing -> correction + smoothing -> FrameMailbox -> encode + send (consumer)
+ * </pre>
+ * The first handoff is a preallocated SPSC ring, the second one is the latest-wins mailbox that is shared with
+ * audio, effects and the other instances. When it's disabled, correction and smoothing run on the capture thread.
+ * <p>
+ * Producers are serialized by a flag, it's an uncontended CAS when there is a single capture thread.
+ * A concurrent producer (the frame insertion output clock while it's being turned off) never waits,
+ * it processes its frame inline as if the pipelined mode was disabled.
+ */
+@Slf4j
+public class StagedPipeline {
+
+    private static final SpscRing<LedFrame> correctionRing = new SpscRing<>(Constants.PIPELINE_RING_CAPACITY);
+    private static final AtomicBoolean producing = new AtomicBoolean();
+    private static volatile Thread correctionStage;
+
+    /**
+     * Start the correction stage, next frames offered to the queue are corrected on the correction thread
+     */
+    public static synchronized void start() {
+        if (correctionStage != null) {
+            return;
+        }
+        log.info("Pipelined execution enabled");
+        correctionStage = Thread.ofPlatform().name("pipeline-correction").daemon(true).priority(Thread.MAX_PRIORITY).start(StagedPipeline::runCorrectionStage);
+    }
+
+    /**
+     * Check if the pipelined mode is running
+     *
+     * @return true if the correction stage is running on its own thread
+     */
+    public static boolean isRunning() {
+        return correctionStage != null;
+    }
+
+    /**
+     * Hand a frame to the correction stage
+     *
+     * @param frame frame with zones computed, it's owned by the pipeline if the method returns true
+     * @return false if the caller must correct the frame inline
+     */
+    public static boolean offer(LedFrame frame) {
+        if (correctionStage == null || !producing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            if (!correctionRing.offer(frame)) {
+                // Correction is late, the ring never overwrites and the producer can't evict, drop the newest frame
+                MetricsManager.STAGE_RING_FULL.increment();
+                PipelineEvents.frameDropped(Constants.JFR_DROP_RING_FULL);
+                FramePool.release(frame);
+            }
+        } finally {
+            producing.set(false);
+        }
+        return true;
+    }
+
+    /**
+     * Number of frames waiting for the correction stage
+     *
+     * @return ring occupancy
+     */
+    public static int getCorrectionQueueDepth() {
+        return correctionRing.size();
+    }
+
+    /**
+     * Correction stage loop
+     */
+    @SuppressWarnings("InfiniteLoopStatement")
+    private static void runCorrectionStage() {
+        while (true) {
+            LedFrame frame;
+            try {
+                frame = correctionRing.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error(e.getMessage());
+                return;
+            }
+            long stageStart = System.nanoTime();
+            try {
+                PipelineManager.correctAndForward(frame);
+            } catch (RuntimeException e) {
+                // Never let the stage die, the frame may be owned by the mailbox already
+                log.error(e.getMessage());
+            }
+            MetricsManager.STAGE_BUSY_CORRECTION.add(System.nanoTime() - stageStart);
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+  ZoneKernelTuner.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.config.Constants;
+import org.dpsoftware.config.Enums;
+import org.dpsoftware.config.PipelineSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Select the fastest zone kernel on the machine in use, used when the SIMD option is set to AUTO.
+ * The preferred vector species is not always the fastest one, some CPUs downclock on 512 bit instructions,
+ * and the integral image or the parallel engine can win depending on the resolution and on the number of LEDs.
+ * <p>
+ * When the pipeline starts or when the captured resolution or the number of LEDs changes, the candidate kernels are
+ * used in turn on the captured frames, the median time of every kernel is measured and the fastest one is locked in.
+ * Every candidate samples the zones crossing the frame edges in the same way and produces the same colors,
+ * so tuning is not visible on the LED strip.
+ * Tuning state is accessed by the capture thread only, the selected kernel is published for the Info dialog.
+ */
+@Slf4j
+public class ZoneKernelTuner {
+
+    private static final int SAMPLES = Constants.ZONE_KERNEL_TUNER_WARMUP_FRAMES + Constants.ZONE_KERNEL_TUNER_FRAMES;
+    private static volatile boolean resetRequested = true;
+    private static volatile Kernel selected;
+    private static volatile long selectedNanos;
+    private static Kernel[] candidates;
+    private static long[][] nanos;
+    private static int frameNum;
+    private static int tunedWidth;
+    private static int tunedHeight;
+    private static int tunedLedNum;
+    private static boolean tunedParallelZones;
+
+    /**
+     * Get the kernel to use on the current frame
+     *
+     * @param plan     zone plan in use
+     * @param settings pipeline settings in use
+     * @return kernel to use, null if the kernel has been selected by the user
+     */
+    public static Kernel kernelFor(ZonePlan plan, PipelineSettings settings) {
+        if (!settings.zoneKernelAutoTune()) {
+            return null;
+        }
+        if (resetRequested || plan.getWidth() != tunedWidth || plan.getHeight() != tunedHeight
+                || plan.getLedNum() != tunedLedNum || settings.parallelZones() != tunedParallelZones) {
+            startTuning(plan, settings);
+        }
+        if (candidates == null) {
+            return selected;
+        }
+        return candidates[frameNum % candidates.length];
+    }
+
+    /**
+     * Record the time spent by the kernel on the current frame, when all the candidates have been measured
+     * the fastest one is selected
+     *
+     * @param kernel      kernel used on the current frame
+     * @param elapsedNano time spent to compute all the zones
+     */
+    public static void record(Kernel kernel, long elapsedNano) {
+        if (candidates == null || kernel == null) {
+            return;
+        }
+        nanos[frameNum % candidates.length][frameNum / candidates.length] = elapsedNano;
+        if (++frameNum == candidates.length * SAMPLES) {
+            selectFastest();
+        }
+    }
+
+    /**
+     * Tune again on the next frame, called when the pipeline is disposed or when the LED matrix changes
+     */
+    public static void reset() {
+        resetRequested = true;
+    }
+
+    /**
+     * Selected kernel and its median time, used by the Info dialog
+     *
+     * @return selected kernel description, empty if no kernel has been selected by the tuner
+     */
+    public static String getSelectedKernelInfo() {
+        Kernel kernel = selected;
+        if (kernel == null) {
+            return "";
+        }
+        return Constants.INFO_ZONE_KERNEL + kernel.getName() + " (" + selectedNanos + " ns/frame)";
+    }
+
+    /**
+     * Build the candidates list for the current frame size, species wider than the preferred one are emulated, so they are skipped
+     *
+     * @param plan     zone plan in use
+     * @param settings pipeline settings in use
+     */
+    private static void startTuning(ZonePlan plan, PipelineSettings settings) {
+        resetRequested = false;
+        tunedWidth = plan.getWidth();
+        tunedHeight = plan.getHeight();
+        tunedLedNum = plan.getLedNum();
+        tunedParallelZones = settings.parallelZones();
+        int preferredLength = IntVector.SPECIES_PREFERRED.length();
+        List<Kernel> kernels = new ArrayList<>();
+        kernels.add(new Kernel(Enums.SimdAvxOption.DISABLED, null, false));
+        kernels.add(new Kernel(Enums.SimdAvxOption.INTEGRAL_IMAGE, null, false));
+        if (IntVector.SPECIES_128.length() <= preferredLength) {
+            kernels.add(new Kernel(Enums.SimdAvxOption.AVX, IntVector.SPECIES_128, false));
+        }
+        if (IntVector.SPECIES_256.length() <= preferredLength) {
+            kernels.add(new Kernel(Enums.SimdAvxOption.AVX256, IntVector.SPECIES_256, false));
+        }
+        if (IntVector.SPECIES_512.length() <= preferredLength) {
+            kernels.add(new Kernel(Enums.SimdAvxOption.AVX512, IntVector.SPECIES_512, false));
+        }
+        // Parallel variants are measured only if parallel zones are enabled and the workload is big enough to be split
+        if (settings.parallelZones() && ParallelZoneEngine.threadsFor(plan) > 1) {
+            for (Kernel kernel : List.copyOf(kernels)) {
+                kernels.add(new Kernel(kernel.simdAvxOption(), kernel.species(), true));
+            }
+        }
+        candidates = kernels.toArray(new Kernel[0]);
+        nanos = new long[candidates.length][SAMPLES];
+        frameNum = 0;
+        log.info("Tuning zone kernel on {}x{} with {} LEDs, {} candidates", tunedWidth, tunedHeight, tunedLedNum, candidates.length);
+    }
+
+    /**
+     * Select the kernel with the lowest median time, warmup frames are discarded
+     */
+    private static void selectFastest() {
+        Kernel fastest = null;
+        long fastestNanos = Long.MAX_VALUE;
+        StringBuilder results = new StringBuilder();
+        for (int i = 0; i < candidates.length; i++) {
+            long[] measured = Arrays.copyOfRange(nanos[i], Constants.ZONE_KERNEL_TUNER_WARMUP_FRAMES, SAMPLES);
+            Arrays.sort(measured);
+            long median = measured[measured.length / 2];
+            results.append(candidates[i].getName()).append("=").append(median).append("ns ");
+            if (median < fastestNanos) {
+                fastestNanos = median;
+                fastest = candidates[i];
+            }
+        }
+        selectedNanos = fastestNanos;
+        selected = fastest;
+        candidates = null;
+        nanos = null;
+        log.info("Zone kernel selected: {} ({} ns/frame)", fastest != null ? fastest.getName() : "", fastestNanos);
+        log.debug("Zone kernel tuning results: {}", results.toString().trim());
+    }
+
+    /**
+     * Zone kernel candidate
+     *
+     * @param simdAvxOption engine used to compute the zones
+     * @param species       vector species, null if the engine doesn't use SIMD instructions
+     * @param parallel      true if zones are computed on multiple cores
+     */
+    public record Kernel(Enums.SimdAvxOption simdAvxOption, VectorSpecies<Integer> species, boolean parallel) {
+
+        /**
+         * Check if the kernel uses the summed-area table
+         *
+         * @return true if the integral image must be built on the frame
+         */
+        public boolean integralImage() {
+            return Enums.SimdAvxOption.INTEGRAL_IMAGE.equals(simdAvxOption);
+        }
+
+        /**
+         * Kernel name used in the logs and in the Info dialog
+         *
+         * @return kernel name
+         */
+        public String getName() {
+            return simdAvxOption.name() + (parallel ? " parallel" : "");
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+  ZonePlan.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.LEDCoordinate;
+import org.dpsoftware.MainSingleton;
+import org.dpsoftware.config.Enums;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LED geometry compiled into parallel arrays (struct of arrays).
+ * The LED matrix is a LinkedHashMap with boxed keys, iterating it on every frame means boxing, pointer chasing and
+ * recomputing the scaled coordinates of every zone. The plan computes the zone rectangles once, and it is reused
+ * until the LED matrix, the scaling or the captured frame size changes.
+ * <p>
+ * Plans are cached per aspect ratio, when black bars detection switches the LED matrix the plan is already there.
+ */
+@Slf4j
+@Getter
+public class ZonePlan {
+
+    private static final Map<Enums.AspectRatio, ZonePlan> cache = new EnumMap<>(Enums.AspectRatio.class);
+    private static volatile ZonePlan lastPlan;
+    // Source of the plan and parameters used to compile it
+    private final LinkedHashMap<Integer, LEDCoordinate> ledMatrix;
+    private final int coordinateMultiplier;
+    private final int coordinateDivisor;
+    private final int sizeDivisor;
+    private final int width;
+    private final int height;
+    private final boolean groupLeds;
+    private final int ledNum;
+    // Number of pixels read on every frame, used to size the parallel computation
+    private final long workload;
+    // Zone rectangles, x1 and y1 are exclusive
+    final int[] x0;
+    final int[] y0;
+    final int[] x1;
+    final int[] y1;
+    final boolean[] active;
+    // Index of the LEDs that needs to be computed
+    final int[] zones;
+    // Index of the grouped LEDs, they use the color of the previous LED, empty when grouped LEDs are computed as zones
+    final int[] groupedLeds;
+    // R, G, B sums and number of pixels of every LED, 4 slots per LED written by the zone kernels, reused on every frame
+    final int[] zoneSums;
+
+    /**
+     * Compile the plan
+     *
+     * @param ledMatrix            LED matrix to compile
+     * @param coordinateMultiplier multiplier applied to X and Y
+     * @param coordinateDivisor    divisor applied to X and Y
+     * @param sizeDivisor          divisor applied to width and height
+     * @param width                captured frame width (including stride)
+     * @param height               captured frame height
+     * @param groupLeds            if true, grouped LEDs copy the previous LED instead of being computed
+     */
+    private ZonePlan(LinkedHashMap<Integer, LEDCoordinate> ledMatrix, int coordinateMultiplier, int coordinateDivisor,
+                     int sizeDivisor, int width, int height, boolean groupLeds) {
+        this.ledMatrix = ledMatrix;
+        this.coordinateMultiplier = coordinateMultiplier;
+        this.coordinateDivisor = coordinateDivisor;
+        this.sizeDivisor = sizeDivisor;
+        this.width = width;
+        this.height = height;
+        this.groupLeds = groupLeds;
+        this.ledNum = ledMatrix.size();
+        x0 = new int[ledNum];
+        y0 = new int[ledNum];
+        x1 = new int[ledNum];
+        y1 = new int[ledNum];
+        active = new boolean[ledNum];
+        int[] zoneIdx = new int[ledNum];
+        int[] groupedIdx = new int[ledNum];
+        int zoneNum = 0, groupedNum = 0;
+        long pixels = 0;
+        for (Map.Entry<Integer, LEDCoordinate> entry : ledMatrix.entrySet()) {
+            int i = entry.getKey() - 1;
+            LEDCoordinate coordinate = entry.getValue();
+            x0[i] = (coordinate.getX() * coordinateMultiplier) / coordinateDivisor;
+            y0[i] = (coordinate.getY() * coordinateMultiplier) / coordinateDivisor;
+            x1[i] = x0[i] + (coordinate.getWidth() / sizeDivisor);
+            y1[i] = y0[i] + (coordinate.getHeight() / sizeDivisor);
+            active[i] = coordinate.isActive();
+            if (groupLeds && coordinate.isGroupedLed() && i > 0) {
+                groupedIdx[groupedNum++] = i;
+            } else {
+                zoneIdx[zoneNum++] = i;
+                pixels += (long) (x1[i] - x0[i]) * (y1[i] - y0[i]);
+            }
+        }
+        workload = pixels;
+        zones = Arrays.copyOf(zoneIdx, zoneNum);
+        groupedLeds = Arrays.copyOf(groupedIdx, groupedNum);
+        zoneSums = new int[ledNum * 4];
+    }
+
+    /**
+     * Get the plan used by the GStreamer grabber, coordinates are divided by the resampling factor
+     *
+     * @param ledMatrix        LED matrix in use
+     * @param resamplingFactor resampling factor
+     * @param widthPlusStride  captured frame width including the stride
+     * @param height           captured frame height
+     * @return zone plan
+     */
+    public static ZonePlan forCapture(LinkedHashMap<Integer, LEDCoordinate> ledMatrix, int resamplingFactor, int widthPlusStride, int height) {
+        return get(ledMatrix, 1, resamplingFactor, resamplingFactor, widthPlusStride, height, true);
+    }
+
+    /**
+     * Get the plan used on screenshots, coordinates are scaled by the OS scaling if needed.
+     * Screenshot capture has always averaged the grouped LEDs too, so they are computed as regular zones.
+     *
+     * @param ledMatrix        LED matrix in use
+     * @param osScaling        OS scaling percentage
+     * @param scaleCoordinates if true, X and Y are scaled by the OS scaling
+     * @param width            screenshot width
+     * @param height           screenshot height
+     * @return zone plan
+     */
+    public static ZonePlan forScreenshot(LinkedHashMap<Integer, LEDCoordinate> ledMatrix, int osScaling, boolean scaleCoordinates, int width, int height) {
+        return scaleCoordinates ? get(ledMatrix, 100, osScaling, 1, width, height, false) : get(ledMatrix, 1, 1, 1, width, height, false);
+    }
+
+    /**
+     * Get a plan, the last plan is returned without locking if it still matches
+     *
+     * @return zone plan
+     */
+    private static ZonePlan get(LinkedHashMap<Integer, LEDCoordinate> ledMatrix, int coordinateMultiplier, int coordinateDivisor,
+                                int sizeDivisor, int width, int height, boolean groupLeds) {
+        ZonePlan plan = lastPlan;
+        if (plan != null && plan.isCompiledFor(ledMatrix, coordinateMultiplier, coordinateDivisor, sizeDivisor, width, height, groupLeds)) {
+            return plan;
+        }
+        return lookup(ledMatrix, coordinateMultiplier, coordinateDivisor, sizeDivisor, width, height, groupLeds);
+    }
+
+    /**
+     * Search the plan in the cache, compile it if needed
+     *
+     * @return zone plan
+     */
+    private static synchronized ZonePlan lookup(LinkedHashMap<Integer, LEDCoordinate> ledMatrix, int coordinateMultiplier, int coordinateDivisor,
+                                                int sizeDivisor, int width, int height, boolean groupLeds) {
+        Enums.AspectRatio aspectRatio = null;
+        if (MainSingleton.getInstance().config != null) {
+            for (Enums.AspectRatio ar : Enums.AspectRatio.values()) {
+                if (MainSingleton.getInstance().config.getLedMatrixInUse(ar.getBaseI18n()) == ledMatrix) {
+                    aspectRatio = ar;
+                    break;
+                }
+            }
+        }
+        ZonePlan plan = aspectRatio != null ? cache.get(aspectRatio) : null;
+        if (plan == null || !plan.isCompiledFor(ledMatrix, coordinateMultiplier, coordinateDivisor, sizeDivisor, width, height, groupLeds)) {
+            plan = new ZonePlan(ledMatrix, coordinateMultiplier, coordinateDivisor, sizeDivisor, width, height, groupLeds);
+            log.debug("Zone plan compiled, aspect ratio={}, LEDs={}, zones={}", aspectRatio, plan.ledNum, plan.zones.length);
+            if (aspectRatio != null) {
+                cache.put(aspectRatio, plan);
+            }
+        }
+        lastPlan = plan;
+        return plan;
+    }
+
+    /**
+     * Remove all the compiled plans, to be used when the LED matrix is changed
+     */
+    public static synchronized void invalidate() {
+        cache.clear();
+        lastPlan = null;
+    }
+
+    /**
+     * Check if the plan has been compiled using the given parameters
+     *
+     * @return true if the plan can be used
+     */
+    boolean isCompiledFor(LinkedHashMap<Integer, LEDCoordinate> ledMatrix, int coordinateMultiplier, int coordinateDivisor,
+                          int sizeDivisor, int width, int height, boolean groupLeds) {
+        return this.ledMatrix == ledMatrix && this.ledNum == ledMatrix.size()
+                && this.coordinateMultiplier == coordinateMultiplier && this.coordinateDivisor == coordinateDivisor
+                && this.sizeDivisor == sizeDivisor && this.width == width && this.height == height && this.groupLeds == groupLeds;
+    }
+
+    /**
+     * Grouped LEDs use the color of the previous LED, this must run after all the zones have been computed
+     *
+     * @param leds packed colors
+     */
+    public void copyGroupedLeds(int[] leds) {
+        for (int i : groupedLeds) {
+            leds[i] = leds[i - 1];
+        }
+    }
+
+}
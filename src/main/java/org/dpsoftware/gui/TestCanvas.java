@@ -703,7 +703,7 @@ public class TestCanvas {
             }
             gc.setFill(new Color(hslBefore.getRed() / 255F, hslBefore.getGreen() / 255F, hslBefore.getBlue() / 255F, 1));
             gc.fillText(CommonUtility.getWord(Constants.TC_BEFORE_TEXT).replace("{0}", String.valueOf(hslBefore.getRed())).replace("{1}", String.valueOf(hslBefore.getGreen())).replace("{2}", String.valueOf(hslBefore.getBlue())), scaleDownResolution((conf.getScreenResX() / 2), scaleRatio), textPos);
-            var hslAfter = ImageProcessor.manageColors(hslBefore);
+            var hslAfter = new java.awt.Color(ImageProcessor.manageColors(hslBefore.getRGB() & 0xFFFFFF));
             ColorRGBW colorRGBW;
             if (hslAfter.getRGB() != hslBefore.getRGB()) {
                 colorRGBW = ColorUtilities.calculateRgbMode(hslAfter.getRed(), hslAfter.getGreen(), hslAfter.getBlue());
@@ -39,6 +39,7 @@ import org.dpsoftware.config.Configuration;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
 import org.dpsoftware.config.LocalizedEnum;
+import org.dpsoftware.config.PipelineSettings;
 import org.dpsoftware.gui.GuiManager;
 import org.dpsoftware.gui.GuiSingleton;
 import org.dpsoftware.gui.TestCanvas;
@@ -344,6 +345,7 @@ public class ColorCorrectionDialogController {
      */
     private void setGreyLightness() {
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.GREY).setLightness((float) greyChannel.getValue() / Constants.LIGHTNESS_PRECISION);
+        PipelineSettings.refresh();
         if (!GuiSingleton.getInstance().selectedChannel.equals(Color.GRAY)) {
             GuiSingleton.getInstance().hueTestImageValue = Enums.ColorEnum.GREY.getVal();
             hueMonitorSlider.setValue(0.0F);
@@ -360,6 +362,7 @@ public class ColorCorrectionDialogController {
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.RED).setSaturation((float) redSaturation.getValue());
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.RED).setLightness((float) redLightness.getValue() / Constants.LIGHTNESS_PRECISION);
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.RED).setHue((float) redHue.getValue());
+        PipelineSettings.refresh();
         if (!GuiSingleton.getInstance().selectedChannel.equals(Color.RED)) {
             GuiSingleton.getInstance().hueTestImageValue = Enums.ColorEnum.RED.getVal();
             hueMonitorSlider.setValue(0.0F);
@@ -376,6 +379,7 @@ public class ColorCorrectionDialogController {
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.YELLOW).setSaturation((float) yellowSaturation.getValue());
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.YELLOW).setLightness((float) yellowLightness.getValue() / Constants.LIGHTNESS_PRECISION);
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.YELLOW).setHue((float) yellowHue.getValue());
+        PipelineSettings.refresh();
         if (!GuiSingleton.getInstance().selectedChannel.equals(Color.YELLOW)) {
             GuiSingleton.getInstance().hueTestImageValue = Enums.ColorEnum.YELLOW.getVal();
             hueMonitorSlider.setValue(0.0F);
@@ -392,6 +396,7 @@ public class ColorCorrectionDialogController {
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.GREEN).setSaturation((float) greenSaturation.getValue());
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.GREEN).setLightness((float) greenLightness.getValue() / Constants.LIGHTNESS_PRECISION);
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.GREEN).setHue((float) greenHue.getValue());
+        PipelineSettings.refresh();
         if (!GuiSingleton.getInstance().selectedChannel.equals(Color.GREEN)) {
             GuiSingleton.getInstance().hueTestImageValue = Enums.ColorEnum.GREEN.getVal();
             hueMonitorSlider.setValue(0.0F);
@@ -408,6 +413,7 @@ public class ColorCorrectionDialogController {
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.CYAN).setSaturation((float) cyanSaturation.getValue());
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.CYAN).setLightness((float) cyanLightness.getValue() / Constants.LIGHTNESS_PRECISION);
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.CYAN).setHue((float) cyanHue.getValue());
+        PipelineSettings.refresh();
         if (!GuiSingleton.getInstance().selectedChannel.equals(Color.CYAN)) {
             GuiSingleton.getInstance().hueTestImageValue = Enums.ColorEnum.CYAN.getVal();
             hueMonitorSlider.setValue(0.0F);
@@ -424,6 +430,7 @@ public class ColorCorrectionDialogController {
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.BLUE).setSaturation((float) blueSaturation.getValue());
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.BLUE).setLightness((float) blueLightness.getValue() / Constants.LIGHTNESS_PRECISION);
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.BLUE).setHue((float) blueHue.getValue());
+        PipelineSettings.refresh();
         if (!GuiSingleton.getInstance().selectedChannel.equals(Color.BLUE)) {
             GuiSingleton.getInstance().hueTestImageValue = Enums.ColorEnum.BLUE.getVal();
             hueMonitorSlider.setValue(0.0F);
@@ -440,6 +447,7 @@ public class ColorCorrectionDialogController {
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.MAGENTA).setSaturation((float) magentaSaturation.getValue());
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.MAGENTA).setLightness((float) magentaLightness.getValue() / Constants.LIGHTNESS_PRECISION);
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.MAGENTA).setHue((float) magentaHue.getValue());
+        PipelineSettings.refresh();
         if (!GuiSingleton.getInstance().selectedChannel.equals(Color.MAGENTA)) {
             GuiSingleton.getInstance().hueTestImageValue = Enums.ColorEnum.MAGENTA.getVal();
             hueMonitorSlider.setValue(0.0F);
@@ -455,6 +463,7 @@ public class ColorCorrectionDialogController {
     private void setMasterChannel() {
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.MASTER).setSaturation((float) saturation.getValue());
         MainSingleton.getInstance().config.getHueMap().get(Enums.ColorEnum.MASTER).setLightness((float) saturationLightness.getValue() / Constants.LIGHTNESS_PRECISION);
+        PipelineSettings.refresh();
         if (!GuiSingleton.getInstance().selectedChannel.equals(Color.BLACK)) {
             GuiSingleton.getInstance().hueTestImageValue = 0;
             hueMonitorSlider.setValue(0.0F);
@@ -815,6 +824,7 @@ public class ColorCorrectionDialogController {
      */
     private void setConfig(Configuration c) {
         MainSingleton.getInstance().setConfig(c);
+        PipelineSettings.refresh();
         settingsController.ledsConfigTabController.topLed.setText(String.valueOf(c.getTopLed()));
         settingsController.ledsConfigTabController.rightLed.setText(String.valueOf(c.getRightLed()));
         settingsController.ledsConfigTabController.bottomRightLed.setText(String.valueOf(c.getBottomRightLed()));
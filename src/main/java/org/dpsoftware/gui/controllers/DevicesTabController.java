@@ -40,10 +40,12 @@ import org.dpsoftware.gui.GuiManager;
 import org.dpsoftware.gui.GuiSingleton;
 import org.dpsoftware.gui.elements.GlowWormDevice;
 import org.dpsoftware.managers.DisplayManager;
+import org.dpsoftware.managers.FlightRecorderManager;
 import org.dpsoftware.managers.NetworkManager;
 import org.dpsoftware.managers.dto.FirmwareConfigDto;
 import org.dpsoftware.utilities.CommonUtility;
 
+import java.nio.file.Path;
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -76,6 +78,8 @@ public class DevicesTabController {
     public TableColumn<GlowWormDevice, String> gpioClockColumn;
     @FXML
     public CheckBox startWithSystem;
+    @FXML
+    public ToggleButton flightRecording;
     boolean cellEdit = false;
     @FXML
     RowConstraints runLoginRow;
@@ -212,6 +216,7 @@ public class DevicesTabController {
         numberOfLEDSconnectedColumn.setCellValueFactory(cellData -> cellData.getValue().numberOfLEDSconnectedProperty());
         deviceTable.setEditable(true);
         deviceTable.setItems(getDeviceTableData());
+        flightRecording.setSelected(FlightRecorderManager.isRecording());
         if (NativeExecutor.isLinux()) {
             runLoginRow.setPrefHeight(0);
             runLoginRow.setMinHeight(0);
@@ -560,6 +565,22 @@ public class DevicesTabController {
         }
     }
 
+    /**
+     * Start or stop a flight recording, once stopped the user is told where the file has been saved
+     */
+    @FXML
+    public void flightRecordingAction() {
+        if (flightRecording.isSelected()) {
+            flightRecording.setSelected(FlightRecorderManager.start());
+        } else {
+            Path recordingFile = FlightRecorderManager.stop();
+            if (recordingFile != null && MainSingleton.getInstance().guiManager != null) {
+                MainSingleton.getInstance().guiManager.showAlert(CommonUtility.getWord(Constants.JFR_ALERT_TITLE),
+                        CommonUtility.getWord(Constants.JFR_ALERT_HEADER), recordingFile.toString(), Alert.AlertType.INFORMATION);
+            }
+        }
+    }
+
     /**
      * Save button event
      *
@@ -603,6 +624,7 @@ public class DevicesTabController {
         GuiManager.createTooltip(Constants.TOOLTIP_MULTIMONITOR, multiMonitor);
         GuiManager.createTooltip(Constants.TOOLTIP_CHECK_UPDATES, checkForUpdates);
         GuiManager.createTooltip(Constants.TOOLTIP_SYNC_CHECK, syncCheck);
+        GuiManager.createTooltip(Constants.TOOLTIP_FLIGHT_RECORDING, flightRecording);
         if (currentConfig == null) {
             GuiManager.createTooltip(Constants.TOOLTIP_SAVEDEVICEBUTTON_NULL, saveDeviceButton);
         }
@@ -32,15 +32,21 @@ import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.SplitPane;
+import javafx.scene.control.Tooltip;
 import javafx.scene.input.InputEvent;
 import javafx.stage.Stage;
 import lombok.extern.slf4j.Slf4j;
 import org.dpsoftware.MainSingleton;
 import org.dpsoftware.NativeExecutor;
 import org.dpsoftware.config.Constants;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.grabber.LatencyHistogram;
+import org.dpsoftware.grabber.LatencyMonitor;
+import org.dpsoftware.grabber.ZoneKernelTuner;
 import org.dpsoftware.utilities.CommonUtility;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -65,6 +71,9 @@ public class InfoController {
     @FXML
     private final StringProperty cpuLatencyValue = new SimpleStringProperty("");
     @FXML
+    private final StringProperty latencyValue = new SimpleStringProperty("");
+    private final Tooltip latencyTooltip = new Tooltip();
+    @FXML
     public Button closeWindowBtn;
     @FXML
     public Button minimizeWindowBtn;
@@ -83,6 +92,8 @@ public class InfoController {
     @FXML
     private Label cpuLatency;
     @FXML
+    private Label latencyLabel;
+    @FXML
     private Label version;
     @FXML
     private LineChart<String, Number> lineChart = new LineChart<>(xAxisFramerate, yAxisFramerate);
@@ -108,6 +119,8 @@ public class InfoController {
         consumerLabel.textProperty().bind(consumerValueProperty());
         wifiLdrLabel.textProperty().bind(wifiLdrValueProperty());
         cpuLatency.textProperty().bind(cpuLatencyValueProperty());
+        latencyLabel.textProperty().bind(latencyValueProperty());
+        latencyLabel.setTooltip(latencyTooltip);
         version.setText(Constants.INFO_VERSION.replaceAll("VERSION", MainSingleton.getInstance().version));
         runLater();
         startAnimationTimer();
@@ -151,14 +164,25 @@ public class InfoController {
             if (wifiSeries.getData().size() > WINDOW_SIZE) {
                 wifiSeries.getData().removeFirst();
             }
-            setProducerValue(CommonUtility.getWord(Constants.INFO_PRODUCING) + MainSingleton.getInstance().FPS_PRODUCER + Constants.FPS_VAL);
+            setProducerValue(CommonUtility.getWord(Constants.INFO_PRODUCING) + MainSingleton.getInstance().FPS_PRODUCER + Constants.FPS_VAL
+                    + Constants.INFO_DROPPED + MainSingleton.getInstance().FPS_DROPPED);
             setConsumerValue(CommonUtility.getWord(Constants.INFO_CONSUMING) + MainSingleton.getInstance().FPS_GW_CONSUMER + Constants.FPS_VAL);
             String wifiLdr = Constants.INFO_WIFI + MainSingleton.getInstance().wifiStrength + Constants.PERCENT;
             if (MainSingleton.getInstance().config.isEnableLDR()) {
                 wifiLdr += Constants.INFO_LDR + MainSingleton.getInstance().ldrStrength + Constants.PERCENT;
             }
             setWifiLdrValue(wifiLdr);
-            setCpuLatencyValue(Constants.INFO_CPU_LAT + MainSingleton.getInstance().getCpuLatencyBench() + " ns");
+            String cpuLatency = Constants.INFO_CPU_LAT + MainSingleton.getInstance().getCpuLatencyBench() + " ns";
+            if (PipelineSettings.get().zoneKernelAutoTune()) {
+                cpuLatency += ZoneKernelTuner.getSelectedKernelInfo();
+            }
+            setCpuLatencyValue(cpuLatency);
+            setLatencyValue(Constants.INFO_LATENCY + LatencyMonitor.CAPTURE_TO_WIRE.getLastSnapshot().format());
+            StringBuilder stages = new StringBuilder();
+            for (Map.Entry<String, LatencyHistogram.Snapshot> stage : LatencyMonitor.getLastSnapshots().entrySet()) {
+                stages.append(stage.getKey()).append(": ").append(stage.getValue().format()).append("\n");
+            }
+            latencyTooltip.setText(stages.toString().strip());
         }), 0, 1, TimeUnit.SECONDS);
     }
 
@@ -221,4 +245,12 @@ public class InfoController {
         this.cpuLatencyValue.set(cpuLatValue);
     }
 
+    public StringProperty latencyValueProperty() {
+        return latencyValue;
+    }
+
+    public void setLatencyValue(String latencyValue) {
+        this.latencyValue.set(latencyValue);
+    }
+
 }
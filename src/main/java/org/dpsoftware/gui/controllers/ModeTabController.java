@@ -193,6 +193,7 @@ public class ModeTabController {
         if (MainSingleton.getInstance().getSupportedSpeciesLengthSimd() >= 8) {
             simdOption.getItems().add(Enums.SimdAvxOption.AVX.getI18n());
         }
+        simdOption.getItems().add(Enums.SimdAvxOption.INTEGRAL_IMAGE.getI18n());
         simdOption.getItems().add(Enums.SimdAvxOption.DISABLED.getI18n());
     }
 
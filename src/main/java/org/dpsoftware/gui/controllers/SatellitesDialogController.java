@@ -327,6 +327,8 @@ public class SatellitesDialogController {
             }
             MainSingleton.getInstance().config.getSatellites().clear();
             MainSingleton.getInstance().config.getSatellites().putAll(config.getSatellites());
+            // Senders of removed satellites are stopped, the others are created again on the next frame
+            NetworkManager.closeUdpSenders();
         } else {
             config.getSatellites().clear();
             config.getSatellites().putAll(MainSingleton.getInstance().config.getSatellites());
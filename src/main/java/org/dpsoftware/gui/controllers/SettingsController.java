@@ -41,6 +41,7 @@ import org.dpsoftware.config.Configuration;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
 import org.dpsoftware.config.LocalizedEnum;
+import org.dpsoftware.config.PipelineSettings;
 import org.dpsoftware.gui.GuiManager;
 import org.dpsoftware.gui.GuiSingleton;
 import org.dpsoftware.gui.elements.DisplayInfo;
@@ -426,6 +427,7 @@ public class SettingsController {
         Configuration defaultConfig = sm.readProfileInUseConfig();
         sm.writeConfig(config, null);
         MainSingleton.getInstance().config = config;
+        PipelineSettings.refresh();
         sm.checkProfileDifferences(defaultConfig, MainSingleton.getInstance().config);
         if (firstStartup || (MainSingleton.getInstance().whoAmI == 1 && ((config.getMultiMonitor() == 2 && !sm.checkIfFileExist(Constants.CONFIG_FILENAME_2))
                 || (config.getMultiMonitor() == 3 && (!sm.checkIfFileExist(Constants.CONFIG_FILENAME_2) || !sm.checkIfFileExist(Constants.CONFIG_FILENAME_3)))))) {
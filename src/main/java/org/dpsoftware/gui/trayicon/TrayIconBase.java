@@ -28,6 +28,7 @@ import org.dpsoftware.NativeExecutor;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
 import org.dpsoftware.config.LocalizedEnum;
+import org.dpsoftware.config.PipelineSettings;
 import org.dpsoftware.grabber.GStreamerGrabber;
 import org.dpsoftware.gui.bindings.CommonBinding;
 import org.dpsoftware.managers.NetworkManager;
@@ -98,6 +99,7 @@ public abstract class TrayIconBase extends CommonBinding {
     public void setProfileAndRestart(String menuItemText) {
         StorageManager sm = new StorageManager();
         MainSingleton.getInstance().config = sm.readProfileAndCheckDifference(menuItemText, sm);
+        PipelineSettings.refresh();
         if (MainSingleton.getInstance().isRestartNeeded()) {
             if (menuItemText.equals(CommonUtility.getWord(Constants.DEFAULT))) {
                 NativeExecutor.restartNativeInstance(null);
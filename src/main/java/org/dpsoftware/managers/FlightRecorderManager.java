@@ -0,0 +1,106 @@
+/*
+  FlightRecorderManager.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.managers;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.config.Constants;
+import org.dpsoftware.config.InstanceConfigurer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Start and stop a Java Flight Recorder recording for bug reports.
+ * The recording uses the JDK default settings, that are designed for production, plus the pipeline events,
+ * the file is written in the Firefly Luciferin config folder when the recording is stopped.
+ */
+@Slf4j
+public class FlightRecorderManager {
+
+    private static Recording recording;
+
+    /**
+     * Check if a recording is running
+     *
+     * @return true if recording
+     */
+    public static synchronized boolean isRecording() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    /**
+     * Start a new recording, nothing happens if a recording is already running
+     *
+     * @return true if the recording has been started
+     */
+    public static synchronized boolean start() {
+        if (isRecording()) {
+            return true;
+        }
+        try {
+            Path destination = Path.of(InstanceConfigurer.getConfigPath(), MessageFormat.format(Constants.JFR_RECORDING_FILENAME,
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))));
+            recording = new Recording(Configuration.getConfiguration(Constants.JFR_RECORDING_SETTINGS));
+            recording.setName(Constants.JFR_RECORDING_NAME);
+            recording.setToDisk(true);
+            recording.setDestination(destination);
+            recording.start();
+            log.info("Flight recording started, it will be saved to {}", destination);
+            return true;
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            log.error("Unable to start flight recording: {}", e.getMessage());
+            recording = null;
+            return false;
+        }
+    }
+
+    /**
+     * Stop the running recording and write it to the destination file
+     *
+     * @return recording file, null if there was no recording
+     */
+    public static synchronized Path stop() {
+        if (recording == null) {
+            return null;
+        }
+        Path destination = recording.getDestination();
+        try {
+            recording.stop();
+            log.info("Flight recording saved to {}", destination);
+        } catch (IllegalStateException e) {
+            log.error("Unable to stop flight recording: {}", e.getMessage());
+            destination = null;
+        } finally {
+            recording.close();
+            recording = null;
+        }
+        return destination;
+    }
+
+}
@@ -24,10 +24,11 @@ package org.dpsoftware.managers;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.dpsoftware.network.tcpUdp.UdpClient;
+import org.dpsoftware.network.tcpUdp.UdpDeviceSender;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manager singleton used to share common data
@@ -46,7 +47,7 @@ public class ManagerSingleton {
     }
 
     public MqttClient client;
-    public Map<String, UdpClient> udpClient;
+    public Map<String, UdpDeviceSender> udpSender = new ConcurrentHashMap<>();
     public boolean pipelineStarting = false;
     public boolean pipelineStopping = false;
     public String lastEffectInUse = "";
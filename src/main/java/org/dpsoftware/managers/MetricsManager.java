@@ -0,0 +1,398 @@
+/*
+  MetricsManager.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.managers;
+
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.MainSingleton;
+import org.dpsoftware.config.Constants;
+import org.dpsoftware.grabber.LatencyHistogram;
+import org.dpsoftware.grabber.LatencyMonitor;
+import org.dpsoftware.grabber.StagedPipeline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Thread safe metrics shared by producers, consumer and sinks.
+ * Counters are backed by a LongAdder, so they can be incremented by any number of threads without losing counts
+ * and without contention on the hot path. Every metric is readable from here and, when enabled in the configuration,
+ * exported through a local HTTP endpoint in the Prometheus text format.
+ */
+@Slf4j
+public class MetricsManager {
+
+    private static final String PREFIX = "luciferin_";
+    private static final List<Metric> METRICS = new ArrayList<>();
+    public static final String SINK_SERIAL = "serial";
+    public static final String SINK_UDP = "udp";
+    public static final String SINK_MQTT = "mqtt";
+
+    // Frames produced by the screen capture, the audio effects and the other instances
+    public static final RateMeter FRAMES_PRODUCED = register(new RateMeter("frames_produced_total", "Frames produced by the capture and by the effects", ""));
+    // Frames sent to the LED strip, whatever the sink is
+    public static final RateMeter FRAMES_CONSUMED = register(new RateMeter("frames_consumed_total", "Frames sent to the LED strip", ""));
+    public static final Counter FRAMES_SENT_SERIAL = register(new Counter("frames_sent_total", "Frames sent per sink", sinkLabel(SINK_SERIAL)));
+    public static final Counter FRAMES_SENT_UDP = register(new Counter("frames_sent_total", "Frames sent per sink", sinkLabel(SINK_UDP)));
+    public static final Counter FRAMES_SENT_MQTT = register(new Counter("frames_sent_total", "Frames sent per sink", sinkLabel(SINK_MQTT)));
+    public static final Counter BYTES_SENT_SERIAL = register(new Counter("bytes_sent_total", "Bytes written per sink", sinkLabel(SINK_SERIAL)));
+    public static final Counter BYTES_SENT_UDP = register(new Counter("bytes_sent_total", "Bytes written per sink", sinkLabel(SINK_UDP)));
+    public static final Counter BYTES_SENT_MQTT = register(new Counter("bytes_sent_total", "Bytes written per sink", sinkLabel(SINK_MQTT)));
+    public static final Counter SEND_ERRORS_SERIAL = register(new Counter("send_errors_total", "Failed writes per sink", sinkLabel(SINK_SERIAL)));
+    public static final Counter SEND_ERRORS_UDP = register(new Counter("send_errors_total", "Failed writes per sink", sinkLabel(SINK_UDP)));
+    public static final Counter SEND_ERRORS_MQTT = register(new Counter("send_errors_total", "Failed writes per sink", sinkLabel(SINK_MQTT)));
+    // Binary UDP stream frames per type and bytes saved by the delta frames compared to full keyframes
+    public static final Counter UDP_KEYFRAMES = register(new Counter("udp_stream_frames_total", "Binary UDP stream frames per type", frameTypeLabel("keyframe")));
+    public static final Counter UDP_DELTA_FRAMES = register(new Counter("udp_stream_frames_total", "Binary UDP stream frames per type", frameTypeLabel("delta")));
+    public static final Counter UDP_DELTA_BYTES_SAVED = register(new Counter("udp_delta_bytes_saved_total", "Bytes not sent thanks to delta frames", ""));
+    public static final Counter PIPELINE_RESTARTS = register(new Counter("pipeline_restarts_total", "GStreamer pipeline restarts", ""));
+    // Time spent working on frames per pipeline stage, rate() of these counters is the stage occupancy
+    public static final Counter STAGE_BUSY_ZONES = register(new Counter("stage_busy_nanoseconds_total", "Time spent working on frames per stage", stageLabel(Constants.LATENCY_STAGE_ZONES)));
+    public static final Counter STAGE_BUSY_CORRECTION = register(new Counter("stage_busy_nanoseconds_total", "Time spent working on frames per stage", stageLabel(Constants.LATENCY_STAGE_POST_PROCESSING)));
+    public static final Counter STAGE_BUSY_OUTPUT = register(new Counter("stage_busy_nanoseconds_total", "Time spent working on frames per stage", stageLabel(Constants.PIPELINE_STAGE_OUTPUT)));
+    // Captured frames that finished after a newer one and have been dropped
+    public static final Counter OUT_OF_ORDER_MAILBOX = register(new Counter("frames_out_of_order_total", "Frames older than the last frame emitted", stageLabel(Constants.SEQUENCE_STAGE_MAILBOX)));
+    public static final Counter OUT_OF_ORDER_OUTPUT = register(new Counter("frames_out_of_order_total", "Frames older than the last frame emitted", stageLabel(Constants.PIPELINE_STAGE_OUTPUT)));
+    public static final Counter OUT_OF_ORDER_SERIAL = register(new Counter("frames_out_of_order_total", "Frames older than the last frame emitted", stageLabel(SINK_SERIAL)));
+    public static final Counter OUT_OF_ORDER_UDP = register(new Counter("frames_out_of_order_total", "Frames older than the last frame emitted", stageLabel(SINK_UDP)));
+    public static final Counter OUT_OF_ORDER_MQTT = register(new Counter("frames_out_of_order_total", "Frames older than the last frame emitted", stageLabel(SINK_MQTT)));
+    // Frames that started late, the work on the previous frame took longer than the frame period
+    public static final Counter PACER_MISSED_PRODUCER = register(new Counter("pacer_missed_deadlines_total", "Frames that missed their deadline per pacer", pacerLabel("producer")));
+    public static final Counter PACER_MISSED_INTERPOLATOR = register(new Counter("pacer_missed_deadlines_total", "Frames that missed their deadline per pacer", pacerLabel("frameInsertion")));
+    public static final Counter PACER_MISSED_KEEPALIVE = register(new Counter("pacer_missed_deadlines_total", "Frames that missed their deadline per pacer", pacerLabel("waylandKeepalive")));
+    public static final Counter STAGE_RING_FULL = register(new Counter("stage_ring_full_total", "Frames dropped because the next stage was busy", stageLabel(Constants.LATENCY_STAGE_POST_PROCESSING)));
+
+    static {
+        register(new Gauge("frames_dropped_total", "Frames replaced by a newer one before being sent", "", Metric.COUNTER,
+                () -> MainSingleton.getInstance().frameMailbox != null ? MainSingleton.getInstance().frameMailbox.getDroppedFrames() : 0));
+        register(new Gauge("producing_fps", "Frames produced per second", "", Metric.GAUGE, () -> MainSingleton.getInstance().FPS_PRODUCER));
+        register(new Gauge("consuming_fps", "Frames sent per second", "", Metric.GAUGE, () -> MainSingleton.getInstance().FPS_CONSUMER));
+        register(new Gauge("device_fps", "Frames per second shown by the microcontroller", "", Metric.GAUGE, () -> MainSingleton.getInstance().FPS_GW_CONSUMER));
+        register(new Gauge("stage_queue_depth", "Frames waiting for the next stage", stageLabel(Constants.LATENCY_STAGE_POST_PROCESSING), Metric.GAUGE,
+                StagedPipeline::getCorrectionQueueDepth));
+        register(new Gauge("running", "1 if the screen capture is running", "", Metric.GAUGE, () -> MainSingleton.getInstance().RUNNING ? 1 : 0));
+    }
+
+    private static HttpServer server;
+
+    /**
+     * Add a metric to the registry, metrics sharing the same name must be registered one after the other
+     *
+     * @param metric metric to add
+     * @param <T>    metric type
+     * @return the registered metric
+     */
+    private static synchronized <T extends Metric> T register(T metric) {
+        METRICS.add(metric);
+        return metric;
+    }
+
+    /**
+     * Prometheus label for a sink
+     *
+     * @param sink sink name
+     * @return label string
+     */
+    private static String sinkLabel(String sink) {
+        return "sink=\"" + sink + "\"";
+    }
+
+    /**
+     * Prometheus label for a pipeline stage
+     *
+     * @param stage stage name
+     * @return label string
+     */
+    private static String stageLabel(String stage) {
+        return "stage=\"" + stage + "\"";
+    }
+
+    /**
+     * Prometheus label for a stream frame type
+     *
+     * @param type frame type
+     * @return label string
+     */
+    private static String frameTypeLabel(String type) {
+        return "type=\"" + type + "\"";
+    }
+
+    /**
+     * Prometheus label for a frame pacer
+     *
+     * @param pacer pacer name
+     * @return label string
+     */
+    private static String pacerLabel(String pacer) {
+        return "pacer=\"" + pacer + "\"";
+    }
+
+    /**
+     * Close the rate window on every rate meter
+     *
+     * @param seconds window length in seconds
+     */
+    public static void tick(int seconds) {
+        for (Metric metric : METRICS) {
+            if (metric instanceof RateMeter rateMeter) {
+                rateMeter.tick(seconds);
+            }
+        }
+    }
+
+    /**
+     * Start a new rate window without computing the rate, used when the capture is stopped
+     */
+    public static void resetRates() {
+        for (Metric metric : METRICS) {
+            if (metric instanceof RateMeter rateMeter) {
+                rateMeter.reset();
+            }
+        }
+    }
+
+    /**
+     * Write every metric in the Prometheus text format
+     *
+     * @return Prometheus exposition text
+     */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        String lastName = null;
+        for (Metric metric : METRICS) {
+            if (!metric.name.equals(lastName)) {
+                sb.append("# HELP ").append(PREFIX).append(metric.name).append(' ').append(metric.help).append('\n');
+                sb.append("# TYPE ").append(PREFIX).append(metric.name).append(' ').append(metric.type).append('\n');
+                lastName = metric.name;
+            }
+            appendSample(sb, metric.name, metric.labels, metric.value());
+        }
+        sb.append("# HELP ").append(PREFIX).append("latency_microseconds Pipeline stage latency over the last window\n");
+        sb.append("# TYPE ").append(PREFIX).append("latency_microseconds gauge\n");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> stage : LatencyMonitor.getLastSnapshots().entrySet()) {
+            String stageLabel = "stage=\"" + stage.getKey() + "\",quantile=";
+            appendSample(sb, "latency_microseconds", stageLabel + "\"0.5\"", stage.getValue().p50());
+            appendSample(sb, "latency_microseconds", stageLabel + "\"0.95\"", stage.getValue().p95());
+            appendSample(sb, "latency_microseconds", stageLabel + "\"0.99\"", stage.getValue().p99());
+            appendSample(sb, "latency_microseconds", stageLabel + "\"1\"", stage.getValue().max());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append a single sample line
+     *
+     * @param sb     output
+     * @param name   metric name without prefix
+     * @param labels Prometheus labels, empty if none
+     * @param value  sample value
+     */
+    private static void appendSample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(PREFIX).append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Start the HTTP endpoint if it's enabled in the configuration.
+     * Every instance of a multi monitor setup uses its own port: configured port + instance number - 1.
+     */
+    public static synchronized void startServer() {
+        if (server != null || MainSingleton.getInstance().config == null || !MainSingleton.getInstance().config.isMetricsEndpoint()) {
+            return;
+        }
+        int port = MainSingleton.getInstance().config.getMetricsPort() + Math.max(0, MainSingleton.getInstance().whoAmI - 1);
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext(Constants.METRICS_PATH, exchange -> {
+                byte[] body = toPrometheus().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set(Constants.UPGRADE_CONTENT_TYPE, Constants.METRICS_CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            });
+            server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "metrics-server");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            server.start();
+            log.info("Metrics endpoint listening on port {}{}", port, Constants.METRICS_PATH);
+        } catch (IOException e) {
+            server = null;
+            log.error("Unable to start metrics endpoint on port {}: {}", port, e.getMessage());
+        }
+    }
+
+    /**
+     * Base metric, name is without prefix
+     */
+    @Getter
+    public abstract static class Metric {
+
+        static final String COUNTER = "counter";
+        static final String GAUGE = "gauge";
+        private final String name;
+        private final String help;
+        private final String labels;
+        private final String type;
+
+        Metric(String name, String help, String labels, String type) {
+            this.name = name;
+            this.help = help;
+            this.labels = labels;
+            this.type = type;
+        }
+
+        /**
+         * Current value
+         *
+         * @return value
+         */
+        public abstract double value();
+
+    }
+
+    /**
+     * Monotonic counter
+     */
+    public static class Counter extends Metric {
+
+        private final LongAdder adder = new LongAdder();
+
+        Counter(String name, String help, String labels) {
+            super(name, help, labels, COUNTER);
+        }
+
+        /**
+         * Increment the counter by one
+         */
+        public void increment() {
+            adder.increment();
+        }
+
+        /**
+         * Increment the counter
+         *
+         * @param delta amount to add
+         */
+        public void add(long delta) {
+            adder.add(delta);
+        }
+
+        /**
+         * Total count since startup
+         *
+         * @return count
+         */
+        public long sum() {
+            return adder.sum();
+        }
+
+        @Override
+        public double value() {
+            return sum();
+        }
+
+    }
+
+    /**
+     * Counter that also computes its rate over a window, the window is closed by tick()
+     */
+    public static class RateMeter extends Counter {
+
+        private long windowStart;
+        @Getter
+        private volatile float rate;
+
+        RateMeter(String name, String help, String labels) {
+            super(name, help, labels);
+        }
+
+        /**
+         * Number of events since the last tick
+         *
+         * @return events in the current window
+         */
+        public long getWindowCount() {
+            return sum() - windowStart;
+        }
+
+        /**
+         * Close the current window and compute the rate
+         *
+         * @param seconds window length in seconds
+         */
+        synchronized void tick(int seconds) {
+            long sum = sum();
+            rate = (float) (sum - windowStart) / seconds;
+            windowStart = sum;
+        }
+
+        /**
+         * Start a new window and clear the rate
+         */
+        synchronized void reset() {
+            windowStart = sum();
+            rate = 0;
+        }
+
+    }
+
+    /**
+     * Value read on demand from the application state
+     */
+    public static class Gauge extends Metric {
+
+        private final DoubleSupplier supplier;
+
+        Gauge(String name, String help, String labels, String type, DoubleSupplier supplier) {
+            super(name, help, labels, type);
+            this.supplier = supplier;
+        }
+
+        @Override
+        public double value() {
+            return supplier.getAsDouble();
+        }
+
+    }
+
+}
@@ -27,31 +27,29 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import javafx.application.Platform;
 import lombok.extern.slf4j.Slf4j;
-import org.dpsoftware.LEDCoordinate;
 import org.dpsoftware.MainSingleton;
 import org.dpsoftware.NativeExecutor;
 import org.dpsoftware.config.Configuration;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
 import org.dpsoftware.config.LocalizedEnum;
-import org.dpsoftware.grabber.ImageProcessor;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.grabber.LatencyMonitor;
+import org.dpsoftware.grabber.LedFrame;
 import org.dpsoftware.gui.GuiSingleton;
 import org.dpsoftware.gui.controllers.NetworkTabController;
 import org.dpsoftware.gui.elements.GlowWormDevice;
 import org.dpsoftware.gui.elements.Satellite;
 import org.dpsoftware.managers.dto.TcpResponse;
 import org.dpsoftware.network.tcpUdp.TcpClient;
-import org.dpsoftware.network.tcpUdp.UdpClient;
+import org.dpsoftware.network.tcpUdp.UdpDeviceSender;
 import org.dpsoftware.utilities.CommonUtility;
 import org.eclipse.paho.client.mqttv3.*;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 
-import java.awt.*;
 import java.io.IOException;
-import java.net.SocketException;
-import java.net.UnknownHostException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -202,58 +200,49 @@ public class NetworkManager implements MqttCallback {
      * @param msg msg for the queue
      */
     public static void stream(String msg) {
+        long sendStart = System.nanoTime();
+        byte[] payload = msg.getBytes();
         try {
             // If multi display change stream topic
             if (MainSingleton.getInstance().config.getMultiMonitor() > 1 && !CommonUtility.isSingleDeviceMultiScreen()) {
-                ManagerSingleton.getInstance().client.publish(getTopic(Constants.TOPIC_DEFAULT_MQTT) + Constants.MQTT_STREAM_TOPIC + MainSingleton.getInstance().whoAmI, msg.getBytes(), 0, false);
+                ManagerSingleton.getInstance().client.publish(getTopic(Constants.TOPIC_DEFAULT_MQTT) + Constants.MQTT_STREAM_TOPIC + MainSingleton.getInstance().whoAmI, payload, 0, false);
             } else {
-                ManagerSingleton.getInstance().client.publish(getTopic(Constants.TOPIC_DEFAULT_MQTT) + Constants.MQTT_STREAM_TOPIC, msg.getBytes(), 0, false);
+                ManagerSingleton.getInstance().client.publish(getTopic(Constants.TOPIC_DEFAULT_MQTT) + Constants.MQTT_STREAM_TOPIC, payload, 0, false);
             }
+            LatencyMonitor.SEND.recordSince(sendStart);
+            MetricsManager.BYTES_SENT_MQTT.add(payload.length);
         } catch (MqttException e) {
+            MetricsManager.SEND_ERRORS_MQTT.increment();
             log.error(Constants.MQTT_CANT_SEND);
         }
     }
 
     /**
      * Stream colors to main instance or to satellites.
-     * Don't close the socket once written to it but reuse it, high CPU overhead instead.
+     * Every device has its own UDP sender thread, frames are handed to the senders and sent in parallel.
+     * The direct pipeline sends the main device frame on the calling thread, satellites still use their sender threads.
      *
-     * @param leds   array of colors to send
+     * @param leds   frame to send
      * @param ledStr string to send
      */
-    public static void streamColors(Color[] leds, StringBuilder ledStr) {
+    public static void streamColors(LedFrame leds, StringBuilder ledStr) {
+        PipelineSettings settings = PipelineSettings.get();
         // UDP stream or MQTT stream
-        if (MainSingleton.getInstance().config.getStreamType().equals(Enums.StreamType.UDP.getStreamType())) {
-            if (ManagerSingleton.getInstance().udpClient == null) {
-                ManagerSingleton.getInstance().udpClient = new LinkedHashMap<>();
-            }
+        if (settings.udpStream()) {
             String deviceToUseIp = CommonUtility.getDeviceToUse().getDeviceIP();
             try {
-                if (ManagerSingleton.getInstance().udpClient.get(deviceToUseIp) == null
-                        || ManagerSingleton.getInstance().udpClient.get(deviceToUseIp).socket == null
-                        || ManagerSingleton.getInstance().udpClient.get(deviceToUseIp).socket.isClosed()) {
-                    ManagerSingleton.getInstance().udpClient.put(deviceToUseIp, new UdpClient(deviceToUseIp));
+                if (settings.directPipeline()) {
+                    getUdpSender(deviceToUseIp).sendNow(leds);
+                } else {
+                    getUdpSender(deviceToUseIp).offer(leds, null);
                 }
-                ManagerSingleton.getInstance().udpClient.get(deviceToUseIp).manageStream(leds);
                 if (MainSingleton.getInstance().config.getSatellites() != null) {
-                    for (Map.Entry<String, Satellite> sat : MainSingleton.getInstance().config.getSatellites().entrySet()) {
-                        String satIp = sat.getValue().getDeviceIp();
-                        UdpClient satClient = ManagerSingleton.getInstance().udpClient.get(satIp);
-                        if (satClient == null || satClient.socket == null || satClient.socket.isClosed()) {
-                            if (satClient != null) {
-                                satClient.close();
-                            }
-                            ManagerSingleton.getInstance().udpClient.put(satIp, new UdpClient(satIp));
-                        }
-                        sendColorToSatellites(leds, sat.getValue());
+                    for (Satellite sat : MainSingleton.getInstance().config.getSatellites().values()) {
+                        getUdpSender(sat.getDeviceIp()).offer(leds, sat);
                     }
                 }
-            } catch (SocketException | UnknownHostException e) {
+            } catch (IOException e) {
                 log.error(e.getMessage());
-                UdpClient client = ManagerSingleton.getInstance().udpClient.get(deviceToUseIp);
-                if (client != null) {
-                    client.close();
-                }
             }
         } else {
             ledStr.append("0");
@@ -262,68 +251,37 @@ public class NetworkManager implements MqttCallback {
     }
 
     /**
-     * Sends color to satellites using average or dominant algorithm
+     * Get the UDP sender of a device, senders are created once per device and reconnect by themselves after socket errors
      *
-     * @param leds array of colors to send
-     * @param sat  satellite where to send colors
+     * @param deviceIp device IP
+     * @return UDP sender
+     * @throws IOException when the UDP client cannot be created
      */
-    private static void sendColorToSatellites(Color[] leds, Satellite sat) {
-        Color[] ledMatrix = Arrays.stream(leds).toArray(Color[]::new);
-        if (Enums.Orientation.CLOCKWISE.equals((LocalizedEnum.fromBaseStr(Enums.Orientation.class, MainSingleton.getInstance().config.getOrientation())))) {
-            Collections.reverse(Arrays.asList(ledMatrix));
-        }
-        java.util.List<Color> clonedLedsPrimary = new LinkedList<>();
-        java.util.List<Color> clonedLedsSecondary = new LinkedList<>();
-        java.util.List<Color> clonedLeds = new LinkedList<>();
-        if (CommonUtility.isSplitBottomRow(MainSingleton.getInstance().config.getSplitBottomMargin()) && sat.getZone().equals(Enums.PossibleZones.BOTTOM.getBaseI18n())) {
-            int tempSatNum = (int) Math.floor((double) Integer.parseInt(sat.getLedNum()) / 2);
-            int satNum = Integer.parseInt(sat.getLedNum());
-            sat.setLedNum(String.valueOf(tempSatNum));
-            sat.setZone(Enums.PossibleZones.BOTTOM_LEFT.getBaseI18n());
-            clonedLedsPrimary = getColorsForSat(sat, clonedLedsPrimary, ledMatrix);
-            clonedLeds.addAll(clonedLedsPrimary);
-            sat.setZone(Enums.PossibleZones.BOTTOM_RIGHT.getBaseI18n());
-            clonedLedsSecondary = getColorsForSat(sat, clonedLedsSecondary, ledMatrix);
-            clonedLeds.addAll(clonedLedsSecondary);
-            sat.setLedNum(String.valueOf(satNum));
-            sat.setZone(Enums.PossibleZones.BOTTOM.getBaseI18n());
-        } else {
-            clonedLeds.addAll(getColorsForSat(sat, clonedLedsPrimary, ledMatrix));
-        }
-        Color[] cToSend = clonedLeds.toArray(Color[]::new);
-        if (Enums.Direction.NORMAL.equals((LocalizedEnum.fromBaseStr(Enums.Direction.class, sat.getOrientation())))) {
-            Collections.reverse(Arrays.asList(cToSend));
+    private static UdpDeviceSender getUdpSender(String deviceIp) throws IOException {
+        try {
+            return ManagerSingleton.getInstance().udpSender.computeIfAbsent(deviceIp, ip -> {
+                try {
+                    return new UdpDeviceSender(ip);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        ManagerSingleton.getInstance().udpClient.get(sat.getDeviceIp()).manageStream(cToSend);
     }
 
     /**
-     * Calculate colors to send to the satellite
-     *
-     * @param sat        satellite in use
-     * @param clonedLeds temp array with colors
-     * @param ledMatrix  original led matrix
-     * @return colors to send to the satellite
+     * Stop every UDP sender, senders are created again on the next frame.
+     * Every sender is removed from the map and closed by the same call, a sender created meanwhile is never lost.
      */
-    private static List<Color> getColorsForSat(Satellite sat, List<Color> clonedLeds, Color[] ledMatrix) {
-        LEDCoordinate.getStartEndLeds zoneDetail = LEDCoordinate.getGetStartEndLeds(sat);
-        int zoneStart = zoneDetail.start() - 1;
-        int zoneNumLed = (zoneDetail.end() - zoneDetail.start()) + 1;
-        int zoneEnd = zoneDetail.end() - 1;
-        int satNumLed = Integer.parseInt(sat.getLedNum());
-        if (Enums.Algo.AVG_COLOR.getBaseI18n().equals(sat.getAlgo())) {
-            if (satNumLed <= zoneNumLed) {
-                clonedLeds = ImageProcessor.reduceColors(ledMatrix, sat, zoneDetail);
-            } else {
-                clonedLeds = ImageProcessor.padColors(ledMatrix, sat, zoneDetail);
-            }
-        } else {
-            Color avgColor = ImageProcessor.getAverageForAllZones(ledMatrix, zoneStart, zoneEnd);
-            for (int i = 0; i < satNumLed; i++) {
-                clonedLeds.add(new Color(avgColor.getRed(), avgColor.getGreen(), avgColor.getBlue()));
+    public static void closeUdpSenders() {
+        for (String deviceIp : ManagerSingleton.getInstance().udpSender.keySet()) {
+            UdpDeviceSender sender = ManagerSingleton.getInstance().udpSender.remove(deviceIp);
+            if (sender != null) {
+                sender.close();
             }
         }
-        return clonedLeds;
     }
 
     /**
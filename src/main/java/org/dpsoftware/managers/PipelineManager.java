@@ -33,10 +33,8 @@ import org.dpsoftware.config.Configuration;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
 import org.dpsoftware.config.LocalizedEnum;
-import org.dpsoftware.grabber.DbusScreenCast;
-import org.dpsoftware.grabber.GStreamerGrabber;
-import org.dpsoftware.grabber.GrabberSingleton;
-import org.dpsoftware.grabber.ImageProcessor;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.grabber.*;
 import org.dpsoftware.gui.GuiSingleton;
 import org.dpsoftware.gui.elements.DisplayInfo;
 import org.dpsoftware.gui.elements.GlowWormDevice;
@@ -47,6 +45,7 @@ import org.dpsoftware.managers.dto.StateDto;
 import org.dpsoftware.managers.dto.UnsubscribeInstanceDto;
 import org.dpsoftware.network.MessageClient;
 import org.dpsoftware.network.NetworkSingleton;
+import org.dpsoftware.utilities.ColorUtilities;
 import org.dpsoftware.utilities.CommonUtility;
 import org.freedesktop.dbus.DBusPath;
 import org.freedesktop.dbus.FileDescriptor;
@@ -69,6 +68,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /**
  * Manage high performance pipeline for screen grabbing
@@ -76,6 +76,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 public class PipelineManager {
 
+    // Sender used by the direct pipeline, it returns false if the sink is busy sending another frame
+    private static volatile Predicate<LedFrame> directSender;
     public ScheduledExecutorService scheduledExecutorService;
     UpgradeManager upgradeManager = new UpgradeManager();
 
@@ -241,27 +243,107 @@ public class PipelineManager {
     /**
      * Message offered to the queue is sent to the LED strip, if multi screen single instance, is sent via TCP Socket to the main instance
      *
-     * @param leds colors to be sent to the LED strip
+     * The frame is owned by the pipeline after this call, if it can't be sent it is given back to the FramePool.
+     *
+     * @param frame colors to be sent to the LED strip
+     */
+    public static void offerToTheQueue(LedFrame frame) {
+        // Pipelined execution, correction and smoothing run on their own thread
+        if (!StagedPipeline.offer(frame)) {
+            correctAndForward(frame);
+        }
+    }
+
+    /**
+     * Apply smoothing and white balance, then send the frame to the consumer or to the main instance.
+     * It runs on the capture thread, or on the correction stage when the pipelined execution is enabled.
+     *
+     * @param frame colors to be sent to the LED strip, it's owned by the mailbox after this call
      */
-    public static void offerToTheQueue(Color[] leds) {
-        ImageProcessor.exponentialMovingAverage(leds);
-        ImageProcessor.adjustStripWhiteBalance(leds);
-        if (CommonUtility.isSingleDeviceMultiScreen()) {
+    public static void correctAndForward(LedFrame frame) {
+        correct(frame);
+        if (PipelineSettings.get().singleDeviceMultiScreen()) {
             if (NetworkSingleton.getInstance().msgClient == null) {
                 NetworkSingleton.getInstance().msgClient = new MessageClient();
             }
             if (!NetworkSingleton.getInstance().msgClient.startConnection(Constants.MSG_SERVER_HOST, Constants.MSG_SERVER_PORT)) {
+                PipelineEvents.frameDropped(Constants.JFR_DROP_INSTANCE_UNREACHABLE);
+                FramePool.release(frame);
                 return;
             }
             StringBuilder sb = new StringBuilder();
             sb.append(MainSingleton.getInstance().whoAmI).append(",");
-            for (Color color : leds) {
-                sb.append(color.getRGB()).append(",");
+            for (int i = 0; i < frame.getLedNum(); i++) {
+                sb.append(ColorUtilities.toArgb(frame.get(i))).append(",");
             }
+            FramePool.release(frame);
             NetworkSingleton.getInstance().msgClient.sendMessage(sb.toString());
         } else {
-            //noinspection ResultOfMethodCallIgnored
-            MainSingleton.getInstance().sharedQueue.offer(leds);
+            offerFrame(frame);
+        }
+    }
+
+    /**
+     * Direct pipeline, correct and send the frame on the calling thread bypassing the mailbox and the consumer.
+     * If the sink is busy sending another frame, the frame is dropped, the capture thread never waits.
+     *
+     * @param frame colors to be sent to the LED strip, it's given back to the FramePool once sent
+     */
+    public static void sendDirect(LedFrame frame) {
+        try {
+            correct(frame);
+            Predicate<LedFrame> sender = directSender;
+            if (sender == null || !sender.test(frame)) {
+                PipelineEvents.frameDropped(Constants.JFR_DROP_SINK_BUSY);
+            }
+        } finally {
+            FramePool.release(frame);
+        }
+    }
+
+    /**
+     * Set the sender used by the direct pipeline
+     *
+     * @param sender function that sends a frame on the calling thread, it returns false if the sink is busy
+     */
+    public static void setDirectSender(Predicate<LedFrame> sender) {
+        directSender = sender;
+    }
+
+    /**
+     * Apply smoothing and white balance in place
+     *
+     * @param frame colors to be sent to the LED strip
+     */
+    private static void correct(LedFrame frame) {
+        long postProcessingStart = System.nanoTime();
+        PipelineEvents.FrameCorrected correctedEvent = new PipelineEvents.FrameCorrected();
+        correctedEvent.begin();
+        ImageProcessor.exponentialMovingAverage(frame);
+        ImageProcessor.adjustStripWhiteBalance(frame);
+        LatencyMonitor.POST_PROCESSING.recordSince(postProcessingStart);
+        if (correctedEvent.shouldCommit()) {
+            correctedEvent.leds = frame.getLedNum();
+            correctedEvent.commit();
+        }
+    }
+
+    /**
+     * Offer a frame to the consumer, if the consumer didn't take the previous frame yet, the previous frame is dropped
+     * and given back to the FramePool, the consumer always gets the freshest frame
+     *
+     * @param frame frame to offer
+     */
+    public static void offerFrame(LedFrame frame) {
+        MainSingleton.getInstance().frameMailbox.offer(frame);
+    }
+
+    /**
+     * Remove the pending frame from the mailbox and give it back to the FramePool
+     */
+    public static void clearQueue() {
+        if (MainSingleton.getInstance().frameMailbox != null) {
+            MainSingleton.getInstance().frameMailbox.clear();
         }
     }
 
@@ -333,9 +415,9 @@ public class PipelineManager {
         LinkedHashMap<Integer, LEDCoordinate> ledMatrix = MainSingleton.getInstance().config.getLedMatrixInUse(MainSingleton.getInstance().config.getDefaultLedMatrix());
         GrabberSingleton.getInstance().ledMatrix = ledMatrix;
         GStreamerGrabber.ledMatrix = ledMatrix;
-        if (MainSingleton.getInstance().sharedQueue != null) {
-            MainSingleton.getInstance().sharedQueue.clear();
-        }
+        ZonePlan.invalidate();
+        ZoneKernelTuner.reset();
+        clearQueue();
         ImageProcessor.resetPreviousColors();
     }
 
@@ -584,8 +666,7 @@ public class PipelineManager {
                 || (MainSingleton.getInstance().config.getCaptureMethod().equals(Configuration.CaptureMethod.AVFVIDEOSRC.name())))) {
             GrabberSingleton.getInstance().pipe.stop();
         }
-        MainSingleton.getInstance().FPS_PRODUCER_COUNTER = 0;
-        MainSingleton.getInstance().FPS_CONSUMER_COUNTER = 0;
+        MetricsManager.resetRates();
         MainSingleton.getInstance().FPS_CONSUMER = 0;
         MainSingleton.getInstance().FPS_PRODUCER = 0;
         MainSingleton.getInstance().RUNNING = false;
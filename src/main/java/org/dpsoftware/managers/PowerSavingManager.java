@@ -57,7 +57,7 @@ public class PowerSavingManager {
     public boolean shutDownLedStrip = false;
     public boolean unlockCheckLedDuplication = false;
     public LocalDateTime lastFrameTime;
-    public Color[] ledArray;
+    public int[] ledArray;
     boolean screenSaverTaskNeeded = false;
     boolean screenSaverRunning = false;
     int lastMouseX;
@@ -165,16 +165,14 @@ public class PowerSavingManager {
     /**
      * Evaluate screen when screen capture is stopped
      */
-    @SuppressWarnings("unchecked")
     public void evaluateStaticScreen() {
         try {
             takeScreenshot();
             int osScaling = MainSingleton.getInstance().config.getOsScaling();
-            Color[] ledsScreenshotTmp = new Color[GrabberSingleton.getInstance().ledMatrix.size()];
-            LinkedHashMap<Integer, LEDCoordinate> ledMatrixTmp = (LinkedHashMap<Integer, LEDCoordinate>) GrabberSingleton.getInstance().ledMatrix.clone();
-            // We need an ordered collection so no parallelStream here
-            ledMatrixTmp.forEach((key, value) -> ledsScreenshotTmp[key - 1] = ImageProcessor.getAverageColor(value, osScaling, true));
-            checkForLedDuplication(ledsScreenshotTmp);
+            LinkedHashMap<Integer, LEDCoordinate> ledMatrix = GrabberSingleton.getInstance().ledMatrix;
+            int[] ledsScreenshotTmp = new int[ledMatrix.size()];
+            ImageProcessor.getAverageColors(ledMatrix, osScaling, true, ledsScreenshotTmp);
+            checkForLedDuplication(ledsScreenshotTmp, ledsScreenshotTmp.length);
         } catch (AWTException | IOException e) {
             log.error(e.getMessage());
         }
@@ -193,12 +191,13 @@ public class PowerSavingManager {
      * If there is LEDs duplication for more than N seconds, turn off the lights for power saving.
      * If screensaver running turn off the screen.
      *
-     * @param leds array containing colors
+     * @param leds   packed colors
+     * @param ledNum number of LEDs in use
      */
-    public void checkForLedDuplication(Color[] leds) {
-        if (!isLedArraysEqual(leds)) {
+    public void checkForLedDuplication(int[] leds, int ledNum) {
+        if (!isLedArraysEqual(leds, ledNum)) {
             lastFrameTime = LocalDateTime.now();
-            ledArray = Arrays.copyOf(leds, leds.length);
+            ledArray = Arrays.copyOf(leds, ledNum);
         }
         int minutesToShutdown = Integer.parseInt(MainSingleton.getInstance().config.getPowerSaving().split(" ")[0]);
         if (!screenSaverRunning) {
@@ -211,16 +210,17 @@ public class PowerSavingManager {
     /**
      * Check if the current led array is equal to the previous saved one
      *
-     * @param leds array
+     * @param leds   packed colors
+     * @param ledNum number of LEDs in use
      * @return if two frames are identical, return true.
      */
-    public boolean isLedArraysEqual(Color[] leds) {
+    public boolean isLedArraysEqual(int[] leds, int ledNum) {
         int difference = 0;
-        if (ledArray == null) {
+        if (ledArray == null || ledArray.length != ledNum) {
             return false;
         }
-        for (int i = 0; i < leds.length; i++) {
-            if (leds[i].getRGB() != ledArray[i].getRGB()) {
+        for (int i = 0; i < ledNum; i++) {
+            if (leds[i] != ledArray[i]) {
                 if (GrabberSingleton.getInstance() != null && !GrabberSingleton.getInstance().ledMatrix.isEmpty()) {
                     String zone = GrabberSingleton.getInstance().ledMatrix.get(i + 1).getZone();
                     // ignore bottom leds, icons, notifications, ecc...
@@ -32,9 +32,12 @@ import org.dpsoftware.NativeExecutor;
 import org.dpsoftware.audio.AudioSingleton;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
+import org.dpsoftware.config.PipelineSettings;
+import org.dpsoftware.grabber.LatencyMonitor;
 import org.dpsoftware.gui.GuiManager;
 import org.dpsoftware.gui.GuiSingleton;
 import org.dpsoftware.gui.elements.GlowWormDevice;
+import org.dpsoftware.utilities.ColorUtilities;
 import org.dpsoftware.utilities.CommonUtility;
 
 import java.awt.*;
@@ -44,6 +47,8 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Serial port utility
@@ -52,6 +57,9 @@ import java.util.concurrent.*;
 public class SerialManager {
 
     ScheduledExecutorService serialAttachScheduler = Executors.newScheduledThreadPool(1);
+    // Serial buffer reused across frames, reallocated when the number of LEDs changes, guarded by serialLock
+    private byte[] ledsArray;
+    private final Lock serialLock = new ReentrantLock();
     private ScheduledFuture<?> scheduledFuture;
     boolean alertSent = false;
 
@@ -257,21 +265,31 @@ public class SerialManager {
     }
 
     /**
-     * Send color info via USB Serial
+     * Send color info via USB Serial, used by solid colors and GUI, the capture pipeline uses the packed version
      *
-     * @param leds array with colors
+     * @param leds array with colors, an array of one element sets a solid color
      * @throws IOException can't write to serial
      */
     public void sendColorsViaUSB(Color[] leds) throws IOException {
+        int[] packedLeds = new int[leds.length];
+        for (int i = 0; i < leds.length; i++) {
+            packedLeds[i] = leds[i].getRGB() & 0xFFFFFF;
+        }
+        sendColorsViaUSB(packedLeds, packedLeds.length);
+    }
+
+    /**
+     * Send color info via USB Serial
+     *
+     * @param leds   packed colors
+     * @param ledNum number of LEDs in the array, one LED sets a solid color
+     * @throws IOException can't write to serial
+     */
+    public void sendColorsViaUSB(int[] leds, int ledNum) throws IOException {
         // Effect is set via MQTT when using Full Firmware
-        if (MainSingleton.getInstance().config.isFullFirmware()) {
-            MainSingleton.getInstance().fireflyEffect = 100;
-        } else {
-            for (Enums.Effect ef : Enums.Effect.values()) {
-                if (ef.getBaseI18n().equals(MainSingleton.getInstance().config.getEffect())) {
-                    MainSingleton.getInstance().fireflyEffect = ef.ordinal() + 1;
-                }
-            }
+        int serialEffect = PipelineSettings.get().serialEffect();
+        if (serialEffect != 0) {
+            MainSingleton.getInstance().fireflyEffect = serialEffect;
         }
         if (!ManagerSingleton.getInstance().serialVersionOk) {
             UpgradeManager upgradeManager = new UpgradeManager();
@@ -283,81 +301,100 @@ public class SerialManager {
                 }
             }
         } else {
-            int i = 0, j = -1;
-            byte[] ledsArray = new byte[(MainSingleton.getInstance().ledNumber * 3) + Constants.SERIAL_PARAMS];
-            // DPsoftware checksum
-            int ledsCountHi = ((MainSingleton.getInstance().ledNumHighLowCount) >> 8) & 0xff;
-            int ledsCountLo = (MainSingleton.getInstance().ledNumHighLowCount) & 0xff;
-            int loSecondPart = (MainSingleton.getInstance().ledNumHighLowCountSecondPart) & 0xff;
-            int brightnessToSend = (AudioSingleton.getInstance().AUDIO_BRIGHTNESS == 255 ? CommonUtility.getNightBrightness() : AudioSingleton.getInstance().AUDIO_BRIGHTNESS) & 0xff;
-            int gpioToSend = (MainSingleton.getInstance().gpio) & 0xff;
-            int baudRateToSend = (MainSingleton.getInstance().baudRate) & 0xff;
-            int whiteTempToSend = (MainSingleton.getInstance().config.getWhiteTemperature()) & 0xff;
-            int fireflyEffectToSend = (MainSingleton.getInstance().fireflyEffect) & 0xff;
-            int enableLdr = (MainSingleton.getInstance().config.isEnableLDR() ? 1 : 2) & 0xff;
-            int ldrTurnOff = (MainSingleton.getInstance().config.isLdrTurnOff() ? 1 : 2) & 0xff;
-            int ldrInterval = (MainSingleton.getInstance().config.getLdrInterval()) & 0xff;
-            int ldrMin = (MainSingleton.getInstance().config.getLdrMin()) & 0xff;
-            int ldrActionToUse = (MainSingleton.getInstance().ldrAction) & 0xff;
-            int colorModeToSend = (MainSingleton.getInstance().config.getColorMode()) & 0xff;
-            int colorOrderToSend = (MainSingleton.getInstance().colorOrder) & 0xff;
-            // Pins is set to +10 because null values are zero, so GPIO 0 is 10, GPIO 1 is 11.
-            int relayPinToSend = (MainSingleton.getInstance().relayPin >= 0 ? MainSingleton.getInstance().relayPin + 10 : 0) & 0xff;
-            int relayInvToSend = (MainSingleton.getInstance().relayInv ? 11 : 10) & 0xff;
-            int sbPinToSend = (MainSingleton.getInstance().sbPin >= 0 ? MainSingleton.getInstance().sbPin + 10 : 0) & 0xff;
-            int ldrPinToSend = (MainSingleton.getInstance().ldrPin >= 0 ? MainSingleton.getInstance().ldrPin + 10 : 0) & 0xff;
-            int gpioClockToSend = (MainSingleton.getInstance().gpioClockPin) & 0xff;
-            ledsArray[++j] = (byte) ('D');
-            ledsArray[++j] = (byte) ('P');
-            ledsArray[++j] = (byte) ('s');
-            ledsArray[++j] = (byte) ('o');
-            ledsArray[++j] = (byte) ('f');
-            ledsArray[++j] = (byte) ('t');
-            ledsArray[++j] = (byte) (ledsCountHi);
-            ledsArray[++j] = (byte) (ledsCountLo);
-            ledsArray[++j] = (byte) (loSecondPart);
-            ledsArray[++j] = (byte) (brightnessToSend);
-            ledsArray[++j] = (byte) (gpioToSend);
-            ledsArray[++j] = (byte) (baudRateToSend);
-            ledsArray[++j] = (byte) (whiteTempToSend);
-            ledsArray[++j] = (byte) (fireflyEffectToSend);
-            ledsArray[++j] = (byte) (enableLdr);
-            ledsArray[++j] = (byte) (ldrTurnOff);
-            ledsArray[++j] = (byte) (ldrInterval);
-            ledsArray[++j] = (byte) (ldrMin);
-            ledsArray[++j] = (byte) (ldrActionToUse);
-            ledsArray[++j] = (byte) (colorModeToSend);
-            ledsArray[++j] = (byte) (colorOrderToSend);
-            ledsArray[++j] = (byte) (relayPinToSend);
-            ledsArray[++j] = (byte) (relayInvToSend);
-            ledsArray[++j] = (byte) (sbPinToSend);
-            ledsArray[++j] = (byte) (ldrPinToSend);
-            ledsArray[++j] = (byte) (gpioClockToSend);
-            ledsArray[++j] = (byte) ((ledsCountHi ^ ledsCountLo ^ loSecondPart ^ brightnessToSend ^ gpioToSend ^ baudRateToSend ^ whiteTempToSend ^ fireflyEffectToSend
-                    ^ enableLdr ^ ldrTurnOff ^ ldrInterval ^ ldrMin ^ ldrActionToUse ^ colorModeToSend ^ colorOrderToSend ^ relayPinToSend ^ relayInvToSend ^ sbPinToSend ^ ldrPinToSend ^ gpioClockToSend ^ 0x55));
-            MainSingleton.getInstance().ldrAction = 1;
-            if (leds.length == 1) {
-                MainSingleton.getInstance().colorInUse = leds[0];
-                while (i < MainSingleton.getInstance().ledNumber) {
-                    ledsArray[++j] = (byte) leds[0].getRed();
-                    ledsArray[++j] = (byte) leds[0].getGreen();
-                    ledsArray[++j] = (byte) leds[0].getBlue();
-                    i++;
+            // The shared buffer is encoded and written by one thread at a time, solid colors and GUI send from other threads
+            serialLock.lock();
+            try {
+                long encodeStart = System.nanoTime();
+                int i = 0, j = -1;
+                int serialBufferSize = (MainSingleton.getInstance().ledNumber * 3) + Constants.SERIAL_PARAMS;
+                if (ledsArray == null || ledsArray.length != serialBufferSize) {
+                    ledsArray = new byte[serialBufferSize];
                 }
-                boolean toggleLed = (leds[0].getRed() != 0 || leds[0].getGreen() != 0 || leds[0].getBlue() != 0);
-                if (toggleLed != MainSingleton.getInstance().config.isToggleLed()) {
-                    MainSingleton.getInstance().config.setToggleLed(toggleLed);
+                // DPsoftware checksum
+                int ledsCountHi = ((MainSingleton.getInstance().ledNumHighLowCount) >> 8) & 0xff;
+                int ledsCountLo = (MainSingleton.getInstance().ledNumHighLowCount) & 0xff;
+                int loSecondPart = (MainSingleton.getInstance().ledNumHighLowCountSecondPart) & 0xff;
+                int brightnessToSend = (AudioSingleton.getInstance().AUDIO_BRIGHTNESS == 255 ? CommonUtility.getNightBrightness() : AudioSingleton.getInstance().AUDIO_BRIGHTNESS) & 0xff;
+                int gpioToSend = (MainSingleton.getInstance().gpio) & 0xff;
+                int baudRateToSend = (MainSingleton.getInstance().baudRate) & 0xff;
+                int whiteTempToSend = (MainSingleton.getInstance().config.getWhiteTemperature()) & 0xff;
+                int fireflyEffectToSend = (MainSingleton.getInstance().fireflyEffect) & 0xff;
+                int enableLdr = (MainSingleton.getInstance().config.isEnableLDR() ? 1 : 2) & 0xff;
+                int ldrTurnOff = (MainSingleton.getInstance().config.isLdrTurnOff() ? 1 : 2) & 0xff;
+                int ldrInterval = (MainSingleton.getInstance().config.getLdrInterval()) & 0xff;
+                int ldrMin = (MainSingleton.getInstance().config.getLdrMin()) & 0xff;
+                int ldrActionToUse = (MainSingleton.getInstance().ldrAction) & 0xff;
+                int colorModeToSend = (MainSingleton.getInstance().config.getColorMode()) & 0xff;
+                int colorOrderToSend = (MainSingleton.getInstance().colorOrder) & 0xff;
+                // Pins is set to +10 because null values are zero, so GPIO 0 is 10, GPIO 1 is 11.
+                int relayPinToSend = (MainSingleton.getInstance().relayPin >= 0 ? MainSingleton.getInstance().relayPin + 10 : 0) & 0xff;
+                int relayInvToSend = (MainSingleton.getInstance().relayInv ? 11 : 10) & 0xff;
+                int sbPinToSend = (MainSingleton.getInstance().sbPin >= 0 ? MainSingleton.getInstance().sbPin + 10 : 0) & 0xff;
+                int ldrPinToSend = (MainSingleton.getInstance().ldrPin >= 0 ? MainSingleton.getInstance().ldrPin + 10 : 0) & 0xff;
+                int gpioClockToSend = (MainSingleton.getInstance().gpioClockPin) & 0xff;
+                ledsArray[++j] = (byte) ('D');
+                ledsArray[++j] = (byte) ('P');
+                ledsArray[++j] = (byte) ('s');
+                ledsArray[++j] = (byte) ('o');
+                ledsArray[++j] = (byte) ('f');
+                ledsArray[++j] = (byte) ('t');
+                ledsArray[++j] = (byte) (ledsCountHi);
+                ledsArray[++j] = (byte) (ledsCountLo);
+                ledsArray[++j] = (byte) (loSecondPart);
+                ledsArray[++j] = (byte) (brightnessToSend);
+                ledsArray[++j] = (byte) (gpioToSend);
+                ledsArray[++j] = (byte) (baudRateToSend);
+                ledsArray[++j] = (byte) (whiteTempToSend);
+                ledsArray[++j] = (byte) (fireflyEffectToSend);
+                ledsArray[++j] = (byte) (enableLdr);
+                ledsArray[++j] = (byte) (ldrTurnOff);
+                ledsArray[++j] = (byte) (ldrInterval);
+                ledsArray[++j] = (byte) (ldrMin);
+                ledsArray[++j] = (byte) (ldrActionToUse);
+                ledsArray[++j] = (byte) (colorModeToSend);
+                ledsArray[++j] = (byte) (colorOrderToSend);
+                ledsArray[++j] = (byte) (relayPinToSend);
+                ledsArray[++j] = (byte) (relayInvToSend);
+                ledsArray[++j] = (byte) (sbPinToSend);
+                ledsArray[++j] = (byte) (ldrPinToSend);
+                ledsArray[++j] = (byte) (gpioClockToSend);
+                ledsArray[++j] = (byte) ((ledsCountHi ^ ledsCountLo ^ loSecondPart ^ brightnessToSend ^ gpioToSend ^ baudRateToSend ^ whiteTempToSend ^ fireflyEffectToSend
+                        ^ enableLdr ^ ldrTurnOff ^ ldrInterval ^ ldrMin ^ ldrActionToUse ^ colorModeToSend ^ colorOrderToSend ^ relayPinToSend ^ relayInvToSend ^ sbPinToSend ^ ldrPinToSend ^ gpioClockToSend ^ 0x55));
+                MainSingleton.getInstance().ldrAction = 1;
+                if (ledNum == 1) {
+                    MainSingleton.getInstance().colorInUse = new Color(leds[0]);
+                    while (i < MainSingleton.getInstance().ledNumber) {
+                        ledsArray[++j] = (byte) ColorUtilities.red(leds[0]);
+                        ledsArray[++j] = (byte) ColorUtilities.green(leds[0]);
+                        ledsArray[++j] = (byte) ColorUtilities.blue(leds[0]);
+                        i++;
+                    }
+                    boolean toggleLed = (leds[0] & 0xFFFFFF) != 0;
+                    if (toggleLed != MainSingleton.getInstance().config.isToggleLed()) {
+                        MainSingleton.getInstance().config.setToggleLed(toggleLed);
+                    }
+                } else {
+                    while (i < MainSingleton.getInstance().ledNumber) {
+                        ledsArray[++j] = (byte) ColorUtilities.red(leds[i]);
+                        ledsArray[++j] = (byte) ColorUtilities.green(leds[i]);
+                        ledsArray[++j] = (byte) ColorUtilities.blue(leds[i]);
+                        i++;
+                    }
                 }
-            } else {
-                while (i < MainSingleton.getInstance().ledNumber) {
-                    ledsArray[++j] = (byte) leds[i].getRed();
-                    ledsArray[++j] = (byte) leds[i].getGreen();
-                    ledsArray[++j] = (byte) leds[i].getBlue();
-                    i++;
+                LatencyMonitor.ENCODE.recordSince(encodeStart);
+                if (MainSingleton.getInstance().output != null) {
+                    long sendStart = System.nanoTime();
+                    try {
+                        MainSingleton.getInstance().output.write(ledsArray);
+                    } catch (IOException e) {
+                        MetricsManager.SEND_ERRORS_SERIAL.increment();
+                        throw e;
+                    }
+                    LatencyMonitor.SEND.recordSince(sendStart);
+                    MetricsManager.BYTES_SENT_SERIAL.add(ledsArray.length);
                 }
-            }
-            if (MainSingleton.getInstance().output != null) {
-                MainSingleton.getInstance().output.write(ledsArray);
+            } finally {
+                serialLock.unlock();
             }
         }
     }
@@ -31,6 +31,7 @@ import org.dpsoftware.NativeExecutor;
 import org.dpsoftware.config.Configuration;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.InstanceConfigurer;
+import org.dpsoftware.config.PipelineSettings;
 import org.dpsoftware.gui.GuiManager;
 import org.dpsoftware.utilities.CommonUtility;
 
@@ -160,6 +161,7 @@ public class StorageManager {
             }
         }
         mapper.writeValue(new File(path + File.separator + filename), config);
+        PipelineSettings.refresh();
     }
 
     /**
@@ -133,6 +133,25 @@ public class UpgradeManager {
         }
     }
 
+    /**
+     * Check if the device streaming on the given IP understands the binary UDP stream format.
+     * Firmware older than the binary stream keeps receiving the text format.
+     *
+     * @param deviceIp IP of the device that receives the stream
+     * @return true or false if it supports the binary stream, null if the device or its firmware version is not known yet
+     */
+    public static Boolean isBinaryUdpStreamSupported(String deviceIp) {
+        GlowWormDevice glowWormDevice = GuiSingleton.getInstance().deviceTableData.stream()
+                .filter(device -> deviceIp.equals(device.getDeviceIP()))
+                .findAny().orElse(null);
+        if (glowWormDevice != null && glowWormDevice.getDeviceVersion() != null && !Constants.DASH.equals(glowWormDevice.getDeviceVersion())
+                && !glowWormDevice.getDeviceVersion().isEmpty() && !Constants.LIGHT_FIRMWARE_DUMMY_VERSION.equals(glowWormDevice.getDeviceVersion())) {
+            return versionNumberToNumber(glowWormDevice.getDeviceVersion()) >= versionNumberToNumber(Constants.MINIMUM_FIRM_FOR_BINARY_UDP);
+        } else {
+            return null;
+        }
+    }
+
     /**
      * Show upgrade alert/notification result
      *
@@ -27,6 +27,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.dpsoftware.grabber.LatencyHistogram;
+
+import java.util.Map;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -45,5 +48,7 @@ public class MqttFramerateDto {
     private String smoothingLvl;
     private String frameGen;
     private String profile;
+    // Stage name to latency percentiles in microseconds
+    private Map<String, LatencyHistogram.Snapshot> latency;
 
 }
\ No newline at end of file
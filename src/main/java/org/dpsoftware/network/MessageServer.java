@@ -30,12 +30,14 @@ import org.dpsoftware.NativeExecutor;
 import org.dpsoftware.config.Configuration;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
+import org.dpsoftware.grabber.FramePool;
+import org.dpsoftware.grabber.LedFrame;
 import org.dpsoftware.gui.GuiSingleton;
+import org.dpsoftware.managers.PipelineManager;
 import org.dpsoftware.managers.StorageManager;
 import org.dpsoftware.managers.dto.StateStatusDto;
 import org.dpsoftware.utilities.CommonUtility;
 
-import java.awt.*;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -43,6 +45,7 @@ import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -56,7 +59,9 @@ import java.util.concurrent.TimeUnit;
 @Setter
 public class MessageServer {
 
-    private Color[] leds;
+    private static final int EMPTY_LED = -1;
+    // Packed colors received from the instances, EMPTY_LED marks the LEDs not received yet
+    private int[] leds;
     private boolean firstDisplayReceived = false;
     private boolean secondDisplayReceived = false;
     private boolean thirdDisplayReceived = false;
@@ -127,7 +132,8 @@ public class MessageServer {
             NetworkSingleton.getInstance().totalLedNum = firstDisplayLedNum + secondDisplayLedNum;
         }
         if (leds == null || leds.length != NetworkSingleton.getInstance().totalLedNum) {
-            leds = new Color[NetworkSingleton.getInstance().totalLedNum];
+            leds = new int[NetworkSingleton.getInstance().totalLedNum];
+            Arrays.fill(leds, EMPTY_LED);
             resetDisplayReceived();
         }
     }
@@ -163,7 +169,8 @@ public class MessageServer {
      */
     public void start(int port) throws IOException {
         log.info("Starting message server");
-        leds = new Color[NetworkSingleton.getInstance().totalLedNum];
+        leds = new int[NetworkSingleton.getInstance().totalLedNum];
+        Arrays.fill(leds, EMPTY_LED);
         serverSocket = new ServerSocket(port, 50, InetAddress.getByName(Constants.MSG_SERVER_HOST));
         log.info("Message server listening on {}:{}", Constants.MSG_SERVER_HOST, port);
         while (!NetworkSingleton.getInstance().closeServer) {
@@ -250,7 +257,7 @@ public class MessageServer {
                 return;
             }
             for (int i = 1; i <= ledsString.length - 1; i++) {
-                leds[startIndex + i] = new Color(Integer.parseInt(ledsString[i]));
+                leds[startIndex + i] = Integer.parseInt(ledsString[i]) & 0xFFFFFF;
             }
             if (MainSingleton.getInstance().config.getMultiMonitor() == 2 && firstDisplayReceived && secondDisplayReceived) {
                 firstDisplayReceived = false;
@@ -290,13 +297,16 @@ public class MessageServer {
      * Offer a frame only when all LEDs have been filled with the current matrix size.
      */
     private void offerCompleteFrame() {
-        for (Color led : leds) {
-            if (led == null) {
+        for (int led : leds) {
+            if (led == EMPTY_LED) {
                 resetDisplayReceived();
                 return;
             }
         }
-        MainSingleton.getInstance().sharedQueue.offer(leds);
+        LedFrame frame = FramePool.acquire(leds.length);
+        frame.copyFrom(leds, leds.length);
+        frame.setCaptureNanos(System.nanoTime());
+        PipelineManager.offerFrame(frame);
     }
 
     /**
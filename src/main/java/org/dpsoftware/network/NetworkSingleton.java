@@ -31,7 +31,6 @@ import org.dpsoftware.config.Enums;
 import org.dpsoftware.config.LocalizedEnum;
 import org.dpsoftware.utilities.CommonUtility;
 
-import java.awt.*;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -61,13 +60,13 @@ public class NetworkSingleton {
 
     /**
      * Orders the zoned list based on the zones and monitor numbers.
-     * This method will reorder the colors according to the zones and monitor numbers.
+     * This method will reorder the LED indexes according to the zones and monitor numbers.
      *
-     * @param zonedList   List of ZonedLedCoordinate objects containing zone and color information.
+     * @param zonedList   List of ZonedLedCoordinate objects containing zone and LED index information.
      * @param config2     Configuration for the second monitor (central).
-     * @param orderedList List to store the ordered colors.
+     * @param orderedList List to store the ordered LED indexes.
      */
-    private static void orderZonedList(List<ZonedLedCoordinate> zonedList, Configuration config2, List<Color> orderedList) {
+    private static void orderZonedList(List<ZonedLedCoordinate> zonedList, Configuration config2, List<Integer> orderedList) {
         // Find elements with zone TOP and monitorNumber 1, 2, 3
         List<Integer> topIndices = new ArrayList<>();
         List<ZonedLedCoordinate> topElements = new ArrayList<>();
@@ -91,7 +90,7 @@ public class NetworkSingleton {
             for (Enums.PossibleZones zone : Enums.PossibleZones.values()) {
                 zonedList.forEach(zonedItem -> {
                     if (zonedItem.getZone() == zone) {
-                        orderedList.add(zonedItem.getColor());
+                        orderedList.add(zonedItem.getLedIndex());
                     }
                 });
             }
@@ -102,66 +101,67 @@ public class NetworkSingleton {
 
     /**
      * Manage the split of the bottom row for the zoned list.
-     * This method orders the colors based on the zones and monitor numbers.
+     * This method orders the LED indexes based on the zones and monitor numbers.
      *
-     * @param zonedList   List of ZonedLedCoordinate objects containing zone and color information.
-     * @param orderedList List to store the ordered colors.
+     * @param zonedList   List of ZonedLedCoordinate objects containing zone and LED index information.
+     * @param orderedList List to store the ordered LED indexes.
      */
-    private static void manageBottomRowSplit(List<ZonedLedCoordinate> zonedList, List<Color> orderedList) {
+    private static void manageBottomRowSplit(List<ZonedLedCoordinate> zonedList, List<Integer> orderedList) {
         zonedList.forEach(zonedItem -> {
             if (zonedItem.getZone() == Enums.PossibleZones.BOTTOM_RIGHT && zonedItem.getMonitorNumber() == 2) {
-                orderedList.add(zonedItem.getColor());
+                orderedList.add(zonedItem.getLedIndex());
             }
         });
         zonedList.forEach(zonedItem -> {
             if (zonedItem.getZone() == Enums.PossibleZones.BOTTOM && zonedItem.getMonitorNumber() == 1) {
-                orderedList.add(zonedItem.getColor());
+                orderedList.add(zonedItem.getLedIndex());
             }
         });
         zonedList.forEach(zonedItem -> {
             if (zonedItem.getZone() == Enums.PossibleZones.RIGHT && zonedItem.getMonitorNumber() == 1) {
-                orderedList.add(zonedItem.getColor());
+                orderedList.add(zonedItem.getLedIndex());
             }
         });
         zonedList.forEach(zonedItem -> {
             if (zonedItem.getZone() == Enums.PossibleZones.TOP && zonedItem.getMonitorNumber() == 1) {
-                orderedList.add(zonedItem.getColor());
+                orderedList.add(zonedItem.getLedIndex());
             }
         });
         zonedList.forEach(zonedItem -> {
             if (zonedItem.getZone() == Enums.PossibleZones.TOP && zonedItem.getMonitorNumber() == 2) {
-                orderedList.add(zonedItem.getColor());
+                orderedList.add(zonedItem.getLedIndex());
             }
         });
         zonedList.forEach(zonedItem -> {
             if (zonedItem.getZone() == Enums.PossibleZones.TOP && zonedItem.getMonitorNumber() == 3) {
-                orderedList.add(zonedItem.getColor());
+                orderedList.add(zonedItem.getLedIndex());
             }
         });
         zonedList.forEach(zonedItem -> {
             if (zonedItem.getZone() == Enums.PossibleZones.LEFT && zonedItem.getMonitorNumber() == 3) {
-                orderedList.add(zonedItem.getColor());
+                orderedList.add(zonedItem.getLedIndex());
             }
         });
         zonedList.forEach(zonedItem -> {
             if (zonedItem.getZone() == Enums.PossibleZones.BOTTOM && zonedItem.getMonitorNumber() == 3) {
-                orderedList.add(zonedItem.getColor());
+                orderedList.add(zonedItem.getLedIndex());
             }
         });
         zonedList.forEach(zonedItem -> {
             if (zonedItem.getZone() == Enums.PossibleZones.BOTTOM_LEFT && zonedItem.getMonitorNumber() == 2) {
-                orderedList.add(zonedItem.getColor());
+                orderedList.add(zonedItem.getLedIndex());
             }
         });
     }
 
     /**
-     * Orders the array of colors based on the zoned LED coordinates.
-     * This method will reorder the colors according to the zones and monitor numbers.
+     * Compile the order of the LEDs based on the zoned LED coordinates.
+     * The zones are ordered by zone and monitor number once, the order is applied on every frame by the OutputRoutingPlan.
      *
-     * @param colorArray Array of Color objects to be ordered. Anticlockwise order by default, reverse happens before sending.
+     * @param ledNum number of LEDs in the frame. Anticlockwise order by default, reverse happens before sending.
+     * @return gather index, LED idx of the ordered frame is LED order[idx] of the captured frame
      */
-    public void orderArray(Color[] colorArray) {
+    public int[] compileLedOrder(int ledNum) {
         Configuration config1 = NetworkSingleton.getInstance().messageServer.getMonitorConfig1();
         Configuration config2 = NetworkSingleton.getInstance().messageServer.getMonitorConfig2();
         Configuration config3 = NetworkSingleton.getInstance().messageServer.getMonitorConfig3();
@@ -169,22 +169,22 @@ public class NetworkSingleton {
         List<ZonedLedCoordinate> zonedList1 = new ArrayList<>();
         List<ZonedLedCoordinate> zonedList2 = new ArrayList<>();
         List<ZonedLedCoordinate> zonedList3 = new ArrayList<>();
-        List<Color> orderedList = new ArrayList<>();
+        List<Integer> orderedList = new ArrayList<>();
         AtomicInteger i = new AtomicInteger();
         config1.getLedMatrix().get(Enums.AspectRatio.FULLSCREEN.getBaseI18n()).forEach((_, value) -> {
             if (CommonUtility.isCommonZone(value.getZone())) {
-                zonedList1.add(new ZonedLedCoordinate(1, LocalizedEnum.fromBaseStr(Enums.PossibleZones.class, value.getZone()), colorArray[i.getAndIncrement()]));
+                zonedList1.add(new ZonedLedCoordinate(1, LocalizedEnum.fromBaseStr(Enums.PossibleZones.class, value.getZone()), i.getAndIncrement()));
             }
         });
         config2.getLedMatrix().get(Enums.AspectRatio.FULLSCREEN.getBaseI18n()).forEach((_, value) -> {
             if (CommonUtility.isCommonZone(value.getZone())) {
-                zonedList2.add(new ZonedLedCoordinate(2, LocalizedEnum.fromBaseStr(Enums.PossibleZones.class, value.getZone()), colorArray[i.getAndIncrement()]));
+                zonedList2.add(new ZonedLedCoordinate(2, LocalizedEnum.fromBaseStr(Enums.PossibleZones.class, value.getZone()), i.getAndIncrement()));
             }
         });
         if (MainSingleton.getInstance().config.getMultiMonitor() == 3) {
             config3.getLedMatrix().get(Enums.AspectRatio.FULLSCREEN.getBaseI18n()).forEach((_, value) -> {
                 if (CommonUtility.isCommonZone(value.getZone())) {
-                zonedList3.add(new ZonedLedCoordinate(3, LocalizedEnum.fromBaseStr(Enums.PossibleZones.class, value.getZone()), colorArray[i.getAndIncrement()]));
+                zonedList3.add(new ZonedLedCoordinate(3, LocalizedEnum.fromBaseStr(Enums.PossibleZones.class, value.getZone()), i.getAndIncrement()));
                 }
             });
             zonedList.addAll(zonedList3);
@@ -192,7 +192,13 @@ public class NetworkSingleton {
         zonedList.addAll(zonedList2);
         zonedList.addAll(zonedList1);
         orderZonedList(zonedList, config2, orderedList);
-        orderedList.toArray(colorArray);
+        int[] order = new int[ledNum];
+        for (int idx = 0; idx < ledNum; idx++) {
+            // LEDs that are not in a common zone keep their position
+            int sourceIdx = idx < orderedList.size() ? orderedList.get(idx) : idx;
+            order[idx] = sourceIdx < ledNum ? sourceIdx : idx;
+        }
+        return order;
     }
 
     /**
@@ -26,54 +26,116 @@ import org.dpsoftware.MainSingleton;
 import org.dpsoftware.audio.AudioSingleton;
 import org.dpsoftware.config.Constants;
 import org.dpsoftware.config.Enums;
+import org.dpsoftware.grabber.LatencyMonitor;
+import org.dpsoftware.grabber.PipelineEvents;
+import org.dpsoftware.managers.MetricsManager;
 import org.dpsoftware.managers.NetworkManager;
+import org.dpsoftware.managers.UpgradeManager;
+import org.dpsoftware.utilities.ColorUtilities;
 import org.dpsoftware.utilities.CommonUtility;
 
-import java.awt.*;
 import java.io.IOException;
 import java.net.*;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.Enumeration;
 
 /**
- * UDP Client to manage UDP wireless stream, this is an alternative to MQTT stream
+ * UDP Client to manage UDP wireless stream, this is an alternative to MQTT stream.
+ * Frames are written on a connected datagram channel, every chunk of a frame is encoded in a direct buffer
+ * and then all the chunks are written in a single loop.
  */
 @Slf4j
 public class UdpClient {
 
-    public final DatagramSocket socket;
     final int UDP_PORT = Constants.UDP_PORT;
     private final InetAddress address;
+    // Local address chosen by the routing probe, null when the OS selects the interface, reused on every reconnect
+    private final InetAddress localBindAddress;
+    private volatile DatagramChannel channel;
+    // Set by close(), a closed client never reopens its channel
+    private volatile boolean closed;
+    // Chunks of the current frame, chunk i spans from chunkOffsets[i] to chunkOffsets[i + 1]
+    private ByteBuffer frameBuffer = ByteBuffer.allocateDirect(Constants.UDP_MAX_BUFFER_SIZE);
+    private int[] chunkOffsets = new int[2];
+    private int chunkCount;
+    private final StringBuilder textChunk = new StringBuilder();
+    // null until the firmware version of the device is known
+    private Boolean binaryStream;
+    private int streamSequence;
+    // Delta stream state, colors the device holds after the last frame sent and the changed LED runs of the current frame
+    private int[] sentColors = new int[0];
+    private int sentLedNum;
+    private int[] runStarts = new int[0];
+    private int[] runLengths = new int[0];
+    private int encodedDeltaBytes;
+    private int framesSinceKeyframe;
+    private long lastStreamNanos;
+    private boolean keyframeRequired = true;
 
     /**
-     * UDP constructor for the socket
+     * UDP constructor, the local interface is resolved once and the channel is connected to the device
      *
      * @param deviceIP device IP
      */
-    public UdpClient(String deviceIP) throws SocketException, UnknownHostException {
+    public UdpClient(String deviceIP) throws IOException {
         address = InetAddress.getByName(deviceIP);
-        socket = createSocket(address);
-        socket.setSendBufferSize(Constants.UDP_MAX_BUFFER_SIZE);
-        setTrafficClass();
+        localBindAddress = findLocalAddressForTarget(address);
+        if (localBindAddress != null) {
+            log.info("UDP stream socket bound to localIp={} for targetIp={}",
+                    localBindAddress.getHostAddress(), address.getHostAddress());
+        } else {
+            log.info("UDP stream socket using OS-selected interface for targetIp={}", address.getHostAddress());
+        }
+        openChannel();
     }
 
     /**
-     * Create a UDP socket bound to the local interface that can best reach the target device.
+     * Open a datagram channel bound to the cached local interface and connected to the device
      *
-     * @param targetAddress device IP address
-     * @return UDP socket
-     * @throws SocketException when the socket cannot be created
+     * @throws IOException when the channel cannot be opened
      */
-    private DatagramSocket createSocket(InetAddress targetAddress) throws SocketException {
-        InetAddress localBindAddress = findLocalAddressForTarget(targetAddress);
-        if (localBindAddress != null) {
-            DatagramSocket datagramSocket = new DatagramSocket(new InetSocketAddress(localBindAddress, 0));
-            log.info("UDP stream socket bound to localIp={} for targetIp={}",
-                    localBindAddress.getHostAddress(), targetAddress.getHostAddress());
-            return datagramSocket;
+    private void openChannel() throws IOException {
+        channel = DatagramChannel.open();
+        try {
+            channel.bind(localBindAddress != null ? new InetSocketAddress(localBindAddress, 0) : null);
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, Constants.UDP_MAX_BUFFER_SIZE);
+            setTrafficClass();
+            channel.connect(new InetSocketAddress(address, UDP_PORT));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        // The device may have missed frames while the channel was down
+        keyframeRequired = true;
+    }
+
+    /**
+     * Reopen the channel after a socket error, the interface routing probe is not repeated.
+     * The channel is never reopened once the client has been closed.
+     *
+     * @return true if the channel is open
+     */
+    private boolean ensureOpen() {
+        if (closed) {
+            return false;
+        }
+        if (channel.isOpen()) {
+            return true;
+        }
+        try {
+            openChannel();
+            if (closed) {
+                // Closed while reconnecting, close() may have missed the new channel
+                closeChannel();
+                return false;
+            }
+            log.info("UDP stream reconnected to targetIp={}", address.getHostAddress());
+            return true;
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            return false;
         }
-        log.info("UDP stream socket using OS-selected interface for targetIp={}", targetAddress.getHostAddress());
-        return new DatagramSocket();
     }
 
     /**
@@ -181,67 +243,379 @@ public class UdpClient {
      */
     private void setTrafficClass() {
         try {
-            socket.setTrafficClass(MainSingleton.getInstance().config.getUdpTrafficClass());
-        } catch (SocketException e) {
+            channel.setOption(StandardSocketOptions.IP_TOS, MainSingleton.getInstance().config.getUdpTrafficClass());
+        } catch (IOException | UnsupportedOperationException e) {
             log.warn("Cannot set UDP traffic class {}, (not supported on this OS/NIC): {}", MainSingleton.getInstance().config.getUdpTrafficClass(), e.getMessage());
         }
     }
 
     /**
-     * Send message
+     * Start encoding a frame in the frame buffer
+     *
+     * @param maxChunks    maximum number of chunks in the frame
+     * @param maxChunkSize maximum size of a chunk in bytes
+     */
+    private void beginFrame(int maxChunks, int maxChunkSize) {
+        int capacity = maxChunks * maxChunkSize;
+        if (frameBuffer.capacity() < capacity) {
+            frameBuffer = ByteBuffer.allocateDirect(capacity);
+        }
+        if (chunkOffsets.length < maxChunks + 1) {
+            chunkOffsets = new int[maxChunks + 1];
+        }
+        frameBuffer.clear();
+        chunkCount = 0;
+    }
+
+    /**
+     * Close the chunk being encoded, the next chunk starts at the current buffer position
+     */
+    private void endChunk() {
+        chunkOffsets[++chunkCount] = frameBuffer.position();
+    }
+
+    /**
+     * Write every chunk of the frame on the channel, one datagram per chunk.
+     * When the device is unreachable the channel stays open, on other errors it is closed and reopened on the next frame.
+     * In both cases the next binary frame is a keyframe.
      *
-     * @param msg to send
+     * @return number of bytes written, 0 if the frame has not been sent
      */
-    public void sendUdpStream(String msg) {
-        byte[] buf = msg.getBytes();
-        DatagramPacket packet = new DatagramPacket(buf, buf.length, address, UDP_PORT);
+    private int flushFrame() {
         try {
-            log.trace("Sending UDP stream packet from localPort={} to targetIp={} targetPort={}",
-                    socket.getLocalPort(), address.getHostAddress(), UDP_PORT);
-            socket.send(packet);
+            log.trace("Sending UDP stream frame of {} chunks from localPort={} to targetIp={} targetPort={}",
+                    chunkCount, channel.socket().getLocalPort(), address.getHostAddress(), UDP_PORT);
+            long sendStart = System.nanoTime();
+            for (int chunkNum = 0; chunkNum < chunkCount; chunkNum++) {
+                frameBuffer.limit(chunkOffsets[chunkNum + 1]).position(chunkOffsets[chunkNum]);
+                channel.write(frameBuffer);
+                // Let the microcontroller rest before next chunk
+                if (Constants.UDP_MICROCONTROLLER_REST_TIME > 0) {
+                    CommonUtility.sleepMilliseconds(Constants.UDP_MICROCONTROLLER_REST_TIME);
+                }
+            }
+            LatencyMonitor.SEND.recordSince(sendStart);
+            MetricsManager.BYTES_SENT_UDP.add(chunkOffsets[chunkCount]);
+            return chunkOffsets[chunkCount];
+        } catch (PortUnreachableException e) {
+            MetricsManager.SEND_ERRORS_UDP.increment();
+            PipelineEvents.frameDropped(Constants.JFR_DROP_UDP_ERROR);
+            keyframeRequired = true;
+            log.debug("UDP stream targetIp={} unreachable: {}", address.getHostAddress(), e.getMessage());
         } catch (IOException e) {
-            socket.close();
+            MetricsManager.SEND_ERRORS_UDP.increment();
+            PipelineEvents.frameDropped(Constants.JFR_DROP_UDP_ERROR);
+            keyframeRequired = true;
+            closeChannel();
             log.error(e.getMessage());
         }
+        return 0;
     }
 
     /**
      * Organize led data and send it via UDP stream
      *
-     * @param leds array containing color information
+     * @param leds   packed colors
+     * @param ledNum number of LEDs to send
+     * @return number of bytes written, 0 if the frame has not been sent
      */
-    public void manageStream(Color[] leds) {
-        int chunkTotal;
-        chunkTotal = (int) Math.ceil(leds.length / Constants.UDP_CHUNK_SIZE);
+    public int manageStream(int[] leds, int ledNum) {
+        if (!ensureOpen()) {
+            return 0;
+        }
+        if (isBinaryStream()) {
+            return manageBinaryStream(leds, ledNum);
+        }
+        long encodeStart = System.nanoTime();
+        int chunkTotal = (int) Math.ceil(ledNum / Constants.UDP_CHUNK_SIZE);
+        beginFrame(chunkTotal, Constants.UDP_MAX_BUFFER_SIZE);
         for (int chunkNum = 0; chunkNum < chunkTotal; chunkNum++) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("DPsoftware").append(",");
-            sb.append(leds.length).append(",");
-            sb.append((AudioSingleton.getInstance().AUDIO_BRIGHTNESS == 255 ? CommonUtility.getNightBrightness() : AudioSingleton.getInstance().AUDIO_BRIGHTNESS)).append(",");
-            sb.append(chunkTotal).append(",");
-            sb.append(chunkNum).append(",");
+            textChunk.setLength(0);
+            textChunk.append("DPsoftware").append(",");
+            textChunk.append(ledNum).append(",");
+            textChunk.append((AudioSingleton.getInstance().AUDIO_BRIGHTNESS == 255 ? CommonUtility.getNightBrightness() : AudioSingleton.getInstance().AUDIO_BRIGHTNESS)).append(",");
+            textChunk.append(chunkTotal).append(",");
+            textChunk.append(chunkNum).append(",");
             int chunkSizeInteger = (int) Constants.UDP_CHUNK_SIZE * chunkNum;
             int nextChunk = (int) (chunkSizeInteger + Constants.UDP_CHUNK_SIZE);
-            Color[] ledChunk = Arrays.copyOfRange(leds, chunkSizeInteger, Math.min(nextChunk, leds.length));
-            for (int ledIndex = 0; ledIndex < ledChunk.length; ledIndex++) {
-                sb.append(ledChunk[ledIndex].getRGB());
-                if (ledIndex < ledChunk.length - 1) {
-                    sb.append(",");
+            int chunkEnd = Math.min(nextChunk, ledNum);
+            for (int ledIndex = chunkSizeInteger; ledIndex < chunkEnd; ledIndex++) {
+                textChunk.append(ColorUtilities.toArgb(leds[ledIndex]));
+                if (ledIndex < chunkEnd - 1) {
+                    textChunk.append(",");
                 }
             }
-            sendUdpStream(sb.toString());
-            // Let the microcontroller rest for 1 milliseconds before next stream
-            if (Constants.UDP_MICROCONTROLLER_REST_TIME > 0) {
-                CommonUtility.sleepMilliseconds(Constants.UDP_MICROCONTROLLER_REST_TIME);
+            // The text stream is plain ASCII, chars are copied as bytes
+            for (int charIndex = 0; charIndex < textChunk.length(); charIndex++) {
+                frameBuffer.put((byte) textChunk.charAt(charIndex));
+            }
+            endChunk();
+        }
+        LatencyMonitor.ENCODE.recordSince(encodeStart);
+        return flushFrame();
+    }
+
+    /**
+     * Check if the device behind this client accepts the binary stream.
+     * The firmware version is checked once, until it is known the text stream is used.
+     *
+     * @return true if the binary stream can be used
+     */
+    private boolean isBinaryStream() {
+        if (binaryStream == null) {
+            binaryStream = UpgradeManager.isBinaryUdpStreamSupported(address.getHostAddress());
+            if (binaryStream != null) {
+                log.info("UDP stream to targetIp={} uses the {} format", address.getHostAddress(), binaryStream ? "binary" : "text");
+            }
+        }
+        return Boolean.TRUE.equals(binaryStream);
+    }
+
+    /**
+     * Send led data via the binary UDP stream, as a keyframe or as a delta frame when delta encoding is enabled.
+     * A keyframe is forced every few frames, after a send error, after a pause in the stream and when the LED count changes,
+     * so a device that lost a delta frame gets back in sync quickly.
+     *
+     * @param leds   packed colors
+     * @param ledNum number of LEDs to send
+     * @return number of bytes written, 0 if the frame has not been sent
+     */
+    private int manageBinaryStream(int[] leds, int ledNum) {
+        long encodeStart = System.nanoTime();
+        int brightness = AudioSingleton.getInstance().AUDIO_BRIGHTNESS == 255 ? CommonUtility.getNightBrightness() : AudioSingleton.getInstance().AUDIO_BRIGHTNESS;
+        int baseSequence = streamSequence;
+        streamSequence = (streamSequence + 1) & 0xFFFF;
+        boolean streamPaused = encodeStart - lastStreamNanos > Constants.UDP_DELTA_MAX_GAP_NANOS;
+        lastStreamNanos = encodeStart;
+        int keyframeChunks = Math.max(1, (ledNum + Constants.UDP_BINARY_CHUNK_SIZE - 1) / Constants.UDP_BINARY_CHUNK_SIZE);
+        int keyframeBytes = keyframeChunks * Constants.UDP_BINARY_HEADER_SIZE + ledNum * 3;
+        if (MainSingleton.getInstance().config.isUdpDeltaEncoding() && !keyframeRequired && !streamPaused
+                && ledNum == sentLedNum && framesSinceKeyframe < Constants.UDP_DELTA_KEYFRAME_INTERVAL) {
+            int runCount = collectChangedRuns(leds, ledNum, MainSingleton.getInstance().config.getUdpDeltaThreshold());
+            int deltaChunks = encodeDeltaFrame(leds, runCount, brightness, baseSequence, 0, false);
+            if (encodedDeltaBytes < keyframeBytes) {
+                beginFrame(deltaChunks, Constants.UDP_BINARY_MAX_PACKET_SIZE);
+                encodeDeltaFrame(leds, runCount, brightness, baseSequence, deltaChunks, true);
+                LatencyMonitor.ENCODE.recordSince(encodeStart);
+                framesSinceKeyframe++;
+                MetricsManager.UDP_DELTA_FRAMES.increment();
+                MetricsManager.UDP_DELTA_BYTES_SAVED.add(keyframeBytes - encodedDeltaBytes);
+                return flushFrame();
             }
         }
+        keyframeRequired = false;
+        framesSinceKeyframe = 0;
+        if (sentColors.length < ledNum) {
+            sentColors = new int[ledNum];
+        }
+        System.arraycopy(leds, 0, sentColors, 0, ledNum);
+        sentLedNum = ledNum;
+        beginFrame(keyframeChunks, Constants.UDP_BINARY_MAX_PACKET_SIZE);
+        encodeKeyframe(leds, ledNum, brightness, keyframeChunks);
+        LatencyMonitor.ENCODE.recordSince(encodeStart);
+        MetricsManager.UDP_KEYFRAMES.increment();
+        return flushFrame();
     }
 
     /**
-     * Close stream
+     * Encode led data as raw RGB triplets in the frame buffer.
+     * Every chunk fits a single datagram, header fields are big endian.
+     *
+     * @param leds       packed colors
+     * @param ledNum     number of LEDs to send
+     * @param brightness brightness to apply on the device
+     * @param chunkTotal number of chunks in the frame
+     */
+    private void encodeKeyframe(int[] leds, int ledNum, int brightness, int chunkTotal) {
+        for (int chunkNum = 0; chunkNum < chunkTotal; chunkNum++) {
+            int chunkStart = chunkNum * Constants.UDP_BINARY_CHUNK_SIZE;
+            int chunkEnd = Math.min(chunkStart + Constants.UDP_BINARY_CHUNK_SIZE, ledNum);
+            frameBuffer.put(Constants.UDP_BINARY_MAGIC);
+            frameBuffer.put((byte) Constants.UDP_BINARY_VERSION);
+            frameBuffer.putShort((short) streamSequence);
+            frameBuffer.put((byte) brightness);
+            frameBuffer.put((byte) chunkTotal);
+            frameBuffer.put((byte) chunkNum);
+            frameBuffer.putShort((short) ledNum);
+            frameBuffer.putShort((short) chunkStart);
+            frameBuffer.putShort((short) (chunkEnd - chunkStart));
+            for (int ledIndex = chunkStart; ledIndex < chunkEnd; ledIndex++) {
+                putRgb(leds[ledIndex]);
+            }
+            endChunk();
+        }
+    }
+
+    /**
+     * Find the LEDs that changed more than the threshold on any channel since the last frame sent, grouped in runs.
+     * Runs separated by a short gap are merged, a few unchanged LEDs cost less than a new run header.
+     * The colors stored for the device are updated with every LED that will be sent.
+     *
+     * @param leds      packed colors
+     * @param ledNum    number of LEDs in the frame
+     * @param threshold per channel difference that marks a LED as changed
+     * @return number of runs found
+     */
+    private int collectChangedRuns(int[] leds, int ledNum, int threshold) {
+        if (runStarts.length < ledNum) {
+            runStarts = new int[ledNum];
+            runLengths = new int[ledNum];
+        }
+        int runCount = 0;
+        int runEnd = -1;
+        for (int ledIndex = 0; ledIndex < ledNum; ledIndex++) {
+            if (!isChanged(leds[ledIndex], sentColors[ledIndex], threshold)) {
+                continue;
+            }
+            if (runCount > 0 && ledIndex - runEnd <= Constants.UDP_DELTA_RUN_MERGE_GAP) {
+                for (int gapIndex = runEnd; gapIndex < ledIndex; gapIndex++) {
+                    sentColors[gapIndex] = leds[gapIndex];
+                }
+                runLengths[runCount - 1] += ledIndex - runEnd + 1;
+            } else {
+                runStarts[runCount] = ledIndex;
+                runLengths[runCount] = 1;
+                runCount++;
+            }
+            sentColors[ledIndex] = leds[ledIndex];
+            runEnd = ledIndex + 1;
+        }
+        return runCount;
+    }
+
+    /**
+     * Check if a color changed more than the threshold on any channel
+     *
+     * @param color     new packed color
+     * @param sentColor packed color held by the device
+     * @param threshold per channel difference
+     * @return true if the LED must be sent
+     */
+    private static boolean isChanged(int color, int sentColor, int threshold) {
+        return Math.abs(((color >> 16) & 0xFF) - ((sentColor >> 16) & 0xFF)) > threshold
+                || Math.abs(((color >> 8) & 0xFF) - ((sentColor >> 8) & 0xFF)) > threshold
+                || Math.abs((color & 0xFF) - (sentColor & 0xFF)) > threshold;
+    }
+
+    /**
+     * Pack the changed runs in delta chunks. A delta chunk has the keyframe header with the delta magic,
+     * the sequence of the frame it applies to in place of the first LED and the number of runs in place of the chunk LED count.
+     * Every run is its first LED and its length followed by RGB triplets, runs longer than the room left in a chunk are split.
+     * The device applies a delta only when it holds the base frame, otherwise it waits for the next keyframe.
+     * A frame without changes is still sent as an empty chunk, it keeps the sequence chain and the device alive.
+     *
+     * @param leds         packed colors
+     * @param runCount     number of changed runs
+     * @param brightness   brightness to apply on the device
+     * @param baseSequence sequence of the previous frame
+     * @param chunkTotal   number of chunks in the frame, used when encoding
+     * @param encode       false to only measure the frame, true to encode it in the frame buffer
+     * @return number of chunks needed by the frame, total bytes are stored in encodedDeltaBytes
+     */
+    private int encodeDeltaFrame(int[] leds, int runCount, int brightness, int baseSequence, int chunkTotal, boolean encode) {
+        int chunkNum = 0;
+        int chunkRuns = 0;
+        int chunkBytes = Constants.UDP_BINARY_HEADER_SIZE;
+        encodedDeltaBytes = 0;
+        if (encode) {
+            putDeltaHeader(brightness, baseSequence, chunkTotal, chunkNum);
+        }
+        for (int runIndex = 0; runIndex < runCount; runIndex++) {
+            int runStart = runStarts[runIndex];
+            int remaining = runLengths[runIndex];
+            while (remaining > 0) {
+                int room = (Constants.UDP_BINARY_MAX_PACKET_SIZE - chunkBytes - Constants.UDP_DELTA_RUN_HEADER_SIZE) / 3;
+                if (room <= 0) {
+                    if (encode) {
+                        endDeltaChunk(chunkRuns);
+                        putDeltaHeader(brightness, baseSequence, chunkTotal, chunkNum + 1);
+                    }
+                    encodedDeltaBytes += chunkBytes;
+                    chunkNum++;
+                    chunkRuns = 0;
+                    chunkBytes = Constants.UDP_BINARY_HEADER_SIZE;
+                    continue;
+                }
+                int length = Math.min(room, remaining);
+                if (encode) {
+                    frameBuffer.putShort((short) runStart);
+                    frameBuffer.putShort((short) length);
+                    for (int ledIndex = runStart; ledIndex < runStart + length; ledIndex++) {
+                        putRgb(leds[ledIndex]);
+                    }
+                }
+                chunkBytes += Constants.UDP_DELTA_RUN_HEADER_SIZE + length * 3;
+                chunkRuns++;
+                runStart += length;
+                remaining -= length;
+            }
+        }
+        if (encode) {
+            endDeltaChunk(chunkRuns);
+        }
+        encodedDeltaBytes += chunkBytes;
+        return chunkNum + 1;
+    }
+
+    /**
+     * Start a delta chunk in the frame buffer
+     *
+     * @param brightness   brightness to apply on the device
+     * @param baseSequence sequence of the previous frame
+     * @param chunkTotal   number of chunks in the frame
+     * @param chunkNum     chunk index
+     */
+    private void putDeltaHeader(int brightness, int baseSequence, int chunkTotal, int chunkNum) {
+        frameBuffer.put(Constants.UDP_DELTA_MAGIC);
+        frameBuffer.put((byte) Constants.UDP_BINARY_VERSION);
+        frameBuffer.putShort((short) streamSequence);
+        frameBuffer.put((byte) brightness);
+        frameBuffer.put((byte) chunkTotal);
+        frameBuffer.put((byte) chunkNum);
+        frameBuffer.putShort((short) sentLedNum);
+        frameBuffer.putShort((short) baseSequence);
+        // Run count, written when the chunk is complete
+        frameBuffer.putShort((short) 0);
+    }
+
+    /**
+     * Write the run count of the chunk in its header and close the chunk
+     *
+     * @param chunkRuns number of runs in the chunk
+     */
+    private void endDeltaChunk(int chunkRuns) {
+        frameBuffer.putShort(chunkOffsets[chunkCount] + Constants.UDP_BINARY_HEADER_SIZE - 2, (short) chunkRuns);
+        endChunk();
+    }
+
+    /**
+     * Write a packed color as an RGB triplet in the frame buffer
+     *
+     * @param color packed color
+     */
+    private void putRgb(int color) {
+        frameBuffer.put((byte) (color >> 16));
+        frameBuffer.put((byte) (color >> 8));
+        frameBuffer.put((byte) color);
+    }
+
+    /**
+     * Close stream, the channel is not reopened after this call
      */
     public void close() {
-        socket.close();
+        closed = true;
+        closeChannel();
+    }
+
+    /**
+     * Close the channel, it is reopened on the next frame unless the client has been closed
+     */
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.error(e.getMessage());
+        }
     }
 
 }
@@ -0,0 +1,159 @@
+/*
+  UdpDeviceSender.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.network.tcpUdp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dpsoftware.grabber.*;
+import org.dpsoftware.gui.elements.Satellite;
+import org.dpsoftware.managers.MetricsManager;
+
+import java.io.IOException;
+
+/**
+ * Sends the UDP stream to a single device on its own thread.
+ * The consumer hands a copy of every frame to each device through a latest-wins mailbox and goes on,
+ * so the main strip and the satellites get their frames in parallel and a slow device only drops its own stale frames.
+ * Satellite colors are mapped from the main strip colors on the sender thread.
+ * The direct pipeline sends the main strip frame on the capture thread instead, see {@link #sendNow(LedFrame)}.
+ * Frames sent to the main device are recorded as UDP frames sent once they are written on the wire.
+ */
+@Slf4j
+public class UdpDeviceSender {
+
+    private final UdpClient udpClient;
+    private final FrameMailbox mailbox = new FrameMailbox();
+    private final Thread thread;
+    // The sender thread and the direct pipeline never encode on the UDP client at the same time
+    private final Object sendLock = new Object();
+    private volatile boolean closed;
+    // Satellite fed by this sender, null for the main device
+    private volatile Satellite satellite;
+    private SatelliteMapping mapping;
+    private int[] satelliteColors = new int[0];
+
+    /**
+     * Create the sender and start its thread
+     *
+     * @param deviceIP device IP
+     * @throws IOException when the UDP client cannot be created
+     */
+    public UdpDeviceSender(String deviceIP) throws IOException {
+        udpClient = new UdpClient(deviceIP);
+        thread = Thread.ofPlatform().name("udp-sender-" + deviceIP).daemon(true).priority(Thread.MAX_PRIORITY).start(this::run);
+    }
+
+    /**
+     * Hand a frame to the sender, the colors are copied so the caller keeps ownership of its frame
+     *
+     * @param leds      main strip frame
+     * @param satellite satellite to map the colors to, null to send the main strip colors
+     */
+    public void offer(LedFrame leds, Satellite satellite) {
+        this.satellite = satellite;
+        LedFrame frame = FramePool.acquire(leds.getLedNum());
+        frame.copyFrom(leds.getRgb(), leds.getLedNum());
+        frame.setCaptureNanos(leds.getCaptureNanos());
+        mailbox.offer(frame);
+        if (closed) {
+            // Closed while offering, nobody will take the frame
+            mailbox.clear();
+        }
+    }
+
+    /**
+     * Send the main strip frame on the calling thread, used by the direct pipeline
+     *
+     * @param frame main strip frame, it's still owned by the caller after this call
+     */
+    public void sendNow(LedFrame frame) {
+        synchronized (sendLock) {
+            send(frame, null);
+        }
+    }
+
+    /**
+     * Send loop, every frame taken from the mailbox is given back to the FramePool once sent
+     */
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            LedFrame frame;
+            try {
+                frame = mailbox.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            try {
+                synchronized (sendLock) {
+                    send(frame, satellite);
+                }
+            } catch (RuntimeException e) {
+                log.error(e.getMessage());
+            } finally {
+                FramePool.release(frame);
+            }
+        }
+    }
+
+    /**
+     * Send a frame to the device, satellite colors are mapped from the main strip colors first
+     *
+     * @param frame main strip frame
+     * @param sat   satellite to map the colors to, null to send the main strip colors
+     */
+    private void send(LedFrame frame, Satellite sat) {
+        if (sat == null) {
+            PipelineEvents.FrameSent sentEvent = new PipelineEvents.FrameSent();
+            sentEvent.begin();
+            int bytes = udpClient.manageStream(frame.getRgb(), frame.getLedNum());
+            if (bytes > 0) {
+                MetricsManager.FRAMES_SENT_UDP.increment();
+                LatencyMonitor.CAPTURE_TO_WIRE.recordSince(frame.getCaptureNanos());
+                if (sentEvent.shouldCommit()) {
+                    sentEvent.sink = MetricsManager.SINK_UDP;
+                    sentEvent.leds = frame.getLedNum();
+                    sentEvent.bytes = bytes;
+                    sentEvent.captureToWire = frame.getCaptureNanos() != 0 ? System.nanoTime() - frame.getCaptureNanos() : 0;
+                    sentEvent.commit();
+                }
+            }
+            return;
+        }
+        mapping = SatelliteMapping.resolve(mapping, sat, frame.getLedNum());
+        if (satelliteColors.length < mapping.getLedNum()) {
+            satelliteColors = new int[mapping.getLedNum()];
+        }
+        mapping.apply(frame.getRgb(), satelliteColors);
+        udpClient.manageStream(satelliteColors, mapping.getLedNum());
+    }
+
+    /**
+     * Stop the sender thread and close the stream
+     */
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        mailbox.clear();
+        udpClient.close();
+    }
+
+}
@@ -44,9 +44,20 @@ public class ColorUtilities {
      * @return hsl if non-null, a new array of 3 floats otherwise
      */
     public static float[] RGBtoHSL(Color color, float[] hsl) {
-        int r = color.getRed();
-        int g = color.getGreen();
-        int b = color.getBlue();
+        return RGBtoHSL(color.getRed(), color.getGreen(), color.getBlue(), hsl);
+    }
+
+    /**
+     * Returns the HSL (Hue/Saturation/Luminance) equivalent of a given
+     * RGB color. All three HSL components are floats between 0.0 and 1.0.
+     *
+     * @param r   red channel between 0 and 255
+     * @param g   green channel between 0 and 255
+     * @param b   blue channel between 0 and 255
+     * @param hsl a pre-allocated array of floats; can be null
+     * @return hsl if non-null, a new array of 3 floats otherwise
+     */
+    public static float[] RGBtoHSL(int r, int g, int b, float[] hsl) {
         if (hsl == null) {
             hsl = new float[3];
         }
@@ -124,19 +135,14 @@ public class ColorUtilities {
     }
 
     /**
-     * Returns the RGB equivalent of a given HSL (Hue/Saturation/Luminance) color.
-     * All three RGB components are integers between 0 and 255.
+     * Returns the packed 0xRRGGBB equivalent of a given HSL (Hue/Saturation/Luminance) color.
      *
-     * @param h   the hue component, between 0.0 and 1.0
-     * @param s   the saturation component, between 0.0 and 1.0
-     * @param l   the luminance component, between 0.0 and 1.0
-     * @param rgb a pre-allocated array of ints; can be null
-     * @return rgb if non-null, a new array of 3 ints otherwise
+     * @param h the hue component, between 0.0 and 1.0
+     * @param s the saturation component, between 0.0 and 1.0
+     * @param l the luminance component, between 0.0 and 1.0
+     * @return packed RGB color
      */
-    public static int[] HSLtoRGB(float h, float s, float l, int[] rgb) {
-        if (rgb == null) {
-            rgb = new int[3];
-        }
+    public static int HSLtoPackedRGB(float h, float s, float l) {
         if (h < 0) h = 0.0f;
         else if (h > 1.0f) h = 1.0f;
         if (s < 0) s = 0.0f;
@@ -160,9 +166,80 @@ public class ColorUtilities {
             G = (int) (255.0f * hue2RGB(var_1, var_2, h));
             B = (int) (255.0f * hue2RGB(var_1, var_2, h - (1.0f / 3.0f)));
         }
-        rgb[0] = R;
-        rgb[1] = G;
-        rgb[2] = B;
+        return packRgb(R, G, B);
+    }
+
+    /**
+     * Pack RGB channels into a 0xRRGGBB integer, this is the format used by the frames in the pipeline
+     *
+     * @param r red channel between 0 and 255
+     * @param g green channel between 0 and 255
+     * @param b blue channel between 0 and 255
+     * @return packed RGB color
+     */
+    public static int packRgb(int r, int g, int b) {
+        return ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
+    }
+
+    /**
+     * Red channel of a packed color
+     *
+     * @param rgb packed RGB color
+     * @return red channel between 0 and 255
+     */
+    public static int red(int rgb) {
+        return (rgb >> 16) & 0xFF;
+    }
+
+    /**
+     * Green channel of a packed color
+     *
+     * @param rgb packed RGB color
+     * @return green channel between 0 and 255
+     */
+    public static int green(int rgb) {
+        return (rgb >> 8) & 0xFF;
+    }
+
+    /**
+     * Blue channel of a packed color
+     *
+     * @param rgb packed RGB color
+     * @return blue channel between 0 and 255
+     */
+    public static int blue(int rgb) {
+        return rgb & 0xFF;
+    }
+
+    /**
+     * Packed color with the alpha channel set, this is the same value returned by Color.getRGB()
+     * and it's the value expected by the text based streams.
+     *
+     * @param rgb packed RGB color
+     * @return ARGB color
+     */
+    public static int toArgb(int rgb) {
+        return 0xFF000000 | rgb;
+    }
+
+    /**
+     * Returns the RGB equivalent of a given HSL (Hue/Saturation/Luminance) color.
+     * All three RGB components are integers between 0 and 255.
+     *
+     * @param h   the hue component, between 0.0 and 1.0
+     * @param s   the saturation component, between 0.0 and 1.0
+     * @param l   the luminance component, between 0.0 and 1.0
+     * @param rgb a pre-allocated array of ints; can be null
+     * @return rgb if non-null, a new array of 3 ints otherwise
+     */
+    public static int[] HSLtoRGB(float h, float s, float l, int[] rgb) {
+        if (rgb == null) {
+            rgb = new int[3];
+        }
+        int packed = HSLtoPackedRGB(h, s, l);
+        rgb[0] = red(packed);
+        rgb[1] = green(packed);
+        rgb[2] = blue(packed);
         return rgb;
     }
 
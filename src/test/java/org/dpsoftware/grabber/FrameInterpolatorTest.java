@@ -0,0 +1,67 @@
+/*
+  FrameInterpolatorTest.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.dpsoftware.utilities.ColorUtilities;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Start colors of the frame insertion transitions
+ */
+class FrameInterpolatorTest {
+
+    /**
+     * A keyframe that arrives mid-transition starts from the colors on the strip, not from the previous keyframe
+     */
+    @Test
+    void keyframeMidTransitionStartsFromStripColors() {
+        int[] from = {ColorUtilities.packRgb(0, 0, 0), ColorUtilities.packRgb(200, 100, 0)};
+        int[] to = {ColorUtilities.packRgb(200, 100, 50), ColorUtilities.packRgb(0, 0, 0)};
+        FrameInterpolator.stripColors(from, to, 2, false, 0.5F);
+        assertArrayEquals(new int[]{ColorUtilities.packRgb(100, 50, 25), ColorUtilities.packRgb(100, 50, 0)}, from);
+    }
+
+    /**
+     * Once the transition is complete the strip shows the keyframe colors
+     */
+    @Test
+    void keyframeAfterTransitionStartsFromKeyframeColors() {
+        int[] from = {ColorUtilities.packRgb(0, 0, 0), ColorUtilities.packRgb(200, 100, 0)};
+        int[] to = {ColorUtilities.packRgb(200, 100, 50), ColorUtilities.packRgb(0, 0, 0)};
+        FrameInterpolator.stripColors(from, to, 2, true, 0.5F);
+        assertArrayEquals(to, from);
+    }
+
+    /**
+     * Interpolation can write on its start array
+     */
+    @Test
+    void lerpInPlace() {
+        int[] colors = {ColorUtilities.packRgb(10, 20, 30)};
+        int[] end = {ColorUtilities.packRgb(110, 220, 30)};
+        FrameInterpolator.lerp(colors, end, colors, 1, 0.25F);
+        assertArrayEquals(new int[]{ColorUtilities.packRgb(35, 70, 30)}, colors);
+    }
+
+}
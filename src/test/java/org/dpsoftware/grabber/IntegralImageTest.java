@@ -0,0 +1,92 @@
+/*
+  IntegralImageTest.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Edge policy of the summed-area table compared to the scalar kernel
+ */
+class IntegralImageTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 23;
+    private static final int STRIDE_PADDING = 3;
+
+    /**
+     * Zones crossing the right and the bottom edges are summed as the scalar kernel samples them
+     */
+    @Test
+    void zonesCrossingTheEdgesMatchTheScalarKernel() {
+        int widthPlusStride = WIDTH + STRIDE_PADDING;
+        int[] pixels = new int[widthPlusStride * HEIGHT];
+        Random random = new Random(42);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt(0x1000000);
+        }
+        MemorySegment frameSegment = MemorySegment.ofArray(pixels);
+        FrameLayout layout = FrameLayout.of(WIDTH, HEIGHT, frameSegment.byteSize());
+        IntegralImage integralImage = new IntegralImage();
+        integralImage.build(layout.widthPlusStride(), layout.height(), frameSegment);
+        int[][] zones = {
+                {10, 5, 20, 15},
+                {30, 4, 48, 12},
+                {5, 18, 16, 30},
+                {32, 17, 52, 29},
+                {widthPlusStride, HEIGHT, widthPlusStride + 4, HEIGHT + 4}
+        };
+        int[] sum = new int[4];
+        for (int[] zone : zones) {
+            integralImage.sum(zone[0], zone[1], zone[2], zone[3], sum, 0);
+            assertArrayEquals(scalarSum(layout, frameSegment, zone), sum);
+        }
+    }
+
+    /**
+     * Sum a zone the same way the scalar kernel in GStreamerGrabber does
+     *
+     * @param layout       layout of the frame
+     * @param frameSegment frame pixels
+     * @param zone         x0, y0, x1, y1
+     * @return R, G, B sums and the number of pixels
+     */
+    private static int[] scalarSum(FrameLayout layout, MemorySegment frameSegment, int[] zone) {
+        int r = 0, g = 0, b = 0;
+        int pickNumber = 0;
+        for (int y = zone[1]; y < zone[3]; y++) {
+            for (int x = zone[0]; x < zone[2]; x++) {
+                int rgb = frameSegment.getAtIndex(FrameLayout.PIXEL, layout.sampleIndex(x, y));
+                r += rgb >> 16 & 0xFF;
+                g += rgb >> 8 & 0xFF;
+                b += rgb & 0xFF;
+                pickNumber++;
+            }
+        }
+        return new int[]{r, g, b, pickNumber};
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+  ZoneKernelTunerTest.java
+
+  Firefly Luciferin, very fast Java Screen Capture software designed
+  for Glow Worm Luciferin firmware.
+
+  Copyright © 2020 - 2026  Davide Perini  (https://github.com/sblantipodi)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package org.dpsoftware.grabber;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+import org.dpsoftware.LEDCoordinate;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Zone kernels selected by the tuner must produce the same sums, edge LEDs included
+ */
+class ZoneKernelTunerTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 23;
+    private static final int STRIDE_PADDING = 3;
+
+    /**
+     * Scalar, integral image and every SIMD species, sequential and split in chunks, on zones crossing the frame edges
+     */
+    @Test
+    void everyCandidateProducesTheSameSums() {
+        int widthPlusStride = WIDTH + STRIDE_PADDING;
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment frameSegment = arena.allocate((long) widthPlusStride * HEIGHT * Integer.BYTES);
+            Random random = new Random(42);
+            for (long i = 0; i < (long) widthPlusStride * HEIGHT; i++) {
+                frameSegment.setAtIndex(FrameLayout.PIXEL, i, random.nextInt(0x1000000));
+            }
+            FrameLayout layout = FrameLayout.of(WIDTH, HEIGHT, frameSegment.byteSize());
+            LinkedHashMap<Integer, LEDCoordinate> ledMatrix = new LinkedHashMap<>();
+            ledMatrix.put(1, new LEDCoordinate(10, 5, 10, 10, false, ""));
+            ledMatrix.put(2, new LEDCoordinate(30, 4, 18, 8, false, ""));
+            ledMatrix.put(3, new LEDCoordinate(5, 18, 11, 12, false, ""));
+            ledMatrix.put(4, new LEDCoordinate(32, 17, 20, 12, false, ""));
+            ledMatrix.put(5, new LEDCoordinate(0, 0, 3, HEIGHT + 2, false, ""));
+            ledMatrix.put(6, new LEDCoordinate(widthPlusStride, HEIGHT, 4, 4, false, ""));
+            ZonePlan plan = ZonePlan.forCapture(ledMatrix, 1, widthPlusStride, HEIGHT);
+            GStreamerGrabber.integralImage.build(widthPlusStride, HEIGHT, frameSegment);
+            GStreamerGrabber.AppSinkListener.sumZones(plan, 0, plan.zones.length, null, frameSegment, layout, false);
+            int[] scalar = plan.zoneSums.clone();
+            List<VectorSpecies<Integer>> species = List.of(IntVector.SPECIES_128, IntVector.SPECIES_256, IntVector.SPECIES_512);
+            int half = plan.zones.length / 2;
+            for (boolean parallel : new boolean[]{false, true}) {
+                assertArrayEquals(scalar, sums(plan, null, frameSegment, layout, true, parallel ? half : plan.zones.length), "INTEGRAL_IMAGE");
+                for (VectorSpecies<Integer> s : species) {
+                    assertArrayEquals(scalar, sums(plan, s, frameSegment, layout, false, parallel ? half : plan.zones.length), s.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sum all the zones in two chunks, as the parallel engine does
+     *
+     * @param split index of the first zone of the second chunk
+     * @return zone sums
+     */
+    private static int[] sums(ZonePlan plan, VectorSpecies<Integer> species, MemorySegment frameSegment, FrameLayout layout,
+                              boolean useIntegralImage, int split) {
+        Arrays.fill(plan.zoneSums, -1);
+        GStreamerGrabber.AppSinkListener.sumZones(plan, 0, split, species, frameSegment, layout, useIntegralImage);
+        GStreamerGrabber.AppSinkListener.sumZones(plan, split, plan.zones.length, species, frameSegment, layout, useIntegralImage);
+        return plan.zoneSums.clone();
+    }
+
+}